@@ -0,0 +1,39 @@
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the usual JMH command line, always with the gc profiler so
+ * that the allocation rate is reported next to the throughput. For example
+ * {@code java -jar benchmarks.jar Validator -p size=10000 -rf json} runs the validator
+ * benchmarks on the large documents and writes the results as JSON.
+ */
+public final class BenchmarkMain {
+
+  /**
+   * Prevents instantiation.
+   */
+  private BenchmarkMain() {
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args the JMH command line
+   * @throws Exception if the command line is invalid or the benchmarks fail
+   */
+  public static void main(String[] args) throws Exception {
+    CommandLineOptions commandLine = new CommandLineOptions(args);
+    if (commandLine.shouldHelp()) {
+      commandLine.showHelp();
+      return;
+    }
+    new Runner(new OptionsBuilder()
+            .parent(commandLine)
+            .addProfiler(GCProfiler.class)
+            .build()).run();
+  }
+}
@@ -0,0 +1,97 @@
+package benchmarks;
+
+import jsontree.JsonNode;
+import jsontree.JsonTreeBuilder;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import parser.InvalidJsonException;
+
+/**
+ * A document of a given shape and size, as text and as two trees built separately, shared
+ * by the benchmarks. The shapes are:
+ * <ul>
+ *   <li>records: an array of small objects, each holding strings and an array,</li>
+ *   <li>wide: a single object with one string per key,</li>
+ *   <li>deep: objects and arrays nested up to {@link #MAX_DEPTH} levels, each holding a few
+ *   strings besides the next level.</li>
+ * </ul>
+ * The size is the number of records, keys or strings.
+ */
+@State(Scope.Benchmark)
+public class DocumentState {
+
+  /** The largest nesting depth of the deep shape, which the recursive methods can reach. */
+  static final int MAX_DEPTH = 200;
+
+  @Param({"records", "wide", "deep"})
+  public String shape;
+
+  @Param({"100", "10000"})
+  public int size;
+
+  String json;
+  char[] chars;
+  JsonNode tree;
+  JsonNode copy;
+
+  /**
+   * Creates the document and its trees.
+   *
+   * @throws InvalidJsonException if the document is invalid
+   */
+  @Setup
+  public void setUp() throws InvalidJsonException {
+    json = create(shape, size);
+    chars = json.toCharArray();
+    tree = new JsonTreeBuilder().input(json).output();
+    copy = new JsonTreeBuilder().input(json).output();
+  }
+
+  /**
+   * Creates a document.
+   *
+   * @param shape the shape of the document
+   * @param size the number of records, keys or strings
+   * @return the document
+   * @throws IllegalArgumentException if the shape is unknown
+   */
+  static String create(String shape, int size) {
+    StringBuilder out = new StringBuilder();
+    switch (shape) {
+      case "records":
+        out.append("{\"items\":[");
+        for (int i = 0; i < size; i++) {
+          out.append(i == 0 ? "" : ",").append("{\"id\":\"").append(i)
+                  .append("\",\"name\":\"name ").append(i)
+                  .append("\",\"tags\":[\"red\",\"green\"]}");
+        }
+        return out.append("]}").toString();
+      case "wide":
+        out.append('{');
+        for (int i = 0; i < size; i++) {
+          out.append(i == 0 ? "" : ",").append("\"k").append(i).append("\":\"value ")
+                  .append(i).append('"');
+        }
+        return out.append('}').toString();
+      case "deep":
+        int depth = Math.min(size, MAX_DEPTH);
+        int width = Math.max(1, size / depth);
+        StringBuilder closing = new StringBuilder("}");
+        out.append('{');
+        for (int level = 0; level < depth; level++) {
+          boolean object = level % 2 == 0;
+          for (int i = 0; i < width; i++) {
+            out.append(object ? "\"s" + i + "\":" : "").append("\"value ").append(i).append("\",");
+          }
+          out.append(object ? "\"next\":" : "").append(object ? '[' : '{');
+          closing.append(object ? ']' : '}');
+        }
+        out.append(depth % 2 == 0 ? "\"leaf\":\"value\"" : "\"value\"");
+        return out.append(closing.reverse()).toString();
+      default:
+        throw new IllegalArgumentException("unknown shape: " + shape);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import jsontree.JsonNode;
+import jsontree.JsonTreeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import parser.InvalidJsonException;
+
+/**
+ * Compares and hashes trees and prints them. Hash codes are cached by the nodes, so they are
+ * measured both on trees that have never been hashed and on one that has.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeBenchmark {
+
+  /**
+   * Trees that have never been hashed, one for each call of {@link #hashCodeUncached}. They
+   * are all built before the first iteration, because the gc profiler counts everything
+   * that is allocated during an iteration, setup included, and building a tree allocates
+   * far more than hashing it.
+   */
+  @State(Scope.Thread)
+  public static class FreshTrees {
+    JsonNode[] trees;
+    int next;
+
+    /**
+     * Builds one tree for each call of every warmup and measurement iteration.
+     *
+     * @param document the document
+     * @param params the parameters of the benchmark, which give the number of calls
+     * @throws InvalidJsonException if the document is invalid
+     */
+    @Setup(Level.Trial)
+    public void setUp(DocumentState document, BenchmarkParams params)
+            throws InvalidJsonException {
+      IterationParams warmup = params.getWarmup();
+      IterationParams measurement = params.getMeasurement();
+      trees = new JsonNode[warmup.getCount() * warmup.getBatchSize()
+              + measurement.getCount() * measurement.getBatchSize()];
+      for (int i = 0; i < trees.length; i++) {
+        trees[i] = new JsonTreeBuilder().input(document.chars, 0, document.chars.length)
+                .output();
+      }
+      next = 0;
+    }
+
+    /**
+     * Hands out the next tree, so that it can be released once it is hashed.
+     *
+     * @return a tree that has never been hashed
+     */
+    JsonNode take() {
+      JsonNode tree = trees[next];
+      trees[next++] = null;
+      return tree;
+    }
+  }
+
+  /**
+   * Compares two equal trees that were built separately.
+   *
+   * @param document the document
+   * @return true
+   */
+  @Benchmark
+  public boolean equalTrees(DocumentState document) {
+    return document.tree.equals(document.copy);
+  }
+
+  /**
+   * Hashes a tree that has never been hashed. The calls are timed in fixed batches, so that
+   * there is exactly one prepared tree for each of them; the score is the time of a batch of
+   * ten calls.
+   *
+   * @param fresh the trees
+   * @return the hash code
+   */
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  @Warmup(iterations = 3, batchSize = 10)
+  @Measurement(iterations = 5, batchSize = 10)
+  public int hashCodeUncached(FreshTrees fresh) {
+    return fresh.take().hashCode();
+  }
+
+  /**
+   * Hashes a tree whose hash code is cached after the first call.
+   *
+   * @param document the document
+   * @return the hash code
+   */
+  @Benchmark
+  public int hashCodeCached(DocumentState document) {
+    return document.tree.hashCode();
+  }
+
+  /**
+   * Prints a tree.
+   *
+   * @param document the document
+   * @return the printed tree
+   */
+  @Benchmark
+  public String prettyPrint(DocumentState document) {
+    return document.tree.prettyPrint();
+  }
+}
@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import jsontree.JsonNode;
+import jsontree.JsonTreeBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.InvalidJsonException;
+
+/**
+ * Builds the tree of a whole document with {@link JsonTreeBuilder}, from a string as
+ * callers usually do, and with a builder that is reset and reused.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TreeBuilderBenchmark {
+
+  /**
+   * A builder kept by each benchmark thread.
+   */
+  @State(Scope.Thread)
+  public static class ReusedBuilder {
+    final JsonTreeBuilder builder = new JsonTreeBuilder();
+  }
+
+  /**
+   * Builds the tree with a new builder.
+   *
+   * @param document the document
+   * @return the tree
+   * @throws InvalidJsonException if the document is invalid
+   */
+  @Benchmark
+  public JsonNode build(DocumentState document) throws InvalidJsonException {
+    return new JsonTreeBuilder().input(document.json).output();
+  }
+
+  /**
+   * Builds the tree with a builder that is reset first.
+   *
+   * @param document the document
+   * @param reused the builder
+   * @return the tree
+   * @throws InvalidJsonException if the document is invalid
+   */
+  @Benchmark
+  public JsonNode buildReused(DocumentState document, ReusedBuilder reused)
+          throws InvalidJsonException {
+    reused.builder.reset();
+    return reused.builder.input(document.chars, 0, document.chars.length).output();
+  }
+}
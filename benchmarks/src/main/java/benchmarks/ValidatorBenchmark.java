@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import validator.DfaJsonValidator;
+import validator.JsonValidator;
+import validator.ValidatorStatus;
+
+/**
+ * Validates a whole document with {@link JsonValidator}, one character at a time and in
+ * bulk, and with {@link DfaJsonValidator} for comparison.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidatorBenchmark {
+
+  /**
+   * Validates the document one character at a time.
+   *
+   * @param document the document
+   * @return the status
+   * @throws InvalidJsonException if the document is invalid
+   */
+  @Benchmark
+  public String validatorPerCharacter(DocumentState document) throws InvalidJsonException {
+    JsonParser<String> validator = new JsonValidator();
+    for (char c : document.chars) {
+      validator.input(c);
+    }
+    return validator.output();
+  }
+
+  /**
+   * Validates the document in a single call.
+   *
+   * @param document the document
+   * @return the status
+   * @throws InvalidJsonException if the document is invalid
+   */
+  @Benchmark
+  public String validatorBulk(DocumentState document) throws InvalidJsonException {
+    return new JsonValidator().input(document.chars, 0, document.chars.length).output();
+  }
+
+  /**
+   * Validates the document in a single call with the table-driven validator.
+   *
+   * @param document the document
+   * @return the status
+   * @throws InvalidJsonException if the document is invalid
+   */
+  @Benchmark
+  public ValidatorStatus dfaValidatorBulk(DocumentState document) throws InvalidJsonException {
+    DfaJsonValidator validator = new DfaJsonValidator();
+    validator.input(document.chars, 0, document.chars.length);
+    return validator.status();
+  }
+}
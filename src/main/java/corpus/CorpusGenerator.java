@@ -0,0 +1,630 @@
+package corpus;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.SplittableRandom;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+
+/**
+ * Generates synthetic documents for performance and stress tests. A document is an object
+ * holding a single array of records, {@code {"items":[{...},{...}]}}, and records are added
+ * until the document reaches the requested number of characters, so documents of any size
+ * are streamed to a writer, a file or a parser through a buffer of
+ * {@link JsonParser#CHUNK_SIZE} characters without being held in memory.
+ *
+ * <p>Records are random objects whose nesting, number of entries, string lengths and
+ * duplicate keys are set by the {@link Builder}. Containers are never empty, since the
+ * grammar does not accept a comma after an empty object. The same seed and settings always
+ * produce the same characters, whatever they are written to.
+ *
+ * <p>A {@link Defect} makes the document invalid or incomplete at a chosen fraction of its
+ * size. The characters before that point are the ones of the valid document, so the cost of
+ * reaching an error is measured on the same input as the valid case.
+ */
+public final class CorpusGenerator {
+
+  /**
+   * The ways a document can be made invalid or incomplete.
+   */
+  public enum Defect {
+    /** The document is valid. */
+    NONE(null),
+    /** The document ends at the position of the defect, inside a record. */
+    TRUNCATED(null),
+    /** A record is closed by a square bracket. */
+    MISMATCHED_BRACKET("{\"a\":\"b\"]"),
+    /** A key of a record is not followed by a colon. */
+    MISSING_COLON("{\"a\" \"b\"}"),
+    /** A key of a record starts with a digit. */
+    INVALID_KEY("{\"1a\":\"b\"}"),
+    /** A value of a record is not a string, an object or an array. */
+    INVALID_VALUE("{\"a\":b}");
+
+    private final String record;
+
+    /**
+     * Constructs a defect.
+     *
+     * @param record the record written in place of a random one, or null
+     */
+    Defect(String record) {
+      this.record = record;
+    }
+  }
+
+  private static final String ALPHABET =
+          "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789 ";
+  private static final String[] NON_ASCII = {"é", "ß", "€", "中", "😀"};
+
+  private final long seed;
+  private final int maxDepth;
+  private final int minFanOut;
+  private final int maxFanOut;
+  private final int meanStringLength;
+  private final int maxStringLength;
+  private final double containerRatio;
+  private final double duplicateKeyRatio;
+  private final double nonAsciiRatio;
+  private final int keyVocabulary;
+  private final Defect defect;
+  private final double defectPosition;
+
+  /**
+   * Constructs a generator from its settings.
+   *
+   * @param builder the settings
+   */
+  private CorpusGenerator(Builder builder) {
+    this.seed = builder.seed;
+    this.maxDepth = builder.maxDepth;
+    this.minFanOut = builder.minFanOut;
+    this.maxFanOut = builder.maxFanOut;
+    this.meanStringLength = builder.meanStringLength;
+    this.maxStringLength = builder.maxStringLength;
+    this.containerRatio = builder.containerRatio;
+    this.duplicateKeyRatio = builder.duplicateKeyRatio;
+    this.nonAsciiRatio = builder.nonAsciiRatio;
+    this.keyVocabulary = builder.keyVocabulary;
+    this.defect = builder.defect;
+    this.defectPosition = builder.defectPosition;
+  }
+
+  /**
+   * Returns a builder for a generator with the given seed and the default settings.
+   *
+   * @param seed the seed of the random choices
+   * @return the builder
+   */
+  public static Builder builder(long seed) {
+    return new Builder(seed);
+  }
+
+  /**
+   * Writes a document to a writer, which is flushed but not closed.
+   *
+   * @param out the writer
+   * @param size the number of characters of the document, which is exceeded by less than a
+   *             record, or exactly the number of characters before a truncation
+   * @throws IOException if the writer fails
+   */
+  public void write(Writer out, long size) throws IOException {
+    try {
+      generate((buf, len) -> out.write(buf, 0, len), size);
+    } catch (InvalidJsonException e) {
+      throw new IllegalStateException(e);
+    }
+    out.flush();
+  }
+
+  /**
+   * Writes a document to a file in UTF-8, replacing its content.
+   *
+   * @param file the file
+   * @param size the number of characters of the document
+   * @throws IOException if the file cannot be written
+   */
+  public void write(Path file, long size) throws IOException {
+    try (Writer out = new OutputStreamWriter(Files.newOutputStream(file),
+            StandardCharsets.UTF_8)) {
+      write(out, size);
+    }
+  }
+
+  /**
+   * Provides a document to a parser, in chunks of {@link JsonParser#CHUNK_SIZE} characters.
+   *
+   * @param parser the parser
+   * @param size the number of characters of the document
+   * @param <T> the type of the output of the parser
+   * @return the parser after handling the document
+   * @throws InvalidJsonException if the parser finds the document invalid
+   */
+  public <T> JsonParser<T> feed(JsonParser<T> parser, long size) throws InvalidJsonException {
+    ParserSink<T> sink = new ParserSink<>(parser);
+    try {
+      generate(sink, size);
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return sink.parser;
+  }
+
+  /**
+   * Returns a document as a string, for documents that fit in memory.
+   *
+   * @param size the number of characters of the document
+   * @return the document
+   */
+  public String generate(int size) {
+    StringBuilder out = new StringBuilder(size + 256);
+    try {
+      generate((buf, len) -> out.append(buf, 0, len), size);
+    } catch (IOException | InvalidJsonException e) {
+      throw new IllegalStateException(e);
+    }
+    return out.toString();
+  }
+
+  /**
+   * Generates a document into a sink.
+   *
+   * @param sink the sink
+   * @param size the number of characters of the document
+   * @throws IOException if the sink fails
+   * @throws InvalidJsonException if the sink is a parser that finds the document invalid
+   */
+  private void generate(Sink sink, long size) throws IOException, InvalidJsonException {
+    if (size < 0) {
+      throw new IllegalArgumentException("negative size: " + size);
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    Output out = new Output(sink);
+    long defectAt = (long) (defectPosition * size);
+    if (defect == Defect.TRUNCATED) {
+      out.limit = defectAt;
+    }
+    boolean injected = defect.record == null;
+    out.put("{\"items\":[");
+    for (boolean first = true; first || out.count < size - 2; first = false) {
+      if (out.count >= out.limit) {
+        break;
+      }
+      if (!first) {
+        out.put(',');
+      }
+      if (!injected && out.count >= defectAt) {
+        out.put(defect.record).put(',');
+        injected = true;
+      }
+      object(random, out, 3);
+    }
+    if (!injected) {
+      out.put(',').put(defect.record);
+    }
+    out.put("]}");
+    out.flush();
+  }
+
+  /**
+   * Writes a value, which is a container unless the maximum depth is reached.
+   *
+   * @param random the source of randomness
+   * @param out the output
+   * @param depth the depth of the value if it is a container, the outermost object being 1
+   * @throws IOException if the sink fails
+   * @throws InvalidJsonException if the sink is a parser that finds the document invalid
+   */
+  private void value(SplittableRandom random, Output out, int depth)
+          throws IOException, InvalidJsonException {
+    if (depth > maxDepth || random.nextDouble() >= containerRatio) {
+      string(random, out);
+    } else if (random.nextBoolean()) {
+      object(random, out, depth);
+    } else {
+      out.put('[');
+      int size = fanOut(random);
+      for (int i = 0; i < size; i++) {
+        if (i > 0) {
+          out.put(',');
+        }
+        value(random, out, depth + 1);
+      }
+      out.put(']');
+    }
+  }
+
+  /**
+   * Writes an object, whose keys repeat earlier keys of the same object at the duplicate
+   * key ratio and are otherwise distinct.
+   *
+   * @param random the source of randomness
+   * @param out the output
+   * @param depth the depth of the object
+   * @throws IOException if the sink fails
+   * @throws InvalidJsonException if the sink is a parser that finds the document invalid
+   */
+  private void object(SplittableRandom random, Output out, int depth)
+          throws IOException, InvalidJsonException {
+    int size = fanOut(random);
+    int[] keys = new int[size];
+    out.put('{');
+    for (int i = 0; i < size; i++) {
+      if (i > 0 && random.nextDouble() < duplicateKeyRatio) {
+        keys[i] = keys[random.nextInt(i)];
+      } else {
+        keys[i] = freshKey(random, keys, i);
+      }
+      if (i > 0) {
+        out.put(',');
+      }
+      out.put('"').put('k').put(Integer.toString(keys[i], Character.MAX_RADIX)).put("\":");
+      value(random, out, depth + 1);
+    }
+    out.put('}');
+  }
+
+  /**
+   * Chooses a key from the vocabulary that is not among the keys already chosen, or past
+   * the vocabulary when all of its keys are.
+   *
+   * @param random the source of randomness
+   * @param keys the keys already chosen
+   * @param count the number of keys already chosen
+   * @return the key
+   */
+  private int freshKey(SplittableRandom random, int[] keys, int count) {
+    int key = random.nextInt(keyVocabulary);
+    for (int tries = 0; contains(keys, count, key); tries++) {
+      key = tries < keyVocabulary ? (key + 1) % keyVocabulary : keyVocabulary + tries;
+    }
+    return key;
+  }
+
+  /**
+   * Checks whether a key is among the keys already chosen.
+   *
+   * @param keys the keys already chosen
+   * @param count the number of keys already chosen
+   * @param key the key
+   * @return true if it is
+   */
+  private static boolean contains(int[] keys, int count, int key) {
+    for (int i = 0; i < count; i++) {
+      if (keys[i] == key) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Writes a string value, whose number of code points follows a geometric distribution
+   * with the mean string length, capped at the maximum string length.
+   *
+   * @param random the source of randomness
+   * @param out the output
+   * @throws IOException if the sink fails
+   * @throws InvalidJsonException if the sink is a parser that finds the document invalid
+   */
+  private void string(SplittableRandom random, Output out)
+          throws IOException, InvalidJsonException {
+    int length = 0;
+    if (meanStringLength > 0) {
+      double p = 1.0 / (meanStringLength + 1);
+      length = (int) Math.min(maxStringLength,
+              Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p)));
+    }
+    out.put('"');
+    for (int i = 0; i < length; i++) {
+      if (nonAsciiRatio > 0 && random.nextDouble() < nonAsciiRatio) {
+        out.put(NON_ASCII[random.nextInt(NON_ASCII.length)]);
+      } else {
+        out.put(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+      }
+    }
+    out.put('"');
+  }
+
+  /**
+   * Chooses the number of entries of a container.
+   *
+   * @param random the source of randomness
+   * @return the number of entries
+   */
+  private int fanOut(SplittableRandom random) {
+    return minFanOut + random.nextInt(maxFanOut - minFanOut + 1);
+  }
+
+  /**
+   * Receives the characters of a document a chunk at a time.
+   */
+  private interface Sink {
+
+    /**
+     * Receives a chunk of characters.
+     *
+     * @param buf the buffer holding the characters, which is reused afterwards
+     * @param len the number of characters
+     * @throws IOException if a writer fails
+     * @throws InvalidJsonException if a parser finds the document invalid
+     */
+    void accept(char[] buf, int len) throws IOException, InvalidJsonException;
+  }
+
+  /**
+   * A sink providing the characters to a parser.
+   *
+   * @param <T> the type of the output of the parser
+   */
+  private static final class ParserSink<T> implements Sink {
+
+    private JsonParser<T> parser;
+
+    /**
+     * Creates a sink.
+     *
+     * @param parser the parser
+     */
+    ParserSink(JsonParser<T> parser) {
+      this.parser = parser;
+    }
+
+    @Override
+    public void accept(char[] buf, int len) throws InvalidJsonException {
+      parser = parser.input(buf, 0, len);
+    }
+  }
+
+  /**
+   * Buffers the characters of a document for a sink, and drops the ones past a limit.
+   */
+  private static final class Output {
+
+    private final Sink sink;
+    private final char[] buf;
+    private int length;
+    long count;
+    long limit;
+
+    /**
+     * Creates an output.
+     *
+     * @param sink the sink
+     */
+    Output(Sink sink) {
+      this.sink = sink;
+      this.buf = new char[JsonParser.CHUNK_SIZE];
+      this.limit = Long.MAX_VALUE;
+    }
+
+    /**
+     * Writes a character. A high surrogate that would be the last character before the
+     * limit is dropped with the rest.
+     *
+     * @param c the character
+     * @return this output
+     * @throws IOException if the sink fails
+     * @throws InvalidJsonException if the sink is a parser that finds the document invalid
+     */
+    Output put(char c) throws IOException, InvalidJsonException {
+      if (count >= limit || Character.isHighSurrogate(c) && count + 1 == limit) {
+        limit = count;
+        return this;
+      }
+      if (length == buf.length) {
+        flush();
+      }
+      buf[length++] = c;
+      count++;
+      return this;
+    }
+
+    /**
+     * Writes the characters of a string.
+     *
+     * @param s the string
+     * @return this output
+     * @throws IOException if the sink fails
+     * @throws InvalidJsonException if the sink is a parser that finds the document invalid
+     */
+    Output put(String s) throws IOException, InvalidJsonException {
+      for (int i = 0; i < s.length(); i++) {
+        put(s.charAt(i));
+      }
+      return this;
+    }
+
+    /**
+     * Hands the buffered characters to the sink.
+     *
+     * @throws IOException if the sink fails
+     * @throws InvalidJsonException if the sink is a parser that finds the document invalid
+     */
+    void flush() throws IOException, InvalidJsonException {
+      if (length > 0) {
+        sink.accept(buf, length);
+        length = 0;
+      }
+    }
+  }
+
+  /**
+   * Collects the settings of a generator.
+   */
+  public static final class Builder {
+
+    private final long seed;
+    private int maxDepth = 6;
+    private int minFanOut = 1;
+    private int maxFanOut = 8;
+    private int meanStringLength = 12;
+    private int maxStringLength = 256;
+    private double containerRatio = 0.3;
+    private double duplicateKeyRatio = 0;
+    private double nonAsciiRatio = 0.02;
+    private int keyVocabulary = 64;
+    private Defect defect = Defect.NONE;
+    private double defectPosition = 0.5;
+
+    /**
+     * Starts with the default settings.
+     *
+     * @param seed the seed of the random choices
+     */
+    private Builder(long seed) {
+      this.seed = seed;
+    }
+
+    /**
+     * Sets the largest nesting depth of the document, the outermost object being 1 and
+     * records 3. The default is 6.
+     *
+     * @param depth the depth
+     * @return this builder
+     * @throws IllegalArgumentException if the depth is less than 3
+     */
+    public Builder maxDepth(int depth) {
+      if (depth < 3) {
+        throw new IllegalArgumentException("invalid depth: " + depth);
+      }
+      this.maxDepth = depth;
+      return this;
+    }
+
+    /**
+     * Sets the range of the number of entries of records and containers, which is uniform.
+     * The default is 1 to 8.
+     *
+     * @param min the smallest number of entries
+     * @param max the largest number of entries
+     * @return this builder
+     * @throws IllegalArgumentException if the range is empty or allows empty containers
+     */
+    public Builder fanOut(int min, int max) {
+      if (min < 1 || max < min) {
+        throw new IllegalArgumentException("invalid fan-out: " + min + " to " + max);
+      }
+      this.minFanOut = min;
+      this.maxFanOut = max;
+      return this;
+    }
+
+    /**
+     * Sets the distribution of the number of code points of strings, which is geometric
+     * with the given mean and capped at the given maximum. The default is a mean of 12 and a
+     * maximum of 256.
+     *
+     * @param mean the mean length before capping
+     * @param max the largest length
+     * @return this builder
+     * @throws IllegalArgumentException if a length is negative
+     */
+    public Builder stringLength(int mean, int max) {
+      if (mean < 0 || max < 0) {
+        throw new IllegalArgumentException("invalid string length: " + mean + ", " + max);
+      }
+      this.meanStringLength = mean;
+      this.maxStringLength = max;
+      return this;
+    }
+
+    /**
+     * Sets the probability that a value below the maximum depth is an object or an array
+     * rather than a string. The default is 0.3.
+     *
+     * @param ratio the probability
+     * @return this builder
+     * @throws IllegalArgumentException if the probability is not between 0 and 1
+     */
+    public Builder containerRatio(double ratio) {
+      this.containerRatio = checkRatio(ratio);
+      return this;
+    }
+
+    /**
+     * Sets the probability that a key repeats an earlier key of the same object. The
+     * default is 0.
+     *
+     * @param ratio the probability
+     * @return this builder
+     * @throws IllegalArgumentException if the probability is not between 0 and 1
+     */
+    public Builder duplicateKeyRatio(double ratio) {
+      this.duplicateKeyRatio = checkRatio(ratio);
+      return this;
+    }
+
+    /**
+     * Sets the probability that a code point of a string is not ASCII. The default is
+     * 0.02.
+     *
+     * @param ratio the probability
+     * @return this builder
+     * @throws IllegalArgumentException if the probability is not between 0 and 1
+     */
+    public Builder nonAsciiRatio(double ratio) {
+      this.nonAsciiRatio = checkRatio(ratio);
+      return this;
+    }
+
+    /**
+     * Sets the number of distinct keys that objects draw their keys from. Objects with more
+     * entries use further keys. The default is 64.
+     *
+     * @param size the number of keys
+     * @return this builder
+     * @throws IllegalArgumentException if the number is not positive
+     */
+    public Builder keyVocabulary(int size) {
+      if (size < 1) {
+        throw new IllegalArgumentException("invalid key vocabulary: " + size);
+      }
+      this.keyVocabulary = size;
+      return this;
+    }
+
+    /**
+     * Makes the document invalid or incomplete. The default is {@link Defect#NONE}.
+     *
+     * @param kind the defect
+     * @param position the fraction of the size after which the defect is placed, at the
+     *                 start of the next record, or exactly for a truncation
+     * @return this builder
+     * @throws IllegalArgumentException if the position is not between 0 and 1
+     */
+    public Builder defect(Defect kind, double position) {
+      this.defect = Objects.requireNonNull(kind);
+      this.defectPosition = checkRatio(position);
+      return this;
+    }
+
+    /**
+     * Creates the generator.
+     *
+     * @return the generator
+     */
+    public CorpusGenerator build() {
+      return new CorpusGenerator(this);
+    }
+
+    /**
+     * Checks that a probability or fraction is between 0 and 1.
+     *
+     * @param ratio the probability or fraction
+     * @return the probability or fraction
+     * @throws IllegalArgumentException if it is not between 0 and 1
+     */
+    private static double checkRatio(double ratio) {
+      if (!(ratio >= 0 && ratio <= 1)) {
+        throw new IllegalArgumentException("invalid ratio: " + ratio);
+      }
+      return ratio;
+    }
+  }
+}
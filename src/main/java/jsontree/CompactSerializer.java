@@ -0,0 +1,301 @@
+package jsontree;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ReadOnlyBufferException;
+import java.util.Arrays;
+
+/**
+ * Writes the compact form of a JSON tree, without any whitespace, as UTF-8 bytes.
+ * The bytes are encoded directly into a destination array or byte buffer, or into a scratch
+ * array that is flushed to an output stream whenever it fills up. The same walk can also
+ * count the bytes without writing them, so that a destination can be allocated exactly once.
+ * Like the tree itself, the walk does not recurse.
+ */
+final class CompactSerializer {
+
+  private static final int SCRATCH_SIZE = 8192;
+
+  private final OutputStream stream;
+  private final ByteBuffer buffer;
+  private final boolean counting;
+  private byte[] buf;
+  private int pos;
+  private final int limit;
+  private long count;
+  private JsonNode[] nodes;
+  private int[] next;
+  private int depth;
+
+  /**
+   * Creates a serializer for one of the destinations.
+   *
+   * @param stream the output stream to flush to, or null.
+   * @param buffer the byte buffer to write into, or null.
+   * @param buf the array to write into, or null.
+   * @param pos the index of the first byte to write.
+   * @param counting true to count the bytes instead of writing them.
+   */
+  private CompactSerializer(OutputStream stream, ByteBuffer buffer, byte[] buf, int pos,
+                            boolean counting) {
+    this.stream = stream;
+    this.buffer = buffer;
+    this.buf = buf;
+    this.pos = pos;
+    this.limit = buffer != null ? buffer.limit() : buf != null ? buf.length : 0;
+    this.counting = counting;
+    this.nodes = new JsonNode[16];
+    this.next = new int[16];
+  }
+
+  /**
+   * Counts the bytes of the compact form of a tree.
+   *
+   * @param root the root of the tree.
+   * @return the number of bytes.
+   */
+  static long size(JsonNode root) {
+    CompactSerializer serializer = new CompactSerializer(null, null, null, 0, true);
+    serializer.walk(root);
+    return serializer.count;
+  }
+
+  /**
+   * Writes the compact form of a tree into an array.
+   *
+   * @param root the root of the tree.
+   * @param dst the destination array.
+   * @param off the index of the first byte to write.
+   * @return the number of bytes written.
+   * @throws IndexOutOfBoundsException if the array is too small.
+   */
+  static int write(JsonNode root, byte[] dst, int off) {
+    if (off < 0 || off > dst.length) {
+      throw new IndexOutOfBoundsException("offset " + off + " out of bounds");
+    }
+    CompactSerializer serializer = new CompactSerializer(null, null, dst, off, false);
+    serializer.walk(root);
+    return serializer.pos - off;
+  }
+
+  /**
+   * Writes the compact form of a tree to an output stream.
+   *
+   * @param root the root of the tree.
+   * @param out the destination stream, which is neither flushed nor closed.
+   * @throws IOException if the stream fails.
+   */
+  static void write(JsonNode root, OutputStream out) throws IOException {
+    CompactSerializer serializer =
+            new CompactSerializer(out, null, new byte[SCRATCH_SIZE], 0, false);
+    try {
+      serializer.walk(root);
+      serializer.flush();
+    } catch (FlushException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Writes the compact form of a tree straight into a byte buffer, from its position. The
+   * position is only moved once the whole tree is written, so that it is left unchanged
+   * when the buffer is too small.
+   *
+   * @param root the root of the tree.
+   * @param dst the destination buffer.
+   * @throws BufferOverflowException if the buffer does not have enough room.
+   * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+   */
+  static void write(JsonNode root, ByteBuffer dst) {
+    if (dst.isReadOnly()) {
+      throw new ReadOnlyBufferException();
+    }
+    CompactSerializer serializer = new CompactSerializer(null, dst, null, dst.position(), false);
+    serializer.walk(root);
+    dst.position(serializer.pos);
+  }
+
+  /**
+   * Walks the tree and writes or counts every byte of its compact form.
+   *
+   * @param root the root of the tree.
+   */
+  private void walk(JsonNode root) {
+    push(root);
+    while (depth > 0) {
+      JsonNode node = nodes[depth - 1];
+      int index = next[depth - 1];
+      switch (node.typeObtain()) {
+        case STRING:
+          writeString((String) node.valueObtain());
+          nodes[--depth] = null;
+          break;
+        case ARRAY:
+          if (index < 0) {
+            writeByte('[');
+            next[depth - 1] = 0;
+          } else if (index < node.childCount()) {
+            if (index > 0) {
+              writeByte(',');
+            }
+            next[depth - 1] = index + 1;
+            push(node.childAt(index));
+          } else {
+            writeByte(']');
+            nodes[--depth] = null;
+          }
+          break;
+        case OBJECT:
+          if (index < 0) {
+            writeByte('{');
+            next[depth - 1] = 0;
+          } else if (index < node.childCount()) {
+            if (index > 0) {
+              writeByte(',');
+            }
+            next[depth - 1] = index + 1;
+            writeString(node.keyAt(index));
+            writeByte(':');
+            push(node.childAt(index));
+          } else {
+            writeByte('}');
+            nodes[--depth] = null;
+          }
+          break;
+        default:
+          throw new IllegalStateException("Unexpected node type: " + node.typeObtain());
+      }
+    }
+  }
+
+  /**
+   * Starts writing a node.
+   *
+   * @param node the node to write.
+   */
+  private void push(JsonNode node) {
+    if (depth == nodes.length) {
+      nodes = Arrays.copyOf(nodes, depth * 2);
+      next = Arrays.copyOf(next, depth * 2);
+    }
+    nodes[depth] = node;
+    next[depth] = -1;
+    depth++;
+  }
+
+  /**
+   * Writes a quoted string, encoding its characters as UTF-8. Unpaired surrogates are
+   * written as '?', like {@link String#getBytes(java.nio.charset.Charset)} does.
+   *
+   * @param str the string to write.
+   */
+  private void writeString(String str) {
+    writeByte('"');
+    int length = str.length();
+    for (int i = 0; i < length; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80) {
+        writeByte(c);
+      } else if (c < 0x800) {
+        ensure(2);
+        put(0xC0 | c >> 6);
+        put(0x80 | c & 0x3F);
+      } else if (Character.isHighSurrogate(c) && i + 1 < length
+              && Character.isLowSurrogate(str.charAt(i + 1))) {
+        int codePoint = Character.toCodePoint(c, str.charAt(++i));
+        ensure(4);
+        put(0xF0 | codePoint >> 18);
+        put(0x80 | codePoint >> 12 & 0x3F);
+        put(0x80 | codePoint >> 6 & 0x3F);
+        put(0x80 | codePoint & 0x3F);
+      } else if (Character.isSurrogate(c)) {
+        writeByte('?');
+      } else {
+        ensure(3);
+        put(0xE0 | c >> 12);
+        put(0x80 | c >> 6 & 0x3F);
+        put(0x80 | c & 0x3F);
+      }
+    }
+    writeByte('"');
+  }
+
+  /**
+   * Writes a single byte.
+   *
+   * @param b the byte to write.
+   */
+  private void writeByte(int b) {
+    ensure(1);
+    put(b);
+  }
+
+  /**
+   * Stores a byte for which room has been ensured.
+   *
+   * @param b the byte to store.
+   */
+  private void put(int b) {
+    if (counting) {
+      count++;
+    } else if (buffer != null) {
+      buffer.put(pos++, (byte) b);
+    } else {
+      buf[pos++] = (byte) b;
+    }
+  }
+
+  /**
+   * Makes room for the given number of bytes, flushing the scratch array if needed.
+   *
+   * @param bytes the number of bytes about to be written.
+   * @throws IndexOutOfBoundsException if a destination array is too small.
+   * @throws BufferOverflowException if a destination buffer is too small.
+   */
+  private void ensure(int bytes) {
+    if (!counting && pos + bytes > limit) {
+      if (buffer != null) {
+        throw new BufferOverflowException();
+      } else if (stream == null) {
+        throw new IndexOutOfBoundsException("destination array is too small");
+      }
+      flush();
+    }
+  }
+
+  /**
+   * Hands the bytes of the scratch array to the output stream.
+   */
+  private void flush() {
+    try {
+      stream.write(buf, 0, pos);
+    } catch (IOException e) {
+      throw new FlushException(e);
+    }
+    pos = 0;
+  }
+
+  /**
+   * Carries the failure of an output stream out of the walk.
+   */
+  private static final class FlushException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Wraps the failure of an output stream.
+     *
+     * @param cause the failure.
+     */
+    FlushException(IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+}
@@ -1,5 +1,7 @@
 package jsontree;
 
+import java.util.Collection;
+
 /**
  * Abstract class representing a specification for a JSON array.
  * This class defines the necessary behavior for a JSON array node in a JSON structure.
@@ -13,4 +15,11 @@ public abstract class IJsonArray extends JsonNode {
    * @param value the {@link JsonNode} element to be added to the array.
    */
   public abstract void add(JsonNode value);
+
+  /**
+   * Appends every element of a collection to this JSON array, in its iteration order.
+   *
+   * @param elements the elements to be added to the array.
+   */
+  public abstract void addAll(Collection<? extends JsonNode> elements);
 }
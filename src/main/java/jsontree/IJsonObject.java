@@ -1,12 +1,15 @@
 package jsontree;
 
+import java.util.Map;
+
 /**
  * Abstract class representing a specification for a JSON object.
  * This class defines the common structure and behavior that concrete implementations of
  * a JSON object must follow.
- * The key-value pairs in the object are expected to be managed by a subclass.
+ * The key-value pairs in the object are expected to be managed by a subclass, which also
+ * provides the lookups of {@link JsonObjectView}.
  */
-public abstract class IJsonObject extends JsonNode {
+public abstract class IJsonObject extends JsonNode implements JsonObjectView {
 
   /**
    * Adds a new key-value pair to the JSON object.
@@ -18,4 +21,11 @@ public abstract class IJsonObject extends JsonNode {
    * @param value the {@link JsonNode} value to be associated with the key.
    */
   public abstract void add(String key, JsonNode value);
+
+  /**
+   * Adds every key-value pair of a map to the JSON object, in the iteration order of the map.
+   *
+   * @param pairs the key-value pairs to add.
+   */
+  public abstract void addAll(Map<String, ? extends JsonNode> pairs);
 }
@@ -1,6 +1,7 @@
 package jsontree;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -11,17 +12,62 @@ import java.util.List;
 public class JsonArray extends IJsonArray {
 
   /** The list of elements in the JSON array. */
-  private final List<JsonNode> components = new ArrayList<>();
+  private final List<JsonNode> components;
+
+  /**
+   * Constructs an empty JSON array.
+   */
+  public JsonArray() {
+    this.components = new ArrayList<>();
+  }
+
+  /**
+   * Constructs an empty JSON array with room for the given number of elements.
+   *
+   * @param expectedSize the number of elements expected to be added.
+   * @throws IllegalArgumentException if the number is negative.
+   */
+  public JsonArray(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("negative size: " + expectedSize);
+    }
+    this.components = new ArrayList<>(expectedSize);
+  }
+
+  /**
+   * Returns a builder for a JSON array with the given number of elements.
+   *
+   * @param expectedSize the number of elements expected to be added.
+   * @return the builder.
+   * @throws IllegalArgumentException if the number is negative.
+   */
+  public static Builder builder(int expectedSize) {
+    return new Builder(new JsonArray(expectedSize));
+  }
 
   /**
    * Adds a new element to the JSON array.
    * This method appends the provided {@link JsonNode} value to the list of elements.
+   * The cached hash codes of this array and of the containers holding it are discarded.
    *
    * @param value the {@link JsonNode} element to be added to the array.
    */
   @Override
   public void add(JsonNode value) {
     components.add(value);
+    invalidateHash();
+  }
+
+  /**
+   * Appends every element of a collection to the JSON array, in its iteration order.
+   * The cached hash codes of this array and of the containers holding it are discarded once.
+   *
+   * @param elements the elements to be added to the array.
+   */
+  @Override
+  public void addAll(Collection<? extends JsonNode> elements) {
+    components.addAll(elements);
+    invalidateHash();
   }
 
   /**
@@ -41,4 +87,73 @@ public class JsonArray extends IJsonArray {
   protected Object valueObtain() {
     return components;
   }
+
+  /**
+   * Returns the number of elements of the JSON array.
+   *
+   * @return the number of elements.
+   */
+  @Override
+  int childCount() {
+    return components.size();
+  }
+
+  /**
+   * Returns an element of the JSON array.
+   *
+   * @param i the position of the element.
+   * @return the element.
+   */
+  @Override
+  JsonNode childAt(int i) {
+    return components.get(i);
+  }
+
+  /**
+   * Builds a JSON array whose number of elements is known in advance, so that its storage
+   * is allocated once.
+   */
+  public static final class Builder {
+
+    private JsonArray array;
+
+    /**
+     * Starts building an array.
+     *
+     * @param array the empty array to fill.
+     */
+    private Builder(JsonArray array) {
+      this.array = array;
+    }
+
+    /**
+     * Appends an element to the array being built.
+     *
+     * @param value the element.
+     * @return this builder.
+     * @throws IllegalStateException if the array has already been built.
+     */
+    public Builder add(JsonNode value) {
+      if (array == null) {
+        throw new IllegalStateException("array already built");
+      }
+      array.components.add(value);
+      return this;
+    }
+
+    /**
+     * Returns the array that has been built. The builder cannot be used afterwards.
+     *
+     * @return the array.
+     * @throws IllegalStateException if the array has already been built.
+     */
+    public JsonArray build() {
+      if (array == null) {
+        throw new IllegalStateException("array already built");
+      }
+      JsonArray built = array;
+      array = null;
+      return built;
+    }
+  }
 }
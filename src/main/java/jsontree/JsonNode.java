@@ -1,5 +1,9 @@
 package jsontree;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -10,9 +14,19 @@ import java.util.Objects;
 /**
  * Abstract class representing a JSON node. This class provides methods for comparing JSON nodes,
  * calculating hash codes, and pretty printing nodes.
+ * The hash code of a node is computed once and kept until the node or one of its descendants
+ * is changed. For this, an array or object remembers the containers whose cached hash codes
+ * were computed from its own, and forgets them when its hash code is discarded, so that a
+ * node keeps no container reachable once it has changed or while no hash code depends on it.
  */
 public abstract class JsonNode {
 
+  // The cached hash code, or 0 while it has to be computed.
+  private int hash;
+  // The first container whose cached hash code includes this one, and any others after it.
+  private JsonNode parent;
+  private List<JsonNode> otherParents;
+
   /**
    * Enum representing the type of the JSON node.
    */
@@ -35,10 +49,58 @@ public abstract class JsonNode {
    */
   protected abstract Object valueObtain();
 
+  /**
+   * Returns the number of children of an array or object node. Subclasses may override the
+   * child accessors to avoid going through {@link #valueObtain()}.
+   *
+   * @return the number of elements or entries.
+   */
+  @SuppressWarnings("unchecked")
+  int childCount() {
+    return ((List<Object>) valueObtain()).size();
+  }
+
+  /**
+   * Returns the key of an entry of an object node.
+   *
+   * @param i the position of the entry.
+   * @return the key.
+   */
+  @SuppressWarnings("unchecked")
+  String keyAt(int i) {
+    return ((List<Map.Entry<String, JsonNode>>) valueObtain()).get(i).getKey();
+  }
+
+  /**
+   * Returns the id of the key of an entry of an object node in the shared
+   * {@link KeySymbols} table, which lets keys be compared without looking at their strings.
+   *
+   * @param i the position of the entry.
+   * @return the id of the key, or -1 if it is not known.
+   */
+  int keyIdAt(int i) {
+    return -1;
+  }
+
+  /**
+   * Returns an element of an array node or the value of an entry of an object node.
+   *
+   * @param i the position of the child.
+   * @return the child.
+   */
+  @SuppressWarnings("unchecked")
+  JsonNode childAt(int i) {
+    if (typeObtain() == typeOfNode.ARRAY) {
+      return ((List<JsonNode>) valueObtain()).get(i);
+    }
+    return ((List<Map.Entry<String, JsonNode>>) valueObtain()).get(i).getValue();
+  }
+
 
   /**
    * Compares this JSON node with another object for equality. Two nodes are considered equal
-   * if they have the same type and value.
+   * if they have the same type and value. Nodes whose hash codes are both cached and differ
+   * are told apart without looking at their values.
    *
    * @param o the object to compare this JSON node with.
    * @return true if the JSON nodes are equal, false otherwise.
@@ -57,6 +119,9 @@ public abstract class JsonNode {
     if (this.typeObtain() != that.typeObtain()) {
       return false;
     }
+    if (this.hash != 0 && that.hash != 0 && this.hash != that.hash) {
+      return false;
+    }
 
     if (this.typeObtain() == typeOfNode.STRING) {
       return Objects.equals(this.valueObtain(), that.valueObtain());
@@ -64,38 +129,153 @@ public abstract class JsonNode {
       return compareArr((List<JsonNode>) this.valueObtain(),
                           (List<JsonNode>) that.valueObtain());
     } else if (this.typeObtain() == typeOfNode.OBJECT) {
-      return compareObj((List<Map.Entry<String, JsonNode>>) this.valueObtain(),
-              (List<Map.Entry<String, JsonNode>>) that.valueObtain());
+      return compareObj(this, that);
     } else {
       throw new IllegalStateException("Unexpected value: " + this.typeObtain());
     }
   }
 
   /**
-   * Generates a hash code for this JSON node.
+   * Generates a hash code for this JSON node. It is computed on the first call and cached
+   * until the node is changed.
    *
    * @return the hash code for this JSON node.
    */
   @Override
-  @SuppressWarnings("unchecked")
   public final int hashCode() {
-    if (typeObtain() == typeOfNode.OBJECT) {
-      return Objects.hash(typeObtain(),
-              listOfMapToMap((List<Map.Entry<String, JsonNode>>) valueObtain()));
+    int h = hash;
+    if (h == 0) {
+      h = computeHash();
+      // 0 marks a hash code that is not cached, so it is never used as a value.
+      if (h == 0) {
+        h = 1;
+      }
+      hash = h;
+    }
+    return h;
+  }
+
+  /**
+   * Computes the hash code of this JSON node from its type and value.
+   *
+   * @return the computed hash code.
+   */
+  private int computeHash() {
+    if (typeObtain() == typeOfNode.STRING) {
+      return Objects.hash(typeObtain(), valueObtain());
+    }
+    int h = typeObtain() == typeOfNode.OBJECT
+            ? Objects.hash(typeObtain(), entriesToMap(this))
+            : Objects.hash(typeObtain(), valueObtain());
+    for (int i = 0; i < childCount(); i++) {
+      JsonNode child = childAt(i);
+      if (child instanceof JsonObject || child instanceof JsonArray) {
+        child.attachTo(this);
+      }
+    }
+    return h;
+  }
+
+  /**
+   * Records that the hash code of a container is computed from the one of this node, so that
+   * changes to this node reach it. Only the arrays and objects that can be changed need to.
+   * Several threads may be hashing containers that share this node at the same time.
+   *
+   * @param container the container holding this node.
+   */
+  private synchronized void attachTo(JsonNode container) {
+    if (parent == null) {
+      parent = container;
+    } else if (parent != container) {
+      if (otherParents == null) {
+        otherParents = new ArrayList<>(1);
+      }
+      if (!otherParents.contains(container)) {
+        otherParents.add(container);
+      }
+    }
+  }
+
+  /**
+   * Discards the cached hash code of this node and of the containers whose hash codes were
+   * computed from it, which are then forgotten until they compute them again. A node without
+   * a cached hash code cannot have ancestors with one, since computing the hash code of a
+   * container computes those of its children, so the walk stops there.
+   */
+  final void invalidateHash() {
+    if (hash != 0) {
+      hash = 0;
+      JsonNode first;
+      List<JsonNode> others;
+      synchronized (this) {
+        first = parent;
+        others = otherParents;
+        parent = null;
+        otherParents = null;
+      }
+      if (first != null) {
+        first.invalidateHash();
+      }
+      if (others != null) {
+        for (JsonNode other : others) {
+          other.invalidateHash();
+        }
+      }
     }
-    return Objects.hash(typeObtain(), valueObtain());
   }
 
   /**
-   * Compares two JSON objects for equality.
+   * Compares two JSON objects for equality, regardless of the order of their entries but
+   * counting duplicate keys. Entries are first compared pairwise in order, and only the
+   * entries from the first difference onwards are matched irrespective of their order.
    *
    * @param object1 the first object.
    * @param object2 the second object.
    * @return true if the objects are equal, false otherwise.
    */
-  private boolean compareObj(List<Map.Entry<String, JsonNode>> object1, List<Map.Entry<String,
-                             JsonNode>> object2) {
-    return listOfMapToMap(object1).equals(listOfMapToMap(object2));
+  private static boolean compareObj(JsonNode object1, JsonNode object2) {
+    int size = object1.childCount();
+    if (size != object2.childCount()) {
+      return false;
+    }
+    int first = 0;
+    while (first < size && sameKey(object1, object2, first)
+            && Objects.equals(object1.childAt(first), object2.childAt(first))) {
+      first++;
+    }
+    if (first == size) {
+      return true;
+    }
+    Map<String, List<JsonNode>> unmatched = new HashMap<>();
+    for (int i = first; i < size; i++) {
+      unmatched.computeIfAbsent(object1.keyAt(i), k -> new ArrayList<>(1))
+              .add(object1.childAt(i));
+    }
+    for (int i = first; i < size; i++) {
+      List<JsonNode> candidates = unmatched.get(object2.keyAt(i));
+      if (candidates == null || !candidates.remove(object2.childAt(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compares the keys of two entries at the same position, by their symbol ids when both
+   * have one.
+   *
+   * @param object1 the first object.
+   * @param object2 the second object.
+   * @param i the position of the entries.
+   * @return true if the keys are equal, false otherwise.
+   */
+  private static boolean sameKey(JsonNode object1, JsonNode object2, int i) {
+    int id1 = object1.keyIdAt(i);
+    int id2 = object2.keyIdAt(i);
+    if (id1 >= 0 && id2 >= 0) {
+      return id1 == id2;
+    }
+    return object1.keyAt(i).equals(object2.keyAt(i));
   }
 
   /**
@@ -106,23 +286,22 @@ public abstract class JsonNode {
    * @return true if the arrays are equal, false otherwise.
    */
   private boolean compareArr(List<JsonNode> array1, List<JsonNode> array2) {
-    return array1.equals(array2);
+    return array1.size() == array2.size() && array1.equals(array2);
   }
 
   /**
-   * Converts a list of map to a map for comparison.
+   * Converts the entries of an object to a map for hashing.
    *
-   * @param storedEntries the list of map entries.
-   * @return a map with key-value pairs.
+   * @param object the object.
+   * @return a map from each key to its values.
    */
-  private Map<String, List<JsonNode>> listOfMapToMap(List<Map.Entry<String,
-                                                     JsonNode>> storedEntries) {
+  private static Map<String, List<JsonNode>> entriesToMap(JsonNode object) {
     Map<String, List<JsonNode>> map = new HashMap<>();
-    for (Map.Entry<String, JsonNode> entry : storedEntries) {
-      map.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(entry.getValue());
+    for (int i = 0; i < object.childCount(); i++) {
+      map.computeIfAbsent(object.keyAt(i), k -> new ArrayList<>()).add(object.childAt(i));
     }
     for (List<JsonNode> values : map.values()) {
-      values.sort(Comparator.comparing(JsonNode::hashCode));
+      values.sort(Comparator.comparingInt(JsonNode::hashCode));
     }
     return map;
   }
@@ -143,77 +322,96 @@ public abstract class JsonNode {
    * @return a pretty-printed string representation of this JSON node.
    */
   protected final String prettyPrint(int space) {
-    String indentStr = "  ".repeat(space);
-    switch (typeObtain()) {
-      case STRING:
-        return prettyPrintOfStr();
-      case ARRAY:
-        return prettyPrintOfArr(space, indentStr);
-      case OBJECT:
-        return prettyPrintOfObject(space, indentStr);
-      default:
-        throw new IllegalStateException("Unexpected node type: " + typeObtain());
+    StringBuilder sb = new StringBuilder();
+    try {
+      new PrettyPrinter(this, space).printAll(sb);
+    } catch (IOException e) {
+      throw new IllegalStateException("StringBuilder cannot fail", e);
     }
+    return sb.toString();
   }
 
+  /**
+   * Writes the same output as {@link #prettyPrint()} to the given destination, in a single
+   * pass and without building it in memory first.
+   *
+   * @param out the destination of the output, such as a {@link java.io.Writer}.
+   * @throws IOException if the destination fails.
+   */
+  public final void prettyPrintTo(Appendable out) throws IOException {
+    new PrettyPrinter(this, 0).printAll(out);
+  }
 
   /**
-   * Pretty prints a JSON object.
+   * Returns a reader over the same output as {@link #prettyPrint()}, which is produced in
+   * chunks as it is read. The tree must not be changed while the reader is in use.
    *
-   * @param space the current indentation level.
-   * @param spaceStr the string representing the indentation.
-   * @return a pretty-printed string representation of the object.
+   * @return a reader over the pretty-printed form of this JSON node.
    */
-  @SuppressWarnings("unchecked")
-  private String prettyPrintOfObject(int space, String spaceStr) {
-    List<Map.Entry<String, JsonNode>> entries = (List<Map.Entry<String, JsonNode>>) valueObtain();
-    StringBuilder sb = new StringBuilder("{\n");
-    for (Map.Entry<String, JsonNode> entry : entries) {
-      sb.append(spaceStr).append("  ")
-              .append("\"").append(entry.getKey()).append("\":")
-              .append(prettyPrintValue(entry.getValue(), space + 1));
-      if (entries.indexOf(entry) < entries.size() - 1) {
-        sb.append(",");
-      }
-      sb.append("\n");
-    }
-    return sb.append("  ".repeat(space)).append("}").toString();
+  public final Reader prettyPrintReader() {
+    return new PrettyPrintReader(this);
   }
 
-  private String prettyPrintValue(JsonNode value, int indent) {
-    return (value instanceof JsonObject || value instanceof JsonArray)
-            ? "\n" + "  ".repeat(indent) + value.prettyPrint(indent)
-            : value.prettyPrint(indent);
+  /**
+   * Counts the bytes of the compact form of this JSON node, which has no whitespace between
+   * its elements and is encoded as UTF-8.
+   *
+   * @return the number of bytes written by the writeCompact methods.
+   */
+  public final long compactSize() {
+    return CompactSerializer.size(this);
   }
 
   /**
-   * Pretty prints a string value.
+   * Writes the compact form of this JSON node as UTF-8 to an output stream, through a
+   * small scratch buffer. The stream is neither flushed nor closed.
    *
-   * @return the string value wrapped in quotes.
+   * @param out the destination stream.
+   * @throws IOException if the stream fails.
    */
-  private String prettyPrintOfStr() {
-    return "\"" + valueObtain() + "\"";
+  public final void writeCompact(OutputStream out) throws IOException {
+    CompactSerializer.write(this, out);
   }
 
   /**
-   * Pretty prints a JSON array.
+   * Writes the compact form of this JSON node as UTF-8 into an array, which can be sized
+   * with {@link #compactSize()}.
    *
-   * @param space the current indentation level.
+   * @param dst the destination array.
+   * @param off the index of the first byte to write.
+   * @return the number of bytes written.
+   * @throws IndexOutOfBoundsException if the array is too small.
+   */
+  public final int writeCompact(byte[] dst, int off) {
+    return CompactSerializer.write(this, dst, off);
+  }
+
+  /**
+   * Writes the compact form of this JSON node as UTF-8 into a heap or direct byte buffer,
+   * starting at its position, which is advanced past the written bytes. The position is
+   * left unchanged if the buffer does not have enough room.
    *
-   * @param spaceStr the string representing the indentation.
-   * @return a pretty-printed string representation of the array.
+   * @param dst the destination buffer.
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough room.
+   * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
    */
-  @SuppressWarnings("unchecked")
-  private String prettyPrintOfArr(int space, String spaceStr) {
-    List<JsonNode> elements = (List<JsonNode>) valueObtain();
-    StringBuilder sb = new StringBuilder("[\n");
-    for (int i = 0; i < elements.size(); i++) {
-      sb.append(spaceStr).append("  ").append(elements.get(i).prettyPrint(space + 1));
-      if (i < elements.size() - 1) {
-        sb.append(",");
-      }
-      sb.append("\n");
+  public final void writeCompact(ByteBuffer dst) {
+    CompactSerializer.write(this, dst);
+  }
+
+  /**
+   * Returns the compact form of this JSON node as UTF-8, in an array of the exact size.
+   *
+   * @return the bytes of the compact form.
+   * @throws IllegalStateException if the compact form does not fit in an array.
+   */
+  public final byte[] toCompactBytes() {
+    long size = compactSize();
+    if (size > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("compact form too large for an array: " + size);
     }
-    return sb.append("  ".repeat(space)).append("]").toString();
+    byte[] bytes = new byte[(int) size];
+    writeCompact(bytes, 0);
+    return bytes;
   }
 }
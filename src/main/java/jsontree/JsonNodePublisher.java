@@ -0,0 +1,279 @@
+package jsontree;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+
+/**
+ * Publishes the trees of a sequence of objects read from a reader, such as
+ * newline-delimited JSON, with a {@link JsonTreeBuilder} in multi-document mode. The reader
+ * is only read while the subscriber has requested more trees than have been delivered, one
+ * chunk of {@link JsonParser#CHUNK_SIZE} characters at a time, so the trees waiting to be
+ * delivered are at most the ones completed by the last chunk.
+ *
+ * <p>An invalid document either ends the stream with {@link Flow.Subscriber#onError} and the
+ * {@link InvalidJsonException}, or is skipped up to the next line break and counted by
+ * {@link #skipped()}. Input that ends inside a document is handled the same way. The reader
+ * is read and the subscriber is signalled on the executor, one task at a time, and the
+ * reader is closed once the stream ends or is cancelled. The reader can only be read once,
+ * so there can only be one subscriber.
+ */
+public class JsonNodePublisher implements Flow.Publisher<JsonNode> {
+
+  /** The message of the exception for input that ends inside a document. */
+  public static final String INCOMPLETE = "input ended inside a document";
+
+  private final Reader source;
+  private final Executor executor;
+  private final boolean skipInvalid;
+  private final AtomicBoolean subscribed;
+  private final AtomicLong skipped;
+
+  /**
+   * Constructs a publisher.
+   *
+   * @param source the reader holding the documents
+   * @param executor the executor reading the documents and signalling the subscriber
+   * @param skipInvalid true to skip invalid documents, false to end the stream with an error
+   */
+  public JsonNodePublisher(Reader source, Executor executor, boolean skipInvalid) {
+    this.source = Objects.requireNonNull(source);
+    this.executor = Objects.requireNonNull(executor);
+    this.skipInvalid = skipInvalid;
+    this.subscribed = new AtomicBoolean();
+    this.skipped = new AtomicLong();
+  }
+
+  /**
+   * Starts delivering trees to a subscriber once it requests them. A second subscriber is
+   * given an {@link IllegalStateException}.
+   *
+   * @param subscriber the subscriber
+   */
+  @Override
+  public void subscribe(Flow.Subscriber<? super JsonNode> subscriber) {
+    Objects.requireNonNull(subscriber);
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(new IllegalStateException("already subscribed"));
+      return;
+    }
+    subscriber.onSubscribe(new Subscription(subscriber));
+  }
+
+  /**
+   * Returns the number of invalid documents that have been skipped.
+   *
+   * @return the number of skipped documents
+   */
+  public long skipped() {
+    return skipped.get();
+  }
+
+  /**
+   * The subscription of the subscriber, which reads the documents as they are requested.
+   */
+  private final class Subscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super JsonNode> subscriber;
+    private final ArrayDeque<JsonNode> ready;
+    private final JsonTreeBuilder builder;
+    private final char[] chunk;
+    private final AtomicLong demand;
+    private final AtomicInteger work;
+    private volatile boolean cancelled;
+    private volatile IllegalArgumentException badRequest;
+    private Exception failure;
+    private boolean exhausted;
+    private boolean skipping;
+    private boolean done;
+
+    /**
+     * Creates the subscription.
+     *
+     * @param subscriber the subscriber
+     */
+    Subscription(Flow.Subscriber<? super JsonNode> subscriber) {
+      this.subscriber = subscriber;
+      this.ready = new ArrayDeque<>();
+      this.builder = new JsonTreeBuilder(ready::add);
+      this.chunk = new char[JsonParser.CHUNK_SIZE];
+      this.demand = new AtomicLong();
+      this.work = new AtomicInteger();
+    }
+
+    /**
+     * Requests more trees. A request that is not positive ends the stream with an
+     * {@link IllegalArgumentException}.
+     *
+     * @param n the number of trees
+     */
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        badRequest = new IllegalArgumentException("non-positive request: " + n);
+      } else {
+        demand.getAndAccumulate(n, (current, more) -> {
+          long sum = current + more;
+          return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+      }
+      schedule();
+    }
+
+    /**
+     * Stops the delivery of trees and closes the reader.
+     */
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    /**
+     * Runs the delivery on the executor, unless it is already running, in which case it
+     * goes round once more.
+     */
+    private void schedule() {
+      if (work.getAndIncrement() == 0) {
+        executor.execute(this::drain);
+      }
+    }
+
+    /**
+     * Delivers the trees that are requested, reading the reader when none is ready. The
+     * trees completed before an invalid document are delivered before the error.
+     */
+    private void drain() {
+      int missed = 1;
+      do {
+        while (!done) {
+          if (cancelled) {
+            finish(null, false);
+          } else if (badRequest != null) {
+            finish(badRequest, true);
+          } else if (demand.get() > 0 && !ready.isEmpty()) {
+            demand.decrementAndGet();
+            subscriber.onNext(ready.poll());
+          } else if (!ready.isEmpty()) {
+            break;
+          } else if (failure != null) {
+            finish(failure, true);
+          } else if (exhausted) {
+            finish(null, true);
+          } else if (demand.get() > 0) {
+            readChunk();
+          } else {
+            break;
+          }
+        }
+        missed = work.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    /**
+     * Reads the next chunk of the reader and builds the documents it completes.
+     */
+    private void readChunk() {
+      try {
+        int count = source.read(chunk, 0, chunk.length);
+        if (count < 0) {
+          exhausted = true;
+          if (builder.started()) {
+            invalid(new InvalidJsonException(INCOMPLETE));
+          }
+        } else if (skipInvalid) {
+          inputLines(count);
+        } else {
+          builder.input(chunk, 0, count);
+        }
+      } catch (IOException | InvalidJsonException | RuntimeException e) {
+        failure = e;
+      }
+    }
+
+    /**
+     * Builds the documents of a chunk a line at a time, so that an invalid document is
+     * skipped up to the next line break.
+     *
+     * @param count the number of characters in the chunk
+     */
+    private void inputLines(int count) {
+      for (int from = 0; from < count; ) {
+        int to = from;
+        while (to < count && chunk[to] != '\n') {
+          to++;
+        }
+        if (to < count) {
+          to++;
+        }
+        if (skipping) {
+          skipping = to == count && chunk[count - 1] != '\n';
+        } else {
+          try {
+            builder.input(chunk, from, to - from);
+          } catch (InvalidJsonException | IllegalArgumentException e) {
+            invalid(e);
+            skipping = to == count && chunk[count - 1] != '\n';
+          }
+        }
+        from = to;
+      }
+    }
+
+    /**
+     * Handles an invalid document, which is counted when invalid documents are skipped.
+     *
+     * @param e the reason the document is invalid
+     */
+    private void invalid(Exception e) {
+      if (skipInvalid) {
+        skipped.incrementAndGet();
+        builder.reset();
+      } else {
+        failure = e;
+      }
+    }
+
+    /**
+     * Ends the stream and closes the reader.
+     *
+     * @param error the error ending the stream, or null
+     * @param signal false to end the stream without signalling the subscriber
+     */
+    private void finish(Throwable error, boolean signal) {
+      done = true;
+      ready.clear();
+      try {
+        source.close();
+      } catch (IOException e) {
+        if (error == null) {
+          error = e;
+        }
+      }
+      if (signal) {
+        if (error == null) {
+          subscriber.onComplete();
+        } else {
+          subscriber.onError(error);
+        }
+      }
+    }
+  }
+}
@@ -1,25 +1,87 @@
 package jsontree;
 
+import java.util.AbstractList;
+import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.AbstractMap;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Concrete class representing a JSON object.
  * This class implements the behavior for managing key-value pairs in a JSON object.
- * The keys are validated to ensure they follow a specific naming convention.
+ * The keys are validated to ensure they follow a specific naming convention, except for
+ * those added by {@link JsonTreeBuilder}, whose grammar has already checked them.
+ * Keys are looked up with a linear scan until the object holds more than
+ * {@link #INDEX_THRESHOLD} entries, after which a hash index from each key to its values is
+ * built on the first lookup and kept up to date by later additions.
+ * Keys are stored as ids of the shared {@link KeySymbols} table, so that every object with
+ * the same keys shares their strings and keys are compared as integers. Keys added here are
+ * only looked up in the table, which only grows with the keys the parsers read.
  */
 public class JsonObject extends IJsonObject {
 
-  // List of key-value pairs represented as Map.Entry to allow duplicate keys.
-  private final List<Map.Entry<String, JsonNode>> entries = new ArrayList<>();
+  private static final KeySymbols SYMBOLS = KeySymbols.shared();
+  private static final int[] NO_KEYS = new int[0];
+  private static final JsonNode[] NO_VALUES = new JsonNode[0];
+
+  // Key-value pairs in insertion order, to allow duplicate keys. A key is the id of its
+  // symbol, or -1 - i for the i-th key of spilledKeys once the symbol table is full.
+  private int[] keys = NO_KEYS;
+  private JsonNode[] values = NO_VALUES;
+  private int size;
+  private List<String> spilledKeys;
+
+  /** The number of entries up to which keys are looked up without an index. */
+  static final int INDEX_THRESHOLD = 8;
+
+  // Values of each key in insertion order, or null until the index is needed.
+  private Map<String, List<JsonNode>> index;
+
+  /**
+   * Constructs an empty JSON object.
+   */
+  public JsonObject() {
+  }
+
+  /**
+   * Constructs an empty JSON object with room for the given number of entries.
+   *
+   * @param expectedSize the number of entries expected to be added.
+   * @throws IllegalArgumentException if the number is negative.
+   */
+  public JsonObject(int expectedSize) {
+    if (expectedSize < 0) {
+      throw new IllegalArgumentException("negative size: " + expectedSize);
+    }
+    if (expectedSize > 0) {
+      keys = new int[expectedSize];
+      values = new JsonNode[expectedSize];
+    }
+  }
+
+  /**
+   * Returns a builder for a JSON object with the given number of entries.
+   *
+   * @param expectedSize the number of entries expected to be added.
+   * @return the builder.
+   * @throws IllegalArgumentException if the number is negative.
+   */
+  public static Builder builder(int expectedSize) {
+    return new Builder(new JsonObject(expectedSize));
+  }
 
   /**
    * Adds a new key-value pair to the JSON object.
    * Validates the key to ensure it follows the specified naming convention (starts with a letter
    * and contains alphanumeric characters).
    * If the key is invalid, an {@link IllegalArgumentException} is thrown.
+   * The cached hash codes of this object and of the containers holding it are discarded.
    *
    * @param key the key to be added to the JSON object.
    * @param value the {@link JsonNode} value associated with the key.
@@ -27,11 +89,215 @@ public class JsonObject extends IJsonObject {
    */
   @Override
   public void add(String key, JsonNode value) {
-    if (!key.matches("^[a-zA-Z][a-zA-Z0-9]*$")) {
+    checkKey(key);
+    append(SYMBOLS.find(key), key, value);
+    invalidateHash();
+  }
+
+  /**
+   * Adds every key-value pair of a map to the JSON object, in the iteration order of the map.
+   * All the keys are validated before any pair is added.
+   *
+   * @param pairs the key-value pairs to add.
+   * @throws IllegalArgumentException if a key does not follow the naming convention.
+   */
+  @Override
+  public void addAll(Map<String, ? extends JsonNode> pairs) {
+    for (String key : pairs.keySet()) {
+      checkKey(key);
+    }
+    reserve(pairs.size());
+    for (Map.Entry<String, ? extends JsonNode> pair : pairs.entrySet()) {
+      append(SYMBOLS.find(pair.getKey()), pair.getKey(), pair.getValue());
+    }
+    invalidateHash();
+  }
+
+  /**
+   * Adds a key-value pair whose key is already known to follow the naming convention.
+   *
+   * @param id the id of the key in the shared symbol table, or -1 if it is not in it.
+   * @param key the key.
+   * @param value the value associated with the key.
+   */
+  void addTrusted(int id, String key, JsonNode value) {
+    append(id, key, value);
+    invalidateHash();
+  }
+
+  /**
+   * Checks that a key starts with an ASCII letter followed by ASCII letters and digits.
+   *
+   * @param key the key to check.
+   * @throws IllegalArgumentException if the key does not follow the naming convention.
+   */
+  static void checkKey(String key) {
+    int length = key.length();
+    boolean valid = length > 0 && isAsciiLetter(key.charAt(0));
+    for (int i = 1; valid && i < length; i++) {
+      char c = key.charAt(i);
+      valid = isAsciiLetter(c) || c >= '0' && c <= '9';
+    }
+    if (!valid) {
       throw new IllegalArgumentException(key + " is not a valid key");
     }
-    // Add a new key-value pair to the list using AbstractMap.SimpleEntry
-    entries.add(new AbstractMap.SimpleEntry<>(key, value));
+  }
+
+  /**
+   * Checks whether a character is an ASCII letter.
+   *
+   * @param c the character.
+   * @return true if it is an ASCII letter.
+   */
+  private static boolean isAsciiLetter(char c) {
+    return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+  }
+
+  /**
+   * Appends an entry, without discarding the cached hash codes.
+   *
+   * @param id the id of the key in the shared symbol table, or -1 if it is not in it.
+   * @param key the key.
+   * @param value the value.
+   */
+  private void append(int id, String key, JsonNode value) {
+    if (id < 0) {
+      if (spilledKeys == null) {
+        spilledKeys = new ArrayList<>(1);
+      }
+      spilledKeys.add(key);
+      id = -spilledKeys.size();
+    }
+    if (size == keys.length) {
+      reserve(Math.max(4, size));
+    }
+    keys[size] = id;
+    values[size++] = value;
+    if (index != null) {
+      index.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+    }
+  }
+
+  /**
+   * Makes room for more entries.
+   *
+   * @param count the number of entries about to be added.
+   */
+  private void reserve(int count) {
+    if (size + count > keys.length) {
+      keys = Arrays.copyOf(keys, size + count);
+      values = Arrays.copyOf(values, size + count);
+    }
+  }
+
+  /**
+   * Returns the value of the first entry with the given key.
+   *
+   * @param key the key to look up.
+   * @return the first value associated with the key, or null if there is none.
+   */
+  @Override
+  public JsonNode get(String key) {
+    if (indexed()) {
+      List<JsonNode> values = index.get(key);
+      return values == null ? null : values.get(0);
+    }
+    int id = SYMBOLS.find(key);
+    for (int i = 0; i < size; i++) {
+      if (hasKey(i, id, key)) {
+        return values[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the values of all the entries with the given key, in insertion order.
+   *
+   * @param key the key to look up.
+   * @return an unmodifiable list of the values associated with the key.
+   */
+  @Override
+  public List<JsonNode> getAll(String key) {
+    if (indexed()) {
+      List<JsonNode> values = index.get(key);
+      return values == null ? Collections.emptyList() : Collections.unmodifiableList(values);
+    }
+    List<JsonNode> found = new ArrayList<>();
+    int id = SYMBOLS.find(key);
+    for (int i = 0; i < size; i++) {
+      if (hasKey(i, id, key)) {
+        found.add(values[i]);
+      }
+    }
+    return Collections.unmodifiableList(found);
+  }
+
+  /**
+   * Checks whether the JSON object has an entry with the given key.
+   *
+   * @param key the key to look up.
+   * @return true if at least one entry has the key, false otherwise.
+   */
+  @Override
+  public boolean containsKey(String key) {
+    if (indexed()) {
+      return index.containsKey(key);
+    }
+    int id = SYMBOLS.find(key);
+    for (int i = 0; i < size; i++) {
+      if (hasKey(i, id, key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the distinct keys of the JSON object, in the order they were first added.
+   *
+   * @return an unmodifiable set of the keys.
+   */
+  @Override
+  public Set<String> keys() {
+    if (indexed()) {
+      return Collections.unmodifiableSet(index.keySet());
+    }
+    Set<String> distinct = new LinkedHashSet<>();
+    for (int i = 0; i < size; i++) {
+      distinct.add(keyAt(i));
+    }
+    return Collections.unmodifiableSet(distinct);
+  }
+
+  /**
+   * Checks whether an entry has the given key.
+   *
+   * @param i the position of the entry.
+   * @param id the symbol id of the key, or -1 if the key is not in the symbol table.
+   * @param key the key.
+   * @return true if the entry has the key, false otherwise.
+   */
+  private boolean hasKey(int i, int id, String key) {
+    if (id >= 0) {
+      return keys[i] == id;
+    }
+    return keys[i] < 0 && spilledKeys.get(-1 - keys[i]).equals(key);
+  }
+
+  /**
+   * Builds the index when the object has outgrown a linear scan.
+   *
+   * @return true if lookups should use the index, false otherwise.
+   */
+  private boolean indexed() {
+    if (index == null && size > INDEX_THRESHOLD) {
+      index = new LinkedHashMap<>();
+      for (int i = 0; i < size; i++) {
+        index.computeIfAbsent(keyAt(i), k -> new ArrayList<>(1)).add(values[i]);
+      }
+    }
+    return index != null;
   }
 
   /**
@@ -45,10 +311,118 @@ public class JsonObject extends IJsonObject {
 
   /**
    * Returns the value of the JSON object, which is a list of key-value pairs.
+   * The list is a read-only view whose entries are created as they are read.
    *
    * @return a list of {@link Map.Entry} containing the key-value pairs.
    */
   protected Object valueObtain() {
-    return entries;
+    return new AbstractList<Map.Entry<String, JsonNode>>() {
+      @Override
+      public Map.Entry<String, JsonNode> get(int i) {
+        return new AbstractMap.SimpleImmutableEntry<>(keyAt(i), childAt(i));
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Returns the number of entries of the JSON object.
+   *
+   * @return the number of entries.
+   */
+  @Override
+  int childCount() {
+    return size;
+  }
+
+  /**
+   * Returns the key of an entry.
+   *
+   * @param i the position of the entry.
+   * @return the key.
+   */
+  @Override
+  String keyAt(int i) {
+    Objects.checkIndex(i, size);
+    return keys[i] >= 0 ? SYMBOLS.name(keys[i]) : spilledKeys.get(-1 - keys[i]);
+  }
+
+  /**
+   * Returns the symbol id of the key of an entry.
+   *
+   * @param i the position of the entry.
+   * @return the id in the shared symbol table, or -1 if the key is not in it.
+   */
+  @Override
+  int keyIdAt(int i) {
+    Objects.checkIndex(i, size);
+    return Math.max(keys[i], -1);
+  }
+
+  /**
+   * Returns the value of an entry.
+   *
+   * @param i the position of the entry.
+   * @return the value.
+   */
+  @Override
+  JsonNode childAt(int i) {
+    Objects.checkIndex(i, size);
+    return values[i];
+  }
+
+  /**
+   * Builds a JSON object whose number of entries is known in advance, so that its storage is
+   * allocated once.
+   */
+  public static final class Builder {
+
+    private JsonObject object;
+
+    /**
+     * Starts building an object.
+     *
+     * @param object the empty object to fill.
+     */
+    private Builder(JsonObject object) {
+      this.object = object;
+    }
+
+    /**
+     * Adds a key-value pair to the object being built.
+     *
+     * @param key the key, which must follow the naming convention of {@link #add}.
+     * @param value the value associated with the key.
+     * @return this builder.
+     * @throws IllegalArgumentException if the key does not follow the naming convention.
+     * @throws IllegalStateException if the object has already been built.
+     */
+    public Builder put(String key, JsonNode value) {
+      if (object == null) {
+        throw new IllegalStateException("object already built");
+      }
+      checkKey(key);
+      object.append(SYMBOLS.find(key), key, value);
+      return this;
+    }
+
+    /**
+     * Returns the object that has been built. The builder cannot be used afterwards.
+     *
+     * @return the object.
+     * @throws IllegalStateException if the object has already been built.
+     */
+    public JsonObject build() {
+      if (object == null) {
+        throw new IllegalStateException("object already built");
+      }
+      JsonObject built = object;
+      object = null;
+      return built;
+    }
   }
 }
@@ -0,0 +1,44 @@
+package jsontree;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The lookups of a JSON object, without the methods that change it. Every
+ * {@link IJsonObject} provides them, and so do the read-only objects of a {@link JsonTape},
+ * so that code which only reads an object can accept either.
+ */
+public interface JsonObjectView {
+
+  /**
+   * Returns the value of the first entry with the given key.
+   *
+   * @param key the key to look up.
+   * @return the first value associated with the key, or null if there is none.
+   */
+  JsonNode get(String key);
+
+  /**
+   * Returns the values of all the entries with the given key, in insertion order.
+   *
+   * @param key the key to look up.
+   * @return an unmodifiable list of the values associated with the key, which is empty if
+   *         there are none.
+   */
+  List<JsonNode> getAll(String key);
+
+  /**
+   * Checks whether the JSON object has an entry with the given key.
+   *
+   * @param key the key to look up.
+   * @return true if at least one entry has the key, false otherwise.
+   */
+  boolean containsKey(String key);
+
+  /**
+   * Returns the distinct keys of the JSON object, in the order they were first added.
+   *
+   * @return an unmodifiable set of the keys.
+   */
+  Set<String> keys();
+}
@@ -0,0 +1,253 @@
+package jsontree;
+
+import java.util.Arrays;
+
+/**
+ * A parsed JSON document stored as a flat tape of entries and a single pool of characters,
+ * instead of a graph of nodes. Each entry is a long whose highest byte is its type:
+ * <ul>
+ *   <li>an object or array is one entry holding its number of children and the position
+ *       just past its last descendant, followed by its children;</li>
+ *   <li>a string holds the position of its characters in the pool, which are preceded by
+ *       their length in two characters;</li>
+ *   <li>a key, which comes before the value of each entry of an object, holds its id in the
+ *       shared {@link KeySymbols} table, or the position of its characters in the pool when
+ *       the table is full.</li>
+ * </ul>
+ * A document then takes eight bytes per value and key plus two bytes per character of its
+ * strings, in two arrays. {@link #root()} returns a read-only view that navigates the tape
+ * and compares, hashes and prints like the tree the document was parsed into. Views are
+ * created as they are visited and are not kept by the tape.
+ */
+public final class JsonTape {
+
+  static final int OBJECT = 1;
+  static final int ARRAY = 2;
+  static final int STRING = 3;
+  static final int KEY = 4;
+  static final int POOLED_KEY = 5;
+  static final int TYPE_SHIFT = 56;
+  static final int COUNT_SHIFT = 32;
+  /** The largest number of children stored in a container entry, above which they are counted. */
+  static final int MAX_COUNT = 0xFFFFFF;
+
+  private static final KeySymbols SYMBOLS = KeySymbols.shared();
+
+  private final long[] tape;
+  private final char[] pool;
+
+  /**
+   * Wraps a complete tape.
+   *
+   * @param tape the entries.
+   * @param pool the characters of the strings and the keys that are not symbols.
+   */
+  JsonTape(long[] tape, char[] pool) {
+    this.tape = tape;
+    this.pool = pool;
+  }
+
+  /**
+   * Copies a tree into a tape.
+   *
+   * @param root the root of the tree.
+   * @return the tape.
+   * @throws IllegalArgumentException if the tree holds null values, which a tape cannot.
+   */
+  public static JsonTape of(JsonNode root) {
+    TapeWriter writer = new TapeWriter();
+    JsonNode[] nodes = new JsonNode[16];
+    int[] next = new int[16];
+    int depth = 0;
+    JsonNode node = root;
+    while (true) {
+      if (node == null) {
+        throw new IllegalArgumentException("null values cannot be stored on a tape");
+      } else if (node.typeObtain() == JsonNode.typeOfNode.STRING) {
+        String value = (String) node.valueObtain();
+        writer.endString(writer.pooled(value));
+      } else {
+        writer.beginContainer(node.typeObtain() == JsonNode.typeOfNode.OBJECT);
+        if (depth == nodes.length) {
+          nodes = Arrays.copyOf(nodes, depth * 2);
+          next = Arrays.copyOf(next, depth * 2);
+        }
+        nodes[depth] = node;
+        next[depth++] = 0;
+      }
+      node = null;
+      while (node == null && depth > 0) {
+        JsonNode container = nodes[depth - 1];
+        int i = next[depth - 1]++;
+        if (i < container.childCount()) {
+          if (container.typeObtain() == JsonNode.typeOfNode.OBJECT) {
+            writer.key(container.keyAt(i));
+          }
+          node = container.childAt(i);
+          if (node == null) {
+            throw new IllegalArgumentException("null values cannot be stored on a tape");
+          }
+        } else {
+          writer.endContainer();
+          nodes[--depth] = null;
+        }
+      }
+      if (depth == 0 && node == null) {
+        return writer.finish();
+      }
+    }
+  }
+
+  /**
+   * Returns a view of the root of the document.
+   *
+   * @return the root node.
+   */
+  public JsonNode root() {
+    return node(0);
+  }
+
+  /**
+   * Returns the number of entries of the tape.
+   *
+   * @return the number of longs in the tape.
+   */
+  public int tapeLength() {
+    return tape.length;
+  }
+
+  /**
+   * Returns the number of characters of the pool.
+   *
+   * @return the number of chars in the pool.
+   */
+  public int poolLength() {
+    return pool.length;
+  }
+
+  /**
+   * Returns the type of an entry.
+   *
+   * @param entry the entry.
+   * @return its type.
+   */
+  static int type(long entry) {
+    return (int) (entry >>> TYPE_SHIFT);
+  }
+
+  /**
+   * Returns a view of the value at a position.
+   *
+   * @param index the position of the value.
+   * @return the view.
+   */
+  JsonNode node(int index) {
+    switch (type(tape[index])) {
+      case OBJECT:
+        return new TapeObject(this, index);
+      case ARRAY:
+        return new TapeArray(this, index);
+      default:
+        return new TapeString(this, index);
+    }
+  }
+
+  /**
+   * Returns the position just past a value.
+   *
+   * @param index the position of the value.
+   * @return the position of what follows it.
+   */
+  int skip(int index) {
+    int type = type(tape[index]);
+    return type == OBJECT || type == ARRAY ? (int) tape[index] : index + 1;
+  }
+
+  /**
+   * Returns the number of children of a container.
+   *
+   * @param index the position of the container.
+   * @return the number of entries or elements.
+   */
+  int childCount(int index) {
+    int count = (int) (tape[index] >>> COUNT_SHIFT) & MAX_COUNT;
+    if (count < MAX_COUNT) {
+      return count;
+    }
+    boolean object = type(tape[index]) == OBJECT;
+    int end = skip(index);
+    count = 0;
+    for (int i = index + 1; i < end; i = skip(object ? i + 1 : i)) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Returns the content of a string value.
+   *
+   * @param index the position of the string.
+   * @return the string.
+   */
+  String string(int index) {
+    return pooled((int) tape[index]);
+  }
+
+  /**
+   * Returns a key.
+   *
+   * @param index the position of the key.
+   * @return the key.
+   */
+  String key(int index) {
+    long entry = tape[index];
+    return type(entry) == KEY ? SYMBOLS.name((int) entry) : pooled((int) entry);
+  }
+
+  /**
+   * Returns the symbol id of a key.
+   *
+   * @param index the position of the key.
+   * @return the id of the key in the shared table, or -1 if it is in the pool.
+   */
+  int keyId(int index) {
+    long entry = tape[index];
+    return type(entry) == KEY ? (int) entry : -1;
+  }
+
+  /**
+   * Checks whether a key is equal to a string.
+   *
+   * @param index the position of the key.
+   * @param id the id of the string in the shared table, or -1 if it is not in it.
+   * @param key the string.
+   * @return true if they are equal.
+   */
+  boolean keyEquals(int index, int id, String key) {
+    long entry = tape[index];
+    if (type(entry) == KEY) {
+      return (int) entry == id;
+    }
+    int start = (int) entry;
+    int length = pool[start] << 16 | pool[start + 1];
+    if (id >= 0 || length != key.length()) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      if (pool[start + 2 + i] != key.charAt(i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns a string of the pool.
+   *
+   * @param start the position of its length.
+   * @return the string.
+   */
+  private String pooled(int start) {
+    return new String(pool, start + 2, pool[start] << 16 | pool[start + 1]);
+  }
+}
@@ -2,38 +2,156 @@ package jsontree;
 
 import parser.InvalidJsonException;
 import parser.JsonParser;
-import validator.JsonValidator;
-import java.util.Stack;
+import parser.ParserSnapshot;
+import parser.SnapshotParser;
+import validator.BracketStack;
+import validator.JsonGrammar;
+import validator.ValidatorStatus;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 /**
  * JsonTreeBuilder parses a JSON string character-by-character and constructs a JSON tree.
  * This builder handles various JSON elements such as objects, arrays, and strings.
+ * Validation and construction share the state machine of {@link JsonGrammar}, so every
+ * character is dispatched once and the same input is rejected with the same messages as
+ * {@link validator.JsonValidator}. The brackets are matched by a {@link BracketStack}, next
+ * to the stack of open containers that hold the entries.
+ * Keys are matched against the shared {@link KeySymbols} table while still in the buffer,
+ * so a key seen before is not copied into a new string.
+ *
+ * <p>The entries of an open container are kept in a persistent list of fixed-size parts,
+ * and the container is only created once it is closed. A {@link #snapshot()} therefore
+ * shares every open container with the builder: whichever of them adds to a shared
+ * container first copies its last part, and the parts before it stay shared.
+ *
+ * <p>In multi-document mode, the input is a sequence of objects separated by whitespace,
+ * such as newline-delimited JSON, and each tree is handed over as soon as it is complete.
  */
-public class JsonTreeBuilder implements JsonParser<JsonNode> {
+public class JsonTreeBuilder implements SnapshotParser<JsonNode> {
 
-  private final JsonValidator validator;
-  private final Stack<JsonNode> stack;
+  private static final KeySymbols SYMBOLS = KeySymbols.shared();
+
+  /** The largest number of entries of a part of an open container. */
+  private static final int PART_SIZE = 64;
+
+  private int state;
+  private final BracketStack brackets;
+  private Open open;
+  private Object owner;
   private JsonNode root;
   private String currentKey;
-  private boolean parsingString;
+  private int currentKeyId;
+  private char keyChars;
   private final StringBuilder currentValue;
+  private final Consumer<JsonNode> documents;
 
   /**
-   * Initializes the JsonTreeBuilder with a JsonValidator.
+   * Initializes the JsonTreeBuilder, waiting for the opening curly brace.
    * This constructor prepares the necessary state for JSON parsing.
    */
   public JsonTreeBuilder() {
-    this.validator = new JsonValidator();
-    this.stack = new Stack<>();
+    this(null, new BracketStack());
+  }
+
+  /**
+   * Initializes a builder in multi-document mode. As soon as the closing brace of an object
+   * is read, its tree is given to the consumer and the builder returns to its initial state
+   * in place, keeping its string buffer, ready for the next object. An exception thrown by
+   * the consumer is passed on to the caller of {@code input}.
+   *
+   * @param documents the consumer of the tree of each complete object.
+   */
+  public JsonTreeBuilder(Consumer<JsonNode> documents) {
+    this(Objects.requireNonNull(documents), new BracketStack());
+  }
+
+  /**
+   * Initializes a builder waiting for the opening curly brace.
+   *
+   * @param documents the consumer of each complete tree, or null outside of multi-document
+   *                  mode.
+   * @param brackets the empty bracket stack.
+   */
+  private JsonTreeBuilder(Consumer<JsonNode> documents, BracketStack brackets) {
+    this.documents = documents;
+    this.state = JsonGrammar.START;
+    this.brackets = brackets;
+    this.open = null;
+    this.owner = new Object();
     this.currentValue = new StringBuilder();
     this.root = null;
     this.currentKey = null;
-    this.parsingString = false;
+    this.currentKeyId = -1;
+    this.keyChars = 0;
+  }
+
+  /**
+   * Initializes a builder in the state captured by a snapshot.
+   *
+   * @param snapshot the snapshot.
+   */
+  private JsonTreeBuilder(Snapshot snapshot) {
+    this.documents = snapshot.documents;
+    this.state = snapshot.state;
+    this.brackets = snapshot.brackets.share();
+    this.open = snapshot.open;
+    this.owner = new Object();
+    this.currentValue = new StringBuilder(snapshot.value);
+    this.root = snapshot.root;
+    this.currentKey = snapshot.currentKey;
+    this.currentKeyId = snapshot.currentKeyId;
+    this.keyChars = snapshot.keyChars;
+  }
+
+  /**
+   * Returns the builder to its initial state, keeping its string buffer. The trees it has
+   * already built and its snapshots are not affected.
+   */
+  @Override
+  public void reset() {
+    state = JsonGrammar.START;
+    brackets.reset();
+    open = null;
+    root = null;
+    currentKey = null;
+    currentKeyId = -1;
+    keyChars = 0;
+    currentValue.setLength(0);
+  }
+
+  /**
+   * Builds the single object, array or string that a range of input holds, which does not
+   * have to be the root of a document. The builder is reset first.
+   *
+   * @param buf the buffer holding the input.
+   * @param off the index of the first character of the value.
+   * @param len the number of characters of the value.
+   * @return the value, or null if the range does not hold a complete value.
+   * @throws InvalidJsonException if the input is invalid.
+   */
+  JsonNode buildValue(char[] buf, int off, int len) throws InvalidJsonException {
+    reset();
+    state = JsonGrammar.VALUE;
+    input(buf, off, len);
+    return output();
+  }
+
+  /**
+   * Checks whether anything but whitespace has been read since the builder was created or
+   * reset, or in multi-document mode since the last complete document.
+   *
+   * @return true if a document has been started.
+   */
+  boolean started() {
+    return state != JsonGrammar.START;
   }
 
   /**
    * Processes a single character of JSON input and builds the tree.
    * Validates the character and handles different types of JSON data (string, object, array).
+   * Nothing is done once the input has been found invalid.
    *
    * @param c the character to process.
    * @return the JsonTreeBuilder instance for method chaining.
@@ -41,91 +159,226 @@ public class JsonTreeBuilder implements JsonParser<JsonNode> {
    */
   @Override
   public JsonParser<JsonNode> input(char c) throws InvalidJsonException {
-    validator.input(c);
-    if (Character.isWhitespace(c) && !parsingString) {
-      return this;
+    if (!brackets.invalid()) {
+      state = step(state, c);
     }
+    return this;
+  }
 
-    if (parsingString) {
-      if (c == '"') {
-        parsingString = false;
-        String str = currentValue.toString();
-        if (!stack.isEmpty()) {
-          if (stack.peek() instanceof JsonArray) {
-            ((JsonArray) stack.peek()).add(new JsonString(str));
-          } else if (stack.peek() instanceof JsonObject) {
-            if (currentKey == null) {
-              currentKey = str;
-            } else {
-              ((JsonObject) stack.peek()).add(currentKey, new JsonString(str));
-              currentKey = null;
-            }
+  /**
+   * Processes a range of JSON input characters and builds the tree.
+   * Runs of string characters are copied at once instead of one at a time.
+   *
+   * @param buf the buffer holding the characters to process.
+   * @param off the index of the first character to process.
+   * @param len the number of characters to process.
+   * @return the JsonTreeBuilder instance for method chaining.
+   * @throws InvalidJsonException if the input is invalid.
+   */
+  @Override
+  public JsonParser<JsonNode> input(char[] buf, int off, int len) throws InvalidJsonException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (brackets.invalid()) {
+      return this;
+    }
+    int end = off + len;
+    int current = state;
+    try {
+      for (int i = off; i < end; i++) {
+        if (current == JsonGrammar.STRING) {
+          int start = i;
+          while (i < end && buf[i] != '"') {
+            i++;
+          }
+          currentValue.append(buf, start, i - start);
+          if (i == end) {
+            break;
           }
-        } else {
-          root = new JsonString(str);
         }
+        current = step(current, buf[i]);
+      }
+    } finally {
+      state = current;
+    }
+    return this;
+  }
+
+  /**
+   * Moves to the next state for a single character and updates the tree accordingly.
+   *
+   * @param current the current state.
+   * @param c the character to process.
+   * @return the next state.
+   * @throws InvalidJsonException if the input is invalid.
+   */
+  private int step(int current, char c) throws InvalidJsonException {
+    int entry = JsonGrammar.transition(current, JsonGrammar.classOf(c));
+    int next = JsonGrammar.nextState(entry);
+    switch (JsonGrammar.action(entry)) {
+      case JsonGrammar.NONE:
+        if (next == JsonGrammar.STRING) {
+          currentValue.append(c);
+        } else if (next == JsonGrammar.KEY) {
+          currentValue.append(c);
+          keyChars |= c;
+        }
+        break;
+      case JsonGrammar.BEGIN_KEY:
+        keyChars = 0;
         currentValue.setLength(0);
+        break;
+      case JsonGrammar.BEGIN_STRING:
+        currentValue.setLength(0);
+        break;
+      case JsonGrammar.END_KEY:
+      case JsonGrammar.END_STRING:
+        addString();
+        currentValue.setLength(0);
+        break;
+      case JsonGrammar.PUSH_OBJECT:
+        addNewContainer(true);
+        break;
+      case JsonGrammar.PUSH_ARRAY:
+        addNewContainer(false);
+        break;
+      case JsonGrammar.POP_OBJECT:
+        brackets.pop(true);
+        closeContainer();
+        if (open == null && documents != null) {
+          JsonNode document = root;
+          root = null;
+          documents.accept(document);
+          return JsonGrammar.START;
+        }
+        break;
+      case JsonGrammar.POP_ARRAY:
+        brackets.pop(false);
+        closeContainer();
+        break;
+      case JsonGrammar.SEPARATOR:
+        return brackets.separate();
+      default:
+        throw brackets.fail(JsonGrammar.message(entry));
+    }
+    return next;
+  }
+
+  /**
+   * Handles the complete string in the buffer, which is either a key waiting for its value
+   * or a value.
+   */
+  private void addString() {
+    if (open != null) {
+      if (!open.object) {
+        append(new JsonString(currentValue.toString()), -1, null);
+      } else if (currentKey == null) {
+        // Only keys read by the grammar reach this point, so they are made of letters and
+        // digits, and are valid unless some of them are not ASCII.
+        currentKeyId = keyChars < 0x80 ? SYMBOLS.intern(currentValue) : -1;
+        currentKey = currentKeyId >= 0 ? SYMBOLS.name(currentKeyId) : currentValue.toString();
       } else {
-        currentValue.append(c);
+        addToObject(new JsonString(currentValue.toString()));
       }
     } else {
-      switch (c) {
-        case '{':
-          addNewContainer(new JsonObject());
-          break;
-        case '}':
-          if (stack.isEmpty() || !(stack.peek() instanceof JsonObject)) {
-            throw new InvalidJsonException("Mismatched closing brace");
-          }
-          stack.pop();
-          break;
-        case '[':
-          addNewContainer(new JsonArray());
-          break;
-        case ']':
-          if (stack.isEmpty() || !(stack.peek() instanceof JsonArray)) {
-            throw new InvalidJsonException("Mismatched closing bracket");
-          }
-          stack.pop();
-          break;
-        case ':':
-          // Colon separates key and value; no action needed.
-          break;
-        case ',':
-          // Comma separates elements; no action needed.
-          break;
-        case '"':
-          parsingString = true;
-          currentValue.setLength(0);
-          break;
-        default:
-          throw new InvalidJsonException("Unexpected character: " + c);
-      }
+      root = new JsonString(currentValue.toString());
     }
-    return this;
   }
 
   /**
-   * Helper method to add a new container (object or array) to the tree.
-   * If a parent container exists, it adds the new container appropriately;
-   * otherwise, it sets the new container as the root.
-   * Finally, the new container is pushed onto the stack.
+   * Adds a value to the innermost open object under the current key. Keys the grammar has
+   * accepted skip the validation of {@link JsonObject#add}, unless they are not ASCII.
    *
-   * @param container the new container (JsonObject or JsonArray)
-   */
-  private void addNewContainer(JsonNode container) {
-    if (!stack.isEmpty()) {
-      JsonNode top = stack.peek();
-      if (top instanceof JsonObject && currentKey != null) {
-        ((JsonObject) top).add(currentKey, container);
-        currentKey = null;
-      } else if (top instanceof JsonArray) {
-        ((JsonArray) top).add(container);
+   * @param value the value.
+   */
+  private void addToObject(JsonNode value) {
+    if (keyChars >= 0x80) {
+      JsonObject.checkKey(currentKey);
+    }
+    append(value, currentKeyId, currentKey);
+    currentKey = null;
+  }
+
+  /**
+   * Opens a new container (object or array). It is added to the innermost open container,
+   * or becomes the root, once it is closed; the key it is added under is taken now.
+   *
+   * @param object true for an object, false for an array.
+   */
+  private void addNewContainer(boolean object) {
+    String key = null;
+    int keyId = -1;
+    if (open != null && open.object && currentKey != null) {
+      if (keyChars >= 0x80) {
+        JsonObject.checkKey(currentKey);
       }
-    } else {
+      key = currentKey;
+      keyId = currentKeyId;
+      currentKey = null;
+    }
+    brackets.push(object);
+    open = new Open(open, owner, object, keyId, key);
+  }
+
+  /**
+   * Closes the innermost open container, and adds it to the container holding it or makes
+   * it the root.
+   */
+  private void closeContainer() {
+    Open closed = open;
+    open = closed.parent;
+    JsonNode container = closed.build();
+    if (open == null) {
       root = container;
+    } else if (!open.object) {
+      append(container, -1, null);
+    } else if (closed.key != null) {
+      append(container, closed.keyId, closed.key);
+    }
+  }
+
+  /**
+   * Appends an entry to the innermost open container, which is copied first if it is
+   * shared with a snapshot.
+   *
+   * @param value the value.
+   * @param keyId the id of the key in the shared symbol table, or -1 for an array.
+   * @param key the key, or null for an array.
+   */
+  private void append(JsonNode value, int keyId, String key) {
+    Open top = open;
+    if (top.owner != owner) {
+      top = top.copy(owner);
+      open = top;
+    }
+    Part part = top.tail;
+    if (part == null) {
+      part = new Part(null, 4, top.object);
+      top.tail = part;
+    } else if (part.count == PART_SIZE) {
+      part = new Part(part, PART_SIZE, top.object);
+      top.tail = part;
+    } else if (part.count == part.values.length) {
+      part.grow();
     }
-    stack.push(container);
+    part.values[part.count] = value;
+    if (top.object) {
+      part.keyIds[part.count] = keyId;
+      part.keys[part.count] = key;
+    }
+    part.count++;
+    top.size++;
+  }
+
+  /**
+   * Captures the state of the builder. The open containers are shared with the snapshot,
+   * and only the characters of an unfinished string or key are copied.
+   *
+   * @return the snapshot.
+   */
+  @Override
+  public ParserSnapshot<JsonNode> snapshot() {
+    owner = new Object();
+    return new Snapshot(this);
   }
 
   /**
@@ -135,6 +388,181 @@ public class JsonTreeBuilder implements JsonParser<JsonNode> {
    */
   @Override
   public JsonNode output() {
-    return validator.output().equals("Status:Valid") ? root : null;
+    return brackets.status(state) == ValidatorStatus.VALID ? root : null;
+  }
+
+  /**
+   * The state of a builder, from which builders are forked.
+   */
+  private static final class Snapshot implements ParserSnapshot<JsonNode> {
+
+    private final Consumer<JsonNode> documents;
+    private final int state;
+    private final BracketStack brackets;
+    private final Open open;
+    private final JsonNode root;
+    private final String currentKey;
+    private final int currentKeyId;
+    private final char keyChars;
+    private final String value;
+
+    /**
+     * Captures the state of a builder, which no longer owns its open containers.
+     *
+     * @param builder the builder.
+     */
+    Snapshot(JsonTreeBuilder builder) {
+      this.documents = builder.documents;
+      this.state = builder.state;
+      this.brackets = builder.brackets.share();
+      this.open = builder.open;
+      this.root = builder.root;
+      this.currentKey = builder.currentKey;
+      this.currentKeyId = builder.currentKeyId;
+      this.keyChars = builder.keyChars;
+      this.value = builder.currentValue.toString();
+    }
+
+    /**
+     * Creates a builder in the captured state.
+     *
+     * @return the builder.
+     */
+    @Override
+    public SnapshotParser<JsonNode> fork() {
+      return new JsonTreeBuilder(this);
+    }
+  }
+
+  /**
+   * An open container: its kind, the key it is added under, and its entries so far. It is
+   * only changed by the builder that owns it, and the others copy it first.
+   */
+  private static final class Open {
+
+    final Open parent;
+    final Object owner;
+    final boolean object;
+    final int keyId;
+    final String key;
+    Part tail;
+    int size;
+
+    /**
+     * Creates an empty container.
+     *
+     * @param parent the container holding it, or null for the root.
+     * @param owner the builder that may change it.
+     * @param object true for an object, false for an array.
+     * @param keyId the id of the key it is added under.
+     * @param key the key it is added under, or null if it is not added to an object.
+     */
+    Open(Open parent, Object owner, boolean object, int keyId, String key) {
+      this.parent = parent;
+      this.owner = owner;
+      this.object = object;
+      this.keyId = keyId;
+      this.key = key;
+    }
+
+    /**
+     * Copies the container for another owner. Only its last part is copied.
+     *
+     * @param newOwner the builder that may change the copy.
+     * @return the copy.
+     */
+    Open copy(Object newOwner) {
+      Open copy = new Open(parent, newOwner, object, keyId, key);
+      copy.tail = tail == null ? null : tail.copy();
+      copy.size = size;
+      return copy;
+    }
+
+    /**
+     * Creates the object or array holding the entries.
+     *
+     * @return the container.
+     */
+    JsonNode build() {
+      Part[] parts = new Part[tail == null ? 0 : 1 + (size - tail.count) / PART_SIZE];
+      Part part = tail;
+      for (int i = parts.length - 1; i >= 0; i--) {
+        parts[i] = part;
+        part = part.previous;
+      }
+      if (object) {
+        JsonObject container = new JsonObject(size);
+        for (Part each : parts) {
+          for (int i = 0; i < each.count; i++) {
+            container.addTrusted(each.keyIds[i], each.keys[i], each.values[i]);
+          }
+        }
+        return container;
+      }
+      JsonArray.Builder container = JsonArray.builder(size);
+      for (Part each : parts) {
+        for (int i = 0; i < each.count; i++) {
+          container.add(each.values[i]);
+        }
+      }
+      return container.build();
+    }
+  }
+
+  /**
+   * Consecutive entries of an open container. Every part but the last one holds
+   * {@link #PART_SIZE} entries and is never changed.
+   */
+  private static final class Part {
+
+    final Part previous;
+    JsonNode[] values;
+    int[] keyIds;
+    String[] keys;
+    int count;
+
+    /**
+     * Creates an empty part.
+     *
+     * @param previous the part holding the entries before it, or null.
+     * @param capacity the initial number of entries it has room for.
+     * @param object true to hold keys as well.
+     */
+    Part(Part previous, int capacity, boolean object) {
+      this.previous = previous;
+      this.values = new JsonNode[capacity];
+      if (object) {
+        this.keyIds = new int[capacity];
+        this.keys = new String[capacity];
+      }
+    }
+
+    /**
+     * Doubles the room for entries, up to {@link #PART_SIZE}.
+     */
+    void grow() {
+      int capacity = Math.min(values.length * 2, PART_SIZE);
+      values = Arrays.copyOf(values, capacity);
+      if (keyIds != null) {
+        keyIds = Arrays.copyOf(keyIds, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+      }
+    }
+
+    /**
+     * Copies the part, sharing the parts before it.
+     *
+     * @return the copy.
+     */
+    Part copy() {
+      Part copy = new Part(previous, values.length, keyIds != null);
+      System.arraycopy(values, 0, copy.values, 0, count);
+      if (keyIds != null) {
+        System.arraycopy(keyIds, 0, copy.keyIds, 0, count);
+        System.arraycopy(keys, 0, copy.keys, 0, count);
+      }
+      copy.count = count;
+      return copy;
+    }
   }
 }
@@ -0,0 +1,290 @@
+package jsontree;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A thread-safe table that gives every distinct key a small integer id, so that a key that
+ * appears in many objects is stored as a single string. Keys can be looked up straight
+ * from the characters being parsed, without allocating a string for keys already in the
+ * table. Lookups never lock: symbols are published through an open-addressing table of
+ * atomic slots, and only additions take a lock. Once the table holds its maximum number of
+ * symbols, new keys are no longer added and the caller keeps them as plain strings, and so
+ * are keys longer than {@link #MAX_KEY_LENGTH}. The shared table never forgets a symbol, so
+ * only keys read by the parsers are added to it: a key given to {@link JsonObject#add} is
+ * only looked up, and at most {@code SHARED_MAX_SYMBOLS * MAX_KEY_LENGTH} characters are
+ * ever held.
+ */
+public final class KeySymbols {
+
+  /** The maximum number of symbols of the shared table. */
+  public static final int SHARED_MAX_SYMBOLS = 1 << 16;
+
+  /** The length above which keys are kept as plain strings instead of being added. */
+  public static final int MAX_KEY_LENGTH = 64;
+
+  private static final KeySymbols SHARED = new KeySymbols(SHARED_MAX_SYMBOLS);
+
+  private final int maxSymbols;
+  private final Object lock = new Object();
+  private volatile AtomicReferenceArray<Symbol> slots;
+  private volatile Symbol[] byId;
+  private volatile int size;
+
+  /**
+   * Constructs an empty table.
+   *
+   * @param maxSymbols the maximum number of symbols the table holds.
+   * @throws IllegalArgumentException if the maximum is not positive.
+   */
+  public KeySymbols(int maxSymbols) {
+    if (maxSymbols <= 0) {
+      throw new IllegalArgumentException("invalid maximum number of symbols: " + maxSymbols);
+    }
+    this.maxSymbols = maxSymbols;
+    this.slots = new AtomicReferenceArray<>(64);
+    this.byId = new Symbol[16];
+    this.size = 0;
+  }
+
+  /**
+   * Returns the table shared by all JSON objects.
+   *
+   * @return the shared table.
+   */
+  public static KeySymbols shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns the id of a key, adding it to the table if needed.
+   *
+   * @param key the key.
+   * @return the id of the key, or -1 if the table is full and does not hold it or the key
+   *         is too long.
+   */
+  public int intern(String key) {
+    if (key.length() > MAX_KEY_LENGTH) {
+      return -1;
+    }
+    int id = lookup(key, key.hashCode());
+    return id >= 0 ? id : add(key, key.hashCode());
+  }
+
+  /**
+   * Returns the id of the key made of the given characters, adding it to the table if
+   * needed. No string is created when the key is already in the table.
+   *
+   * @param chars the characters of the key.
+   * @return the id of the key, or -1 if the table is full and does not hold it or the key
+   *         is too long.
+   */
+  public int intern(CharSequence chars) {
+    if (chars.length() > MAX_KEY_LENGTH) {
+      return -1;
+    }
+    int hash = hash(chars);
+    int id = lookup(chars, hash);
+    return id >= 0 ? id : add(chars.toString(), hash);
+  }
+
+  /**
+   * Returns the id of the key made of a range of characters, adding it to the table if
+   * needed. No string is created when the key is already in the table.
+   *
+   * @param buf the buffer holding the characters of the key.
+   * @param off the index of the first character of the key.
+   * @param len the number of characters of the key.
+   * @return the id of the key, or -1 if the table is full and does not hold it or the key
+   *         is too long.
+   */
+  public int intern(char[] buf, int off, int len) {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (len > MAX_KEY_LENGTH) {
+      return -1;
+    }
+    int hash = 0;
+    for (int i = off; i < off + len; i++) {
+      hash = 31 * hash + buf[i];
+    }
+    int id = lookup(CharBuffer.wrap(buf, off, len), hash);
+    return id >= 0 ? id : add(new String(buf, off, len), hash);
+  }
+
+  /**
+   * Returns the id of a key without adding it to the table.
+   *
+   * @param key the key.
+   * @return the id of the key, or -1 if the table does not hold it.
+   */
+  public int find(String key) {
+    if (key.length() > MAX_KEY_LENGTH) {
+      return -1;
+    }
+    return lookup(key, key.hashCode());
+  }
+
+  /**
+   * Returns the key of an id.
+   *
+   * @param id an id returned by this table.
+   * @return the key.
+   * @throws IndexOutOfBoundsException if the id is not in the table.
+   */
+  public String name(int id) {
+    if (id < 0 || id >= size) {
+      throw new IndexOutOfBoundsException("unknown symbol " + id);
+    }
+    return byId[id].name;
+  }
+
+  /**
+   * Returns the number of symbols in the table.
+   *
+   * @return the number of symbols.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Computes the same hash as {@link String#hashCode()} for a sequence of characters.
+   *
+   * @param chars the characters.
+   * @return the hash.
+   */
+  private static int hash(CharSequence chars) {
+    int h = 0;
+    for (int i = 0; i < chars.length(); i++) {
+      h = 31 * h + chars.charAt(i);
+    }
+    return h;
+  }
+
+  /**
+   * Looks a key up without locking.
+   *
+   * @param chars the characters of the key.
+   * @param hash the hash of the key.
+   * @return the id of the key, or -1 if the table does not hold it.
+   */
+  private int lookup(CharSequence chars, int hash) {
+    AtomicReferenceArray<Symbol> table = slots;
+    int mask = table.length() - 1;
+    for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+      Symbol symbol = table.get(i);
+      if (symbol == null) {
+        return -1;
+      } else if (symbol.hash == hash && symbol.matches(chars)) {
+        return symbol.id;
+      }
+    }
+  }
+
+  /**
+   * Adds a key under the lock, unless another thread has added it meanwhile.
+   *
+   * @param key the key.
+   * @param hash the hash of the key.
+   * @return the id of the key, or -1 if the table is full.
+   */
+  private int add(String key, int hash) {
+    synchronized (lock) {
+      int id = lookup(key, hash);
+      if (id >= 0 || size == maxSymbols) {
+        return id;
+      }
+      AtomicReferenceArray<Symbol> table = slots;
+      if (2 * (size + 1) > table.length()) {
+        AtomicReferenceArray<Symbol> grown = new AtomicReferenceArray<>(table.length() * 2);
+        for (int i = 0; i < size; i++) {
+          insert(grown, byId[i]);
+        }
+        slots = grown;
+        table = grown;
+      }
+      Symbol symbol = new Symbol(key, hash, size);
+      Symbol[] ids = byId;
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size] = symbol;
+      byId = ids;
+      size = symbol.id + 1;
+      insert(table, symbol);
+      return symbol.id;
+    }
+  }
+
+  /**
+   * Stores a symbol in the first free slot of its probe sequence.
+   *
+   * @param table the table.
+   * @param symbol the symbol.
+   */
+  private static void insert(AtomicReferenceArray<Symbol> table, Symbol symbol) {
+    int mask = table.length() - 1;
+    int i = spread(symbol.hash) & mask;
+    while (table.get(i) != null) {
+      i = (i + 1) & mask;
+    }
+    table.set(i, symbol);
+  }
+
+  /**
+   * Mixes the high bits of a hash into the low ones used to pick a slot.
+   *
+   * @param hash the hash.
+   * @return the mixed hash.
+   */
+  private static int spread(int hash) {
+    return hash ^ hash >>> 16;
+  }
+
+  /**
+   * A key with its hash and id.
+   */
+  private static final class Symbol {
+
+    private final String name;
+    private final int hash;
+    private final int id;
+
+    /**
+     * Constructs a symbol.
+     *
+     * @param name the key.
+     * @param hash the hash of the key.
+     * @param id the id of the key.
+     */
+    Symbol(String name, int hash, int id) {
+      this.name = name;
+      this.hash = hash;
+      this.id = id;
+    }
+
+    /**
+     * Checks whether the given characters are this key.
+     *
+     * @param chars the characters.
+     * @return true if they are the characters of this key.
+     */
+    boolean matches(CharSequence chars) {
+      if (chars == name) {
+        return true;
+      }
+      int length = name.length();
+      if (chars.length() != length) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (chars.charAt(i) != name.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
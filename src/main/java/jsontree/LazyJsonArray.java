@@ -0,0 +1,82 @@
+package jsontree;
+
+import java.util.Collection;
+
+/**
+ * A JSON array read by a {@link LazyTreeBuilder}, whose elements are created from the
+ * retained input the first time any of them is needed. It then behaves like any other
+ * {@link JsonArray}. Like the rest of the tree, it is not safe to read from several threads
+ * at once until it has been filled.
+ */
+final class LazyJsonArray extends JsonArray {
+
+  private LazySource source;
+  private final int container;
+
+  /**
+   * Constructs a view of an array of the input.
+   *
+   * @param source the retained input.
+   * @param container the number of the array in the input.
+   */
+  LazyJsonArray(LazySource source, int container) {
+    this.source = source;
+    this.container = container;
+  }
+
+  /**
+   * Creates the elements of the array, unless this has already been done.
+   */
+  private void materialize() {
+    if (source != null) {
+      LazySource filling = source;
+      source = null;
+      filling.fill(container, this);
+    }
+  }
+
+  /**
+   * {@inheritDoc} The elements are created from the input first.
+   */
+  @Override
+  public void add(JsonNode value) {
+    materialize();
+    super.add(value);
+  }
+
+  /**
+   * {@inheritDoc} The elements are created from the input first.
+   */
+  @Override
+  public void addAll(Collection<? extends JsonNode> elements) {
+    materialize();
+    super.addAll(elements);
+  }
+
+  /**
+   * {@inheritDoc} The elements are created from the input first.
+   */
+  @Override
+  protected Object valueObtain() {
+    materialize();
+    return super.valueObtain();
+  }
+
+  /**
+   * {@inheritDoc} The elements are created from the input first.
+   */
+  @Override
+  int childCount() {
+    materialize();
+    return super.childCount();
+  }
+
+  /**
+   * {@inheritDoc} The elements are created from the input first.
+   */
+  @Override
+  JsonNode childAt(int i) {
+    materialize();
+    return super.childAt(i);
+  }
+}
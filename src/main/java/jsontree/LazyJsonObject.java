@@ -0,0 +1,147 @@
+package jsontree;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A JSON object read by a {@link LazyTreeBuilder}, whose entries are created from the
+ * retained input the first time any of them is needed. It then behaves like any other
+ * {@link JsonObject}. Like the rest of the tree, it is not safe to read from several threads
+ * at once until it has been filled.
+ */
+final class LazyJsonObject extends JsonObject {
+
+  private LazySource source;
+  private final int container;
+
+  /**
+   * Constructs a view of an object of the input.
+   *
+   * @param source the retained input.
+   * @param container the number of the object in the input.
+   */
+  LazyJsonObject(LazySource source, int container) {
+    this.source = source;
+    this.container = container;
+  }
+
+  /**
+   * Creates the entries of the object, unless this has already been done.
+   */
+  private void materialize() {
+    if (source != null) {
+      LazySource filling = source;
+      source = null;
+      filling.fill(container, this);
+    }
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  public void add(String key, JsonNode value) {
+    materialize();
+    super.add(key, value);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  public void addAll(Map<String, ? extends JsonNode> pairs) {
+    materialize();
+    super.addAll(pairs);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  void addTrusted(int id, String key, JsonNode value) {
+    materialize();
+    super.addTrusted(id, key, value);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  public JsonNode get(String key) {
+    materialize();
+    return super.get(key);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  public List<JsonNode> getAll(String key) {
+    materialize();
+    return super.getAll(key);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  public boolean containsKey(String key) {
+    materialize();
+    return super.containsKey(key);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  public Set<String> keys() {
+    materialize();
+    return super.keys();
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  protected Object valueObtain() {
+    materialize();
+    return super.valueObtain();
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  int childCount() {
+    materialize();
+    return super.childCount();
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  String keyAt(int i) {
+    materialize();
+    return super.keyAt(i);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  int keyIdAt(int i) {
+    materialize();
+    return super.keyIdAt(i);
+  }
+
+  /**
+   * {@inheritDoc} The entries are created from the input first.
+   */
+  @Override
+  JsonNode childAt(int i) {
+    materialize();
+    return super.childAt(i);
+  }
+}
@@ -0,0 +1,41 @@
+package jsontree;
+
+/**
+ * A JSON string read by a {@link LazyTreeBuilder}, whose value is copied out of the
+ * retained input the first time it is needed.
+ */
+final class LazyJsonString extends JsonString {
+
+  private char[] text;
+  private final int start;
+  private final int length;
+  private String decoded;
+
+  /**
+   * Constructs a view of a string of the input.
+   *
+   * @param text the input.
+   * @param start the position of the first character of the string.
+   * @param length the number of characters of the string.
+   */
+  LazyJsonString(char[] text, int start, int length) {
+    super(null);
+    this.text = text;
+    this.start = start;
+    this.length = length;
+  }
+
+  /**
+   * Returns the value of the string, copying it out of the input on the first call.
+   *
+   * @return the string value of this node.
+   */
+  @Override
+  protected Object valueObtain() {
+    if (decoded == null) {
+      decoded = new String(text, start, length);
+      text = null;
+    }
+    return decoded;
+  }
+}
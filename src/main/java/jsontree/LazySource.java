@@ -0,0 +1,125 @@
+package jsontree;
+
+import validator.JsonGrammar;
+
+/**
+ * The input retained by a {@link LazyTreeBuilder}, with the positions of its containers.
+ * Containers are numbered in the order they are opened, so the children of a container
+ * follow it, and the container after all the descendants of container k is ends[k].
+ * A container is filled by running the grammar again over its own characters only,
+ * jumping over each nested container to the state its closing bracket was read in, which
+ * gives exactly the children the eager builder would have added.
+ */
+final class LazySource {
+
+  private static final KeySymbols SYMBOLS = KeySymbols.shared();
+
+  private final char[] text;
+  private final int[] opens;
+  private final int[] closes;
+  private final int[] ends;
+  private final byte[] closedIn;
+
+  /**
+   * Wraps the recorded input. The arrays are shared with the builder, which only writes
+   * past the containers recorded so far.
+   *
+   * @param text the input.
+   * @param opens the position of the opening bracket of each container.
+   * @param closes the position of the closing bracket of each container.
+   * @param ends the number of the container after the descendants of each container.
+   * @param closedIn the state each closing bracket was read in.
+   */
+  LazySource(char[] text, int[] opens, int[] closes, int[] ends, byte[] closedIn) {
+    this.text = text;
+    this.opens = opens;
+    this.closes = closes;
+    this.ends = ends;
+    this.closedIn = closedIn;
+  }
+
+  /**
+   * Creates the view of a container.
+   *
+   * @param container the number of the container.
+   * @return a lazy object or array.
+   */
+  JsonNode container(int container) {
+    return text[opens[container]] == '{'
+            ? new LazyJsonObject(this, container) : new LazyJsonArray(this, container);
+  }
+
+  /**
+   * Creates the view of a string.
+   *
+   * @param start the position of its first character.
+   * @param end the position of its closing quote.
+   * @return a lazy string.
+   */
+  JsonString string(int start, int end) {
+    return new LazyJsonString(text, start, end - start);
+  }
+
+  /**
+   * Adds the children of a container to its view.
+   *
+   * @param container the number of the container.
+   * @param view the view of the container, which must not be filled yet.
+   */
+  void fill(int container, JsonNode view) {
+    boolean object = text[opens[container]] == '{';
+    int state = object ? JsonGrammar.OBJECT : JsonGrammar.VALUE;
+    int close = closes[container];
+    int child = container + 1;
+    int start = 0;
+    String key = null;
+    int keyId = -1;
+    for (int i = opens[container] + 1; i < close; i++) {
+      if (state == JsonGrammar.STRING || state == JsonGrammar.KEY) {
+        while (text[i] != '"') {
+          i++;
+        }
+      }
+      int entry = JsonGrammar.transition(state, JsonGrammar.classOf(text[i]));
+      int next = JsonGrammar.nextState(entry);
+      JsonNode node = null;
+      switch (JsonGrammar.action(entry)) {
+        case JsonGrammar.BEGIN_KEY:
+        case JsonGrammar.BEGIN_STRING:
+          start = i + 1;
+          break;
+        case JsonGrammar.END_KEY:
+        case JsonGrammar.END_STRING:
+          if (object && key == null) {
+            keyId = SYMBOLS.intern(text, start, i - start);
+            key = keyId >= 0 ? SYMBOLS.name(keyId) : new String(text, start, i - start);
+          } else {
+            node = string(start, i);
+          }
+          break;
+        case JsonGrammar.PUSH_OBJECT:
+        case JsonGrammar.PUSH_ARRAY:
+          node = container(child);
+          i = closes[child];
+          next = closedIn[child];
+          child = ends[child];
+          break;
+        case JsonGrammar.SEPARATOR:
+          next = object ? JsonGrammar.OBJECT : JsonGrammar.VALUE;
+          break;
+        default:
+          break;
+      }
+      state = next;
+      if (node == null) {
+        continue;
+      }
+      if (!object) {
+        ((JsonArray) view).add(node);
+      } else if (key != null) {
+        ((JsonObject) view).addTrusted(keyId, key, node);
+        key = null;
+      }
+    }
+  }
+}
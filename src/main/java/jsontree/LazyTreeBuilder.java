@@ -0,0 +1,305 @@
+package jsontree;
+
+import java.util.Arrays;
+import java.util.Objects;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import validator.BracketStack;
+import validator.JsonGrammar;
+import validator.ValidatorStatus;
+
+/**
+ * LazyTreeBuilder parses JSON input like {@link JsonTreeBuilder}, but only records where
+ * each object and array opens and closes. The input is kept, and the nodes of the tree are
+ * created from it the first time they are read, so that a consumer that reads a few values
+ * of a large document only pays for those. The tree accepts, rejects, compares, hashes and
+ * prints exactly like the one built by {@link JsonTreeBuilder}, and can be changed like it.
+ * The brackets are matched by a {@link BracketStack}, next to the stack of the numbers of the
+ * open containers.
+ */
+public class LazyTreeBuilder implements JsonParser<JsonNode> {
+
+  private int state;
+  private final BracketStack brackets;
+  private char[] text;
+  private int length;
+  private int[] stack;
+  private int[] opens;
+  private int[] closes;
+  private int[] ends;
+  private byte[] closedIn;
+  private int count;
+  private int start;
+  private int rootContainer;
+  private int rootStart;
+  private int rootEnd;
+  private boolean keyPending;
+  private int keyStart;
+  private int keyEnd;
+  private char keyChars;
+  private JsonNode result;
+  private boolean shared;
+
+  /**
+   * Initializes the LazyTreeBuilder, waiting for the opening curly brace.
+   */
+  public LazyTreeBuilder() {
+    this.state = JsonGrammar.START;
+    this.brackets = new BracketStack();
+    this.text = new char[256];
+    this.length = 0;
+    this.stack = new int[16];
+    this.opens = new int[16];
+    this.closes = new int[16];
+    this.ends = new int[16];
+    this.closedIn = new byte[16];
+    this.count = 0;
+    this.rootContainer = -1;
+    this.rootStart = -1;
+    this.keyPending = false;
+    this.result = null;
+  }
+
+  /**
+   * Returns the builder to its initial state. Its buffers are kept unless a tree has been
+   * returned, whose nodes may still read them, in which case new ones are allocated.
+   */
+  @Override
+  public void reset() {
+    state = JsonGrammar.START;
+    brackets.reset();
+    length = 0;
+    count = 0;
+    rootContainer = -1;
+    rootStart = -1;
+    keyPending = false;
+    keyChars = 0;
+    result = null;
+    if (shared) {
+      text = new char[text.length];
+      opens = new int[opens.length];
+      closes = new int[closes.length];
+      ends = new int[ends.length];
+      closedIn = new byte[closedIn.length];
+      shared = false;
+    }
+  }
+
+  /**
+   * Records a single character of JSON input. Nothing is done once the input has been
+   * found invalid.
+   *
+   * @param c the character to process.
+   * @return the LazyTreeBuilder instance for method chaining.
+   * @throws InvalidJsonException if the input is invalid.
+   * @throws IllegalArgumentException if a key is not accepted by {@link JsonObject#add}.
+   */
+  @Override
+  public JsonParser<JsonNode> input(char c) throws InvalidJsonException {
+    if (!brackets.invalid()) {
+      reserve(1);
+      text[length] = c;
+      result = null;
+      state = step(state, c, length++);
+    }
+    return this;
+  }
+
+  /**
+   * Records a range of JSON input characters. The characters are copied at once and the
+   * characters of a string are skipped until its closing quote.
+   *
+   * @param buf the buffer holding the characters to process.
+   * @param off the index of the first character to process.
+   * @param len the number of characters to process.
+   * @return the LazyTreeBuilder instance for method chaining.
+   * @throws InvalidJsonException if the input is invalid.
+   * @throws IllegalArgumentException if a key is not accepted by {@link JsonObject#add}.
+   */
+  @Override
+  public JsonParser<JsonNode> input(char[] buf, int off, int len) throws InvalidJsonException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (brackets.invalid()) {
+      return this;
+    }
+    reserve(len);
+    System.arraycopy(buf, off, text, length, len);
+    result = null;
+    int end = length + len;
+    int current = state;
+    try {
+      for (int i = length; i < end; i++) {
+        if (current == JsonGrammar.STRING) {
+          while (i < end && text[i] != '"') {
+            i++;
+          }
+          if (i == end) {
+            break;
+          }
+        }
+        current = step(current, text[i], i);
+      }
+    } finally {
+      state = current;
+      length = end;
+    }
+    return this;
+  }
+
+  /**
+   * Makes room for more input.
+   *
+   * @param len the number of characters about to be added.
+   */
+  private void reserve(int len) {
+    if (length + len > text.length) {
+      text = Arrays.copyOf(text, Math.max(text.length * 2, length + len));
+    }
+  }
+
+  /**
+   * Moves to the next state for a single character and records the containers.
+   *
+   * @param current the current state.
+   * @param c the character to process.
+   * @param pos the position of the character in the input.
+   * @return the next state.
+   * @throws InvalidJsonException if the input is invalid.
+   */
+  private int step(int current, char c, int pos) throws InvalidJsonException {
+    int entry = JsonGrammar.transition(current, JsonGrammar.classOf(c));
+    int next = JsonGrammar.nextState(entry);
+    switch (JsonGrammar.action(entry)) {
+      case JsonGrammar.NONE:
+        if (next == JsonGrammar.KEY) {
+          keyChars |= c;
+        }
+        break;
+      case JsonGrammar.BEGIN_KEY:
+        keyChars = 0;
+        start = pos + 1;
+        break;
+      case JsonGrammar.BEGIN_STRING:
+        start = pos + 1;
+        break;
+      case JsonGrammar.END_KEY:
+      case JsonGrammar.END_STRING:
+        addString(pos);
+        break;
+      case JsonGrammar.PUSH_OBJECT:
+      case JsonGrammar.PUSH_ARRAY:
+        openContainer(pos);
+        break;
+      case JsonGrammar.POP_OBJECT:
+        closeContainer(pos, true, current);
+        break;
+      case JsonGrammar.POP_ARRAY:
+        closeContainer(pos, false, current);
+        break;
+      case JsonGrammar.SEPARATOR:
+        return brackets.separate();
+      default:
+        throw brackets.fail(JsonGrammar.message(entry));
+    }
+    return next;
+  }
+
+  /**
+   * Handles a complete string, which is either a key waiting for its value or a value,
+   * the same way as {@link JsonTreeBuilder}.
+   *
+   * @param end the position of the closing quote.
+   */
+  private void addString(int end) {
+    if (brackets.depth() == 0) {
+      rootContainer = -1;
+      rootStart = start;
+      rootEnd = end;
+    } else if (brackets.inObject()) {
+      if (keyPending) {
+        useKey();
+      } else {
+        keyPending = true;
+        keyStart = start;
+        keyEnd = end;
+      }
+    }
+  }
+
+  /**
+   * Opens a container, which is the root or the value of the pending key.
+   *
+   * @param pos the position of the opening bracket.
+   */
+  private void openContainer(int pos) {
+    int depth = brackets.depth();
+    if (depth == 0) {
+      rootContainer = count;
+    } else if (brackets.inObject() && keyPending) {
+      useKey();
+    }
+    if (count == opens.length) {
+      opens = Arrays.copyOf(opens, count * 2);
+      closes = Arrays.copyOf(closes, count * 2);
+      ends = Arrays.copyOf(ends, count * 2);
+      closedIn = Arrays.copyOf(closedIn, count * 2);
+    }
+    opens[count] = pos;
+    if (depth == stack.length) {
+      stack = Arrays.copyOf(stack, depth * 2);
+    }
+    stack[depth] = count++;
+    brackets.push(text[pos] == '{');
+  }
+
+  /**
+   * Closes the innermost container and records where it ends.
+   *
+   * @param pos the position of the closing bracket.
+   * @param object true for a closing curly brace, false for a closing square bracket.
+   * @param current the state the closing bracket is read in.
+   * @throws InvalidJsonException if there is no open bracket or it does not match.
+   */
+  private void closeContainer(int pos, boolean object, int current)
+          throws InvalidJsonException {
+    brackets.pop(object);
+    int container = stack[brackets.depth()];
+    closes[container] = pos;
+    closedIn[container] = (byte) current;
+    ends[container] = count;
+  }
+
+  /**
+   * Gives the pending key its value, rejecting it like {@link JsonObject#add} would.
+   *
+   * @throws IllegalArgumentException if the key is not ASCII.
+   */
+  private void useKey() {
+    keyPending = false;
+    if (keyChars >= 0x80) {
+      brackets.invalidate();
+      throw new IllegalArgumentException(new String(text, keyStart, keyEnd - keyStart)
+              + " is not a valid key");
+    }
+  }
+
+  /**
+   * Returns the root of the parsed JSON tree if valid; otherwise, null. The same root is
+   * returned until more input is provided.
+   *
+   * @return the root {@link JsonNode} of the lazy tree, or null if invalid.
+   */
+  @Override
+  public JsonNode output() {
+    if (brackets.status(state) != ValidatorStatus.VALID) {
+      return null;
+    }
+    if (result == null) {
+      LazySource source = new LazySource(text, opens, closes, ends, closedIn);
+      shared = true;
+      result = rootContainer >= 0 ? source.container(rootContainer)
+              : source.string(rootStart, rootEnd);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,515 @@
+package jsontree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import parser.InvalidJsonException;
+import parser.ParserPool;
+import validator.JsonGrammar;
+import validator.ParallelValidator;
+import validator.ValidatorStatus;
+
+/**
+ * Builds the tree of a large document on several threads. The document is first validated
+ * with a {@link ParallelValidator}. The members of the root, and of every object or array
+ * larger than the split size, are then cut into runs of about that size, and each run is
+ * built on a {@link ForkJoinPool} while the rest of its container is still being cut. The
+ * runs are assembled in their original order, so the tree is equal to the one
+ * {@link JsonTreeBuilder} builds, and the same exceptions are thrown.
+ *
+ * <p>Input that is not a valid document made of a single object is left to a
+ * {@link JsonTreeBuilder} on the calling thread, so that errors are reported exactly as it
+ * reports them. So is every document when there is a single thread, or when the document is
+ * smaller than the split size, since the validation and the cutting would only add to the
+ * cost of building it. Validation and building share one {@link ForkJoinPool}.
+ */
+public class ParallelTreeBuilder {
+
+  /** The default number of characters above which a container is built on several threads. */
+  public static final int DEFAULT_SPLIT_SIZE = 1 << 16;
+
+  private static final KeySymbols SYMBOLS = KeySymbols.shared();
+
+  private final int parallelism;
+  private final int splitSize;
+
+  /**
+   * Constructs a builder with one thread per available processor.
+   */
+  public ParallelTreeBuilder() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_SPLIT_SIZE);
+  }
+
+  /**
+   * Constructs a builder.
+   *
+   * @param parallelism the number of threads.
+   * @param splitSize the number of characters above which a container is split.
+   * @throws IllegalArgumentException if the parallelism or the split size is not positive.
+   */
+  public ParallelTreeBuilder(int parallelism, int splitSize) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("invalid parallelism: " + parallelism);
+    }
+    if (splitSize <= 0) {
+      throw new IllegalArgumentException("invalid split size: " + splitSize);
+    }
+    this.parallelism = parallelism;
+    this.splitSize = splitSize;
+  }
+
+  /**
+   * Builds the tree of a document.
+   *
+   * @param json the document.
+   * @return the root of the tree, or null if the document is incomplete.
+   * @throws InvalidJsonException if the document is invalid.
+   * @throws IllegalArgumentException if a key is not accepted by {@link JsonObject#add}.
+   * @throws InterruptedException if the thread is interrupted while validating.
+   */
+  public JsonNode build(CharSequence json) throws InvalidJsonException, InterruptedException {
+    char[] buf = json.toString().toCharArray();
+    return build(buf, 0, buf.length);
+  }
+
+  /**
+   * Builds the tree of a document held in a range of characters, which must not change
+   * until the tree is returned.
+   *
+   * @param buf the buffer holding the document.
+   * @param off the index of the first character.
+   * @param len the number of characters.
+   * @return the root of the tree, or null if the document is incomplete.
+   * @throws InvalidJsonException if the document is invalid.
+   * @throws IllegalArgumentException if a key is not accepted by {@link JsonObject#add}.
+   * @throws InterruptedException if the thread is interrupted while validating.
+   */
+  public JsonNode build(char[] buf, int off, int len)
+          throws InvalidJsonException, InterruptedException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (parallelism == 1 || len < splitSize) {
+      return new JsonTreeBuilder().input(buf, off, len).output();
+    }
+    int end = off + len;
+    int open = skipWhitespace(buf, off, end);
+    if (open < end && buf[open] == '{') {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        if (new ParallelValidator(pool, ParallelValidator.DEFAULT_CHUNK_SIZE)
+                .validate(buf, off, len) == ValidatorStatus.VALID) {
+          int close = matchingClose(buf, open);
+          if (skipWhitespace(buf, close + 1, end) == end) {
+            Container root = new Container(buf, open, close,
+                    new ParserPool<>(JsonTreeBuilder::new, parallelism));
+            pool.invoke(root);
+            return root.result();
+          }
+        }
+      } finally {
+        pool.shutdown();
+      }
+    }
+    return new JsonTreeBuilder().input(buf, off, len).output();
+  }
+
+  /**
+   * Skips whitespace.
+   *
+   * @param buf the characters.
+   * @param from the index to start at.
+   * @param to the index to stop at.
+   * @return the index of the first character that is not whitespace, or to.
+   */
+  private static int skipWhitespace(char[] buf, int from, int to) {
+    int i = from;
+    while (i < to && JsonGrammar.classOf(buf[i]) == JsonGrammar.WHITESPACE) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Finds the bracket closing a container of valid input.
+   *
+   * @param buf the characters.
+   * @param open the index of the opening bracket.
+   * @return the index of the closing bracket.
+   */
+  private static int matchingClose(char[] buf, int open) {
+    int depth = 0;
+    for (int i = open; ; i++) {
+      char c = buf[i];
+      if (c == '"') {
+        do {
+          i++;
+        } while (buf[i] != '"');
+      } else if (c == '{' || c == '[') {
+        depth++;
+      } else if ((c == '}' || c == ']') && --depth == 0) {
+        return i;
+      }
+    }
+  }
+
+  /**
+   * Returns the state a closing bracket of valid input is read in. A brace that directly
+   * follows an opening brace, possibly through other closing braces, is read in the
+   * {@link JsonGrammar#OBJECT} state and every other one in {@link JsonGrammar#COMMA}.
+   *
+   * @param buf the characters.
+   * @param close the index of the closing bracket.
+   * @return the state.
+   */
+  private static int closedIn(char[] buf, int close) {
+    if (buf[close] == ']') {
+      return JsonGrammar.COMMA;
+    }
+    int i = close - 1;
+    while (buf[i] == '}' || JsonGrammar.classOf(buf[i]) == JsonGrammar.WHITESPACE) {
+      i--;
+    }
+    return buf[i] == '{' ? JsonGrammar.OBJECT : JsonGrammar.COMMA;
+  }
+
+  /**
+   * Builds a small container of valid input.
+   *
+   * @param builder the builder to use.
+   * @param text the document.
+   * @param open the index of the opening bracket.
+   * @param close the index of the closing bracket.
+   * @return the container.
+   */
+  private static JsonNode buildValue(JsonTreeBuilder builder, char[] text, int open, int close) {
+    try {
+      return builder.buildValue(text, open, close - open + 1);
+    } catch (InvalidJsonException e) {
+      throw new IllegalStateException("validated input was rejected", e);
+    }
+  }
+
+  /**
+   * Builds an object or array. A small one is built by a {@link JsonTreeBuilder}; a large
+   * one is cut into runs of members that are built concurrently.
+   */
+  private final class Container extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final char[] text;
+    private final int open;
+    private final int close;
+    private final ParserPool<JsonTreeBuilder> builders;
+    private JsonNode node;
+    private RuntimeException error;
+
+    /**
+     * Creates the task of a container.
+     *
+     * @param text the document.
+     * @param open the index of the opening bracket.
+     * @param close the index of the closing bracket.
+     * @param builders the builders of small values.
+     */
+    Container(char[] text, int open, int close, ParserPool<JsonTreeBuilder> builders) {
+      this.text = text;
+      this.open = open;
+      this.close = close;
+      this.builders = builders;
+    }
+
+    /**
+     * Returns the container once the task is done.
+     *
+     * @return the container.
+     * @throws RuntimeException the first error met in the order of the document.
+     */
+    JsonNode result() {
+      if (error != null) {
+        throw error;
+      }
+      return node;
+    }
+
+    /**
+     * Builds the container, keeping the first error instead of throwing it, so that it is
+     * reported unchanged by the thread that assembles the parent.
+     */
+    @Override
+    protected void compute() {
+      try {
+        node = close - open < splitSize ? buildSmall() : buildLarge();
+      } catch (RuntimeException e) {
+        error = e;
+      }
+    }
+
+    /**
+     * Builds the container with a pooled {@link JsonTreeBuilder}.
+     *
+     * @return the container.
+     */
+    private JsonNode buildSmall() {
+      JsonTreeBuilder builder = builders.acquire();
+      try {
+        return buildValue(builder, text, open, close);
+      } finally {
+        builders.release(builder);
+      }
+    }
+
+    /**
+     * Cuts the members into runs, following the grammar over the characters of this
+     * container only, and assembles the runs once they are built.
+     *
+     * @return the container.
+     */
+    private JsonNode buildLarge() {
+      boolean object = text[open] == '{';
+      List<Run> runs = new ArrayList<>();
+      Run run = new Run(this, object);
+      int state = object ? JsonGrammar.OBJECT : JsonGrammar.VALUE;
+      int start = 0;
+      boolean keyPending = false;
+      for (int i = open + 1; i < close; i++) {
+        if (state == JsonGrammar.STRING || state == JsonGrammar.KEY) {
+          while (text[i] != '"') {
+            i++;
+          }
+        }
+        int entry = JsonGrammar.transition(state, JsonGrammar.classOf(text[i]));
+        int next = JsonGrammar.nextState(entry);
+        switch (JsonGrammar.action(entry)) {
+          case JsonGrammar.BEGIN_KEY:
+          case JsonGrammar.BEGIN_STRING:
+            start = i + 1;
+            break;
+          case JsonGrammar.END_KEY:
+          case JsonGrammar.END_STRING:
+            if (object && !keyPending) {
+              run.key(start, i);
+              keyPending = true;
+            } else {
+              run.value(start, i, false);
+              keyPending = false;
+            }
+            break;
+          case JsonGrammar.PUSH_OBJECT:
+          case JsonGrammar.PUSH_ARRAY:
+            int end = matchingClose(text, i);
+            run.value(i, end, true);
+            keyPending = false;
+            next = closedIn(text, end);
+            i = end;
+            break;
+          case JsonGrammar.SEPARATOR:
+            next = object ? JsonGrammar.OBJECT : JsonGrammar.VALUE;
+            break;
+          default:
+            break;
+        }
+        state = next;
+        if (!keyPending && run.chars >= splitSize) {
+          run.fork();
+          runs.add(run);
+          run = new Run(this, object);
+        }
+      }
+      run.fork();
+      runs.add(run);
+      // Runs are joined from the last one forked, which this thread can take back at once.
+      for (int k = runs.size() - 1; k >= 0; k--) {
+        runs.get(k).join();
+      }
+      int size = 0;
+      for (Run part : runs) {
+        if (part.error != null) {
+          throw part.error;
+        }
+        size += part.count;
+      }
+      return object ? assembleObject(runs, size) : assembleArray(runs, size);
+    }
+
+    /**
+     * Puts the members of the runs into an object.
+     *
+     * @param runs the runs, in order.
+     * @param size the number of members.
+     * @return the object.
+     */
+    private JsonObject assembleObject(List<Run> runs, int size) {
+      JsonObject result = new JsonObject(size);
+      for (Run part : runs) {
+        for (int k = 0; k < part.count; k++) {
+          result.addTrusted(part.keyIds[k], part.keys[k], part.nodes[k]);
+        }
+      }
+      return result;
+    }
+
+    /**
+     * Puts the elements of the runs into an array.
+     *
+     * @param runs the runs, in order.
+     * @param size the number of elements.
+     * @return the array.
+     */
+    private JsonArray assembleArray(List<Run> runs, int size) {
+      JsonArray result = new JsonArray(size);
+      for (Run part : runs) {
+        for (int k = 0; k < part.count; k++) {
+          result.add(part.nodes[k]);
+        }
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Builds a run of consecutive members of a container. Positions are recorded while the
+   * container is cut, and the keys and values are created by the task.
+   */
+  private final class Run extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Container owner;
+    private final boolean object;
+    private int[] spans;
+    private int count;
+    private int chars;
+    private String[] keys;
+    private int[] keyIds;
+    private JsonNode[] nodes;
+    private RuntimeException error;
+
+    /**
+     * Creates an empty run.
+     *
+     * @param owner the container the members belong to.
+     * @param object true if the container is an object.
+     */
+    Run(Container owner, boolean object) {
+      this.owner = owner;
+      this.object = object;
+      this.spans = new int[object ? 40 : 24];
+    }
+
+    /**
+     * Records the key of the next member of an object.
+     *
+     * @param start the index of its first character.
+     * @param end the index of its closing quote.
+     */
+    void key(int start, int end) {
+      reserve();
+      spans[count * width()] = start;
+      spans[count * width() + 1] = end;
+    }
+
+    /**
+     * Records the value of the next member.
+     *
+     * @param start the index of the first character of a string, or of the opening bracket
+     *              of a container.
+     * @param end the index of the closing quote of a string, or of the closing bracket of a
+     *            container.
+     * @param container true for an object or an array.
+     */
+    void value(int start, int end, boolean container) {
+      if (!object) {
+        reserve();
+      }
+      int base = count * width() + (object ? 2 : 0);
+      spans[base] = container ? start : -start - 1;
+      spans[base + 1] = end;
+      chars += end - start + 1;
+      count++;
+    }
+
+    /**
+     * Returns the number of ints recorded per member.
+     *
+     * @return four for the members of an object, two for elements.
+     */
+    private int width() {
+      return object ? 4 : 2;
+    }
+
+    /**
+     * Makes room for one more member.
+     */
+    private void reserve() {
+      if ((count + 1) * width() > spans.length) {
+        spans = Arrays.copyOf(spans, spans.length * 2);
+      }
+    }
+
+    /**
+     * Creates the keys and values of the run. Keys are checked in the order of the document
+     * before their values are built, as {@link JsonTreeBuilder} does.
+     */
+    @Override
+    protected void compute() {
+      char[] text = owner.text;
+      nodes = new JsonNode[count];
+      if (object) {
+        keys = new String[count];
+        keyIds = new int[count];
+      }
+      int width = width();
+      JsonTreeBuilder builder = owner.builders.acquire();
+      try {
+        for (int k = 0; k < count; k++) {
+          int base = k * width;
+          if (object) {
+            createKey(text, k, spans[base], spans[base + 1]);
+            base += 2;
+          }
+          int start = spans[base];
+          int end = spans[base + 1];
+          if (start < 0) {
+            start = -start - 1;
+            nodes[k] = new JsonString(new String(text, start, end - start));
+          } else if (end - start < splitSize) {
+            nodes[k] = buildValue(builder, text, start, end);
+          } else {
+            Container child = new Container(text, start, end, owner.builders);
+            child.compute();
+            nodes[k] = child.result();
+          }
+        }
+      } catch (RuntimeException e) {
+        error = e;
+      } finally {
+        owner.builders.release(builder);
+      }
+    }
+
+    /**
+     * Creates a key the way {@link JsonTreeBuilder} does.
+     *
+     * @param text the document.
+     * @param k the number of the member.
+     * @param start the index of the first character of the key.
+     * @param end the index of its closing quote.
+     * @throws IllegalArgumentException if the key is not ASCII.
+     */
+    private void createKey(char[] text, int k, int start, int end) {
+      char keyChars = 0;
+      for (int i = start; i < end; i++) {
+        keyChars |= text[i];
+      }
+      if (keyChars >= 0x80) {
+        JsonObject.checkKey(new String(text, start, end - start));
+      }
+      int id = SYMBOLS.intern(text, start, end - start);
+      keyIds[k] = id;
+      keys[k] = id >= 0 ? SYMBOLS.name(id) : new String(text, start, end - start);
+    }
+  }
+}
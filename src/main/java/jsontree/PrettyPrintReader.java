@@ -0,0 +1,67 @@
+package jsontree;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * A reader over the pretty-printed form of a JSON tree. The output is produced by a
+ * {@link PrettyPrinter} only as fast as it is read, so at most one piece of it is held in
+ * memory beyond what the caller asked for.
+ */
+final class PrettyPrintReader extends Reader {
+
+  private final PrettyPrinter printer;
+  private final StringBuilder pending;
+  private int position;
+  private boolean done;
+
+  /**
+   * Constructs a reader over the pretty-printed form of a tree.
+   *
+   * @param root the root of the tree to print.
+   */
+  PrettyPrintReader(JsonNode root) {
+    this.printer = new PrettyPrinter(root, 0);
+    this.pending = new StringBuilder();
+    this.position = 0;
+    this.done = false;
+  }
+
+  /**
+   * Reads characters of the output, printing more pieces as needed.
+   *
+   * @param cbuf the destination buffer.
+   * @param off the index at which to start storing characters.
+   * @param len the maximum number of characters to read.
+   * @return the number of characters read, or -1 at the end of the output.
+   * @throws IOException never, since the output is printed into memory.
+   */
+  @Override
+  public int read(char[] cbuf, int off, int len) throws IOException {
+    if (pending.length() - position < len && position > 0) {
+      // Drop what has been read before printing more, so only unread output is kept.
+      pending.delete(0, position);
+      position = 0;
+    }
+    while (pending.length() - position < len && !done) {
+      done = !printer.advance(pending);
+    }
+    int count = Math.min(len, pending.length() - position);
+    if (count == 0 && len > 0) {
+      return -1;
+    }
+    pending.getChars(position, position + count, cbuf, off);
+    position += count;
+    return count;
+  }
+
+  /**
+   * Releases the remaining output.
+   */
+  @Override
+  public void close() {
+    done = true;
+    pending.setLength(0);
+    position = 0;
+  }
+}
@@ -0,0 +1,145 @@
+package jsontree;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes the pretty-printed form of a JSON tree piece by piece.
+ * The tree is walked without recursion, keeping the open containers and the index of their
+ * next child on a stack, so that the output can be produced in a single pass and paused
+ * after any piece. Indentation is appended from a cached run of spaces.
+ */
+final class PrettyPrinter {
+
+  private JsonNode[] nodes;
+  private int[] next;
+  private int depth;
+  private final int space;
+  private String spaces;
+
+  /**
+   * Prepares to print a tree.
+   *
+   * @param root the root of the tree to print.
+   * @param space the indentation level of the root.
+   */
+  PrettyPrinter(JsonNode root, int space) {
+    this.nodes = new JsonNode[16];
+    this.next = new int[16];
+    this.space = space;
+    this.spaces = "";
+    push(root);
+  }
+
+  /**
+   * Prints the whole tree.
+   *
+   * @param out the destination of the output.
+   * @throws IOException if the destination fails.
+   */
+  void printAll(Appendable out) throws IOException {
+    while (advance(out)) {
+      // Each call prints one more piece.
+    }
+  }
+
+  /**
+   * Prints the next piece of the output: the opening of a container, the start of one of
+   * its children, a string, or the closing of a container.
+   *
+   * @param out the destination of the output.
+   * @return true if a piece was printed, false if the whole tree has been printed.
+   * @throws IOException if the destination fails.
+   */
+  boolean advance(Appendable out) throws IOException {
+    if (depth == 0) {
+      return false;
+    }
+    JsonNode node = nodes[depth - 1];
+    int level = space + depth - 1;
+    switch (node.typeObtain()) {
+      case STRING:
+        out.append('"').append((String) node.valueObtain()).append('"');
+        pop(out);
+        break;
+      case ARRAY:
+        if (next[depth - 1] < 0) {
+          out.append("[\n");
+          next[depth - 1] = 0;
+        } else if (next[depth - 1] < node.childCount()) {
+          indent(out, level + 1);
+          push(node.childAt(next[depth - 1]++));
+        } else {
+          indent(out, level);
+          out.append(']');
+          pop(out);
+        }
+        break;
+      case OBJECT:
+        if (next[depth - 1] < 0) {
+          out.append("{\n");
+          next[depth - 1] = 0;
+        } else if (next[depth - 1] < node.childCount()) {
+          int index = next[depth - 1]++;
+          JsonNode value = node.childAt(index);
+          indent(out, level + 1);
+          out.append('"').append(node.keyAt(index)).append("\":");
+          if (value.typeObtain() != JsonNode.typeOfNode.STRING) {
+            out.append('\n');
+            indent(out, level + 1);
+          }
+          push(value);
+        } else {
+          indent(out, level);
+          out.append('}');
+          pop(out);
+        }
+        break;
+      default:
+        throw new IllegalStateException("Unexpected node type: " + node.typeObtain());
+    }
+    return true;
+  }
+
+  /**
+   * Starts printing a node.
+   *
+   * @param node the node to print.
+   */
+  private void push(JsonNode node) {
+    if (depth == nodes.length) {
+      nodes = Arrays.copyOf(nodes, depth * 2);
+      next = Arrays.copyOf(next, depth * 2);
+    }
+    nodes[depth] = node;
+    next[depth] = -1;
+    depth++;
+  }
+
+  /**
+   * Finishes printing a node, followed by the separator its container expects after it.
+   *
+   * @param out the destination of the output.
+   * @throws IOException if the destination fails.
+   */
+  private void pop(Appendable out) throws IOException {
+    nodes[--depth] = null;
+    if (depth > 0) {
+      out.append(next[depth - 1] < nodes[depth - 1].childCount() ? ",\n" : "\n");
+    }
+  }
+
+  /**
+   * Appends the indentation of a level.
+   *
+   * @param out the destination of the output.
+   * @param level the indentation level.
+   * @throws IOException if the destination fails.
+   */
+  private void indent(Appendable out, int level) throws IOException {
+    if (spaces.length() < 2 * level) {
+      spaces = " ".repeat(Math.max(4 * level, 32));
+    }
+    out.append(spaces, 0, 2 * level);
+  }
+}
@@ -0,0 +1,92 @@
+package jsontree;
+
+import java.util.AbstractList;
+import java.util.Objects;
+
+/**
+ * A read-only view of an array of a {@link JsonTape}. Its elements are found by walking the
+ * tape from the last one visited, so reading them in order takes constant time each. It has
+ * none of the methods that change an array.
+ */
+final class TapeArray extends JsonNode {
+
+  private final JsonTape tape;
+  private final int index;
+  private final int count;
+  private int cursorChild;
+  private int cursorPos;
+
+  /**
+   * Constructs a view of an array.
+   *
+   * @param tape the tape.
+   * @param index the position of the array in the tape.
+   */
+  TapeArray(JsonTape tape, int index) {
+    this.tape = tape;
+    this.index = index;
+    this.count = tape.childCount(index);
+    this.cursorChild = 0;
+    this.cursorPos = index + 1;
+  }
+
+  /**
+   * Returns the type of the node, which is {@link typeOfNode#ARRAY}.
+   *
+   * @return the type of the node (ARRAY).
+   */
+  @Override
+  protected typeOfNode typeObtain() {
+    return typeOfNode.ARRAY;
+  }
+
+  /**
+   * Returns the elements of the array as a read-only list of views.
+   *
+   * @return the list of elements.
+   */
+  @Override
+  protected Object valueObtain() {
+    return new AbstractList<JsonNode>() {
+      @Override
+      public JsonNode get(int i) {
+        return childAt(i);
+      }
+
+      @Override
+      public int size() {
+        return count;
+      }
+    };
+  }
+
+  /**
+   * Returns the number of elements of the array.
+   *
+   * @return the number of elements.
+   */
+  @Override
+  int childCount() {
+    return count;
+  }
+
+  /**
+   * Returns a view of an element of the array.
+   *
+   * @param i the position of the element.
+   * @return the element.
+   */
+  @Override
+  JsonNode childAt(int i) {
+    Objects.checkIndex(i, count);
+    if (i < cursorChild) {
+      cursorChild = 0;
+      cursorPos = index + 1;
+    }
+    while (cursorChild < i) {
+      cursorPos = tape.skip(cursorPos);
+      cursorChild++;
+    }
+    return tape.node(cursorPos);
+  }
+}
@@ -0,0 +1,221 @@
+package jsontree;
+
+import java.util.Objects;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import validator.BracketStack;
+import validator.JsonGrammar;
+import validator.ValidatorStatus;
+
+/**
+ * TapeBuilder parses JSON input like {@link JsonTreeBuilder}, but writes the document
+ * straight into a {@link JsonTape} instead of creating a node for each value. It accepts and
+ * rejects the same input, and the root of its tape is equal to the tree the eager builder
+ * would have produced. The brackets are matched by a {@link BracketStack}.
+ */
+public class TapeBuilder implements JsonParser<JsonTape> {
+
+  private int state;
+  private final BracketStack brackets;
+  private final TapeWriter writer;
+  private int stringStart;
+  private boolean keyPending;
+  private char keyChars;
+  private String invalidKey;
+  private JsonTape result;
+
+  /**
+   * Initializes the TapeBuilder, waiting for the opening curly brace.
+   */
+  public TapeBuilder() {
+    this.state = JsonGrammar.START;
+    this.brackets = new BracketStack();
+    this.writer = new TapeWriter();
+    this.keyPending = false;
+    this.result = null;
+  }
+
+  /**
+   * Returns the builder to its initial state, keeping the buffers it writes to. The tapes
+   * it has already returned are copies and are not affected.
+   */
+  @Override
+  public void reset() {
+    state = JsonGrammar.START;
+    brackets.reset();
+    writer.reset();
+    keyPending = false;
+    keyChars = 0;
+    invalidKey = null;
+    result = null;
+  }
+
+  /**
+   * Processes a single character of JSON input. Nothing is done once the input has been
+   * found invalid.
+   *
+   * @param c the character to process.
+   * @return the TapeBuilder instance for method chaining.
+   * @throws InvalidJsonException if the input is invalid.
+   * @throws IllegalArgumentException if a key is not accepted by {@link JsonObject#add}.
+   */
+  @Override
+  public JsonParser<JsonTape> input(char c) throws InvalidJsonException {
+    if (!brackets.invalid()) {
+      result = null;
+      state = step(state, c);
+    }
+    return this;
+  }
+
+  /**
+   * Processes a range of JSON input characters. Runs of string characters are copied into
+   * the pool at once.
+   *
+   * @param buf the buffer holding the characters to process.
+   * @param off the index of the first character to process.
+   * @param len the number of characters to process.
+   * @return the TapeBuilder instance for method chaining.
+   * @throws InvalidJsonException if the input is invalid.
+   * @throws IllegalArgumentException if a key is not accepted by {@link JsonObject#add}.
+   */
+  @Override
+  public JsonParser<JsonTape> input(char[] buf, int off, int len) throws InvalidJsonException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (brackets.invalid()) {
+      return this;
+    }
+    result = null;
+    int end = off + len;
+    int current = state;
+    try {
+      for (int i = off; i < end; i++) {
+        if (current == JsonGrammar.STRING) {
+          int start = i;
+          while (i < end && buf[i] != '"') {
+            i++;
+          }
+          writer.appendChars(buf, start, i - start);
+          if (i == end) {
+            break;
+          }
+        }
+        current = step(current, buf[i]);
+      }
+    } finally {
+      state = current;
+    }
+    return this;
+  }
+
+  /**
+   * Moves to the next state for a single character and writes the tape accordingly.
+   *
+   * @param current the current state.
+   * @param c the character to process.
+   * @return the next state.
+   * @throws InvalidJsonException if the input is invalid.
+   */
+  private int step(int current, char c) throws InvalidJsonException {
+    int entry = JsonGrammar.transition(current, JsonGrammar.classOf(c));
+    int next = JsonGrammar.nextState(entry);
+    switch (JsonGrammar.action(entry)) {
+      case JsonGrammar.NONE:
+        if (next == JsonGrammar.STRING) {
+          writer.appendChar(c);
+        } else if (next == JsonGrammar.KEY) {
+          writer.appendChar(c);
+          keyChars |= c;
+        }
+        break;
+      case JsonGrammar.BEGIN_KEY:
+        keyChars = 0;
+        stringStart = writer.beginString();
+        break;
+      case JsonGrammar.BEGIN_STRING:
+        stringStart = writer.beginString();
+        break;
+      case JsonGrammar.END_KEY:
+      case JsonGrammar.END_STRING:
+        addString();
+        break;
+      case JsonGrammar.PUSH_OBJECT:
+      case JsonGrammar.PUSH_ARRAY:
+        if (brackets.depth() == 0) {
+          writer.reset();
+        } else if (brackets.inObject() && keyPending) {
+          useKey();
+        }
+        boolean object = JsonGrammar.action(entry) == JsonGrammar.PUSH_OBJECT;
+        brackets.push(object);
+        writer.beginContainer(object);
+        break;
+      case JsonGrammar.POP_OBJECT:
+        brackets.pop(true);
+        writer.endContainer();
+        break;
+      case JsonGrammar.POP_ARRAY:
+        brackets.pop(false);
+        writer.endContainer();
+        break;
+      case JsonGrammar.SEPARATOR:
+        return brackets.separate();
+      default:
+        throw brackets.fail(JsonGrammar.message(entry));
+    }
+    return next;
+  }
+
+  /**
+   * Handles the complete string in the pool, which is either a key waiting for its value
+   * or a value, the same way as {@link JsonTreeBuilder}.
+   */
+  private void addString() {
+    if (brackets.depth() == 0) {
+      writer.endString(writer.restartWithString(stringStart));
+    } else if (!brackets.inObject()) {
+      writer.endString(stringStart);
+    } else if (keyPending) {
+      useKey();
+      writer.endString(stringStart);
+    } else {
+      keyPending = true;
+      if (keyChars < 0x80) {
+        invalidKey = null;
+        writer.endKey(stringStart);
+      } else {
+        invalidKey = writer.takeString(stringStart);
+      }
+    }
+  }
+
+  /**
+   * Gives the pending key its value, rejecting it like {@link JsonObject#add} would.
+   *
+   * @throws IllegalArgumentException if the key is not ASCII.
+   */
+  private void useKey() {
+    keyPending = false;
+    if (invalidKey != null) {
+      brackets.invalidate();
+      throw new IllegalArgumentException(invalidKey + " is not a valid key");
+    }
+  }
+
+  /**
+   * Returns the tape of the parsed document if valid; otherwise, null. The same tape is
+   * returned until more input is provided.
+   *
+   * @return the {@link JsonTape} of the document, or null if invalid.
+   */
+  @Override
+  public JsonTape output() {
+    if (brackets.status(state) != ValidatorStatus.VALID) {
+      return null;
+    }
+    if (result == null) {
+      result = writer.finish();
+    }
+    return result;
+  }
+}
@@ -0,0 +1,197 @@
+package jsontree;
+
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A read-only view of an object of a {@link JsonTape}. Its entries are found by walking the
+ * tape from the last one visited, so reading them in order takes constant time each, and
+ * keys are looked up with a linear scan that compares symbol ids. It has the lookups of an
+ * object but none of the methods that change one.
+ */
+final class TapeObject extends JsonNode implements JsonObjectView {
+
+  private static final KeySymbols SYMBOLS = KeySymbols.shared();
+
+  private final JsonTape tape;
+  private final int index;
+  private final int count;
+  private int cursorChild;
+  private int cursorPos;
+
+  /**
+   * Constructs a view of an object.
+   *
+   * @param tape the tape.
+   * @param index the position of the object in the tape.
+   */
+  TapeObject(JsonTape tape, int index) {
+    this.tape = tape;
+    this.index = index;
+    this.count = tape.childCount(index);
+    this.cursorChild = 0;
+    this.cursorPos = index + 1;
+  }
+
+  /**
+   * Returns the value of the first entry with the given key.
+   *
+   * @param key the key to look up.
+   * @return the first value associated with the key, or null if there is none.
+   */
+  @Override
+  public JsonNode get(String key) {
+    int id = SYMBOLS.find(key);
+    int end = tape.skip(index);
+    for (int pos = index + 1; pos < end; pos = tape.skip(pos + 1)) {
+      if (tape.keyEquals(pos, id, key)) {
+        return tape.node(pos + 1);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the values of all the entries with the given key, in insertion order.
+   *
+   * @param key the key to look up.
+   * @return an unmodifiable list of the values associated with the key.
+   */
+  @Override
+  public List<JsonNode> getAll(String key) {
+    int id = SYMBOLS.find(key);
+    int end = tape.skip(index);
+    List<JsonNode> found = new ArrayList<>();
+    for (int pos = index + 1; pos < end; pos = tape.skip(pos + 1)) {
+      if (tape.keyEquals(pos, id, key)) {
+        found.add(tape.node(pos + 1));
+      }
+    }
+    return Collections.unmodifiableList(found);
+  }
+
+  /**
+   * Checks whether the JSON object has an entry with the given key.
+   *
+   * @param key the key to look up.
+   * @return true if at least one entry has the key, false otherwise.
+   */
+  @Override
+  public boolean containsKey(String key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Returns the distinct keys of the JSON object, in the order they were first added.
+   *
+   * @return an unmodifiable set of the keys.
+   */
+  @Override
+  public Set<String> keys() {
+    Set<String> distinct = new LinkedHashSet<>();
+    int end = tape.skip(index);
+    for (int pos = index + 1; pos < end; pos = tape.skip(pos + 1)) {
+      distinct.add(tape.key(pos));
+    }
+    return Collections.unmodifiableSet(distinct);
+  }
+
+  /**
+   * Returns the type of the node, which is {@link typeOfNode#OBJECT}.
+   *
+   * @return {@link typeOfNode#OBJECT}.
+   */
+  @Override
+  protected typeOfNode typeObtain() {
+    return typeOfNode.OBJECT;
+  }
+
+  /**
+   * Returns the entries of the object as a read-only list of key-value pairs.
+   *
+   * @return a list of {@link Map.Entry} containing the key-value pairs.
+   */
+  @Override
+  protected Object valueObtain() {
+    return new AbstractList<Map.Entry<String, JsonNode>>() {
+      @Override
+      public Map.Entry<String, JsonNode> get(int i) {
+        return new AbstractMap.SimpleImmutableEntry<>(keyAt(i), childAt(i));
+      }
+
+      @Override
+      public int size() {
+        return count;
+      }
+    };
+  }
+
+  /**
+   * Returns the number of entries of the object.
+   *
+   * @return the number of entries.
+   */
+  @Override
+  int childCount() {
+    return count;
+  }
+
+  /**
+   * Returns the key of an entry.
+   *
+   * @param i the position of the entry.
+   * @return the key.
+   */
+  @Override
+  String keyAt(int i) {
+    return tape.key(entry(i));
+  }
+
+  /**
+   * Returns the symbol id of the key of an entry.
+   *
+   * @param i the position of the entry.
+   * @return the id in the shared symbol table, or -1 if the key is not in it.
+   */
+  @Override
+  int keyIdAt(int i) {
+    return tape.keyId(entry(i));
+  }
+
+  /**
+   * Returns a view of the value of an entry.
+   *
+   * @param i the position of the entry.
+   * @return the value.
+   */
+  @Override
+  JsonNode childAt(int i) {
+    return tape.node(entry(i) + 1);
+  }
+
+  /**
+   * Finds the key of an entry, walking from the last entry found.
+   *
+   * @param i the position of the entry.
+   * @return the position of its key in the tape.
+   */
+  private int entry(int i) {
+    Objects.checkIndex(i, count);
+    if (i < cursorChild) {
+      cursorChild = 0;
+      cursorPos = index + 1;
+    }
+    while (cursorChild < i) {
+      cursorPos = tape.skip(cursorPos + 1);
+      cursorChild++;
+    }
+    return cursorPos;
+  }
+}
@@ -0,0 +1,32 @@
+package jsontree;
+
+/**
+ * A view of a string value of a {@link JsonTape}.
+ */
+final class TapeString extends JsonString {
+
+  private final JsonTape tape;
+  private final int index;
+
+  /**
+   * Constructs a view of a string.
+   *
+   * @param tape the tape.
+   * @param index the position of the string in the tape.
+   */
+  TapeString(JsonTape tape, int index) {
+    super(null);
+    this.tape = tape;
+    this.index = index;
+  }
+
+  /**
+   * Returns the value of the string, copied out of the pool.
+   *
+   * @return the string value of this node.
+   */
+  @Override
+  protected Object valueObtain() {
+    return tape.string(index);
+  }
+}
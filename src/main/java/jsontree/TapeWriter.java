@@ -0,0 +1,250 @@
+package jsontree;
+
+import java.util.Arrays;
+
+/**
+ * Appends the entries of a {@link JsonTape} in document order. A container is written as a
+ * placeholder that is completed with its number of children and its end when it is
+ * closed, and a string is written to the pool as it is read, behind room for its length.
+ */
+final class TapeWriter {
+
+  private static final KeySymbols SYMBOLS = KeySymbols.shared();
+
+  private long[] tape;
+  private int size;
+  private char[] pool;
+  private int poolSize;
+  private int[] starts;
+  private int[] counts;
+  private int depth;
+
+  /**
+   * Creates an empty writer.
+   */
+  TapeWriter() {
+    this.tape = new long[64];
+    this.pool = new char[256];
+    this.starts = new int[16];
+    this.counts = new int[16];
+  }
+
+  /**
+   * Discards everything that has been written.
+   */
+  void reset() {
+    size = 0;
+    poolSize = 0;
+    depth = 0;
+  }
+
+  /**
+   * Checks whether the innermost open container is an object.
+   *
+   * @return true for an object, false for an array.
+   */
+  boolean inObject() {
+    return JsonTape.type(tape[starts[depth - 1]]) == JsonTape.OBJECT;
+  }
+
+  /**
+   * Opens a container.
+   *
+   * @param object true for an object, false for an array.
+   */
+  void beginContainer(boolean object) {
+    countChild(true);
+    if (depth == starts.length) {
+      starts = Arrays.copyOf(starts, depth * 2);
+      counts = Arrays.copyOf(counts, depth * 2);
+    }
+    starts[depth] = size;
+    counts[depth++] = 0;
+    append((long) (object ? JsonTape.OBJECT : JsonTape.ARRAY) << JsonTape.TYPE_SHIFT);
+  }
+
+  /**
+   * Closes the innermost container, completing its entry.
+   */
+  void endContainer() {
+    depth--;
+    int count = Math.min(counts[depth], JsonTape.MAX_COUNT);
+    tape[starts[depth]] |= (long) count << JsonTape.COUNT_SHIFT | size;
+  }
+
+  /**
+   * Starts a string or key in the pool.
+   *
+   * @return the position of the string in the pool.
+   */
+  int beginString() {
+    reservePool(2);
+    int start = poolSize;
+    poolSize += 2;
+    return start;
+  }
+
+  /**
+   * Appends a character to the string being written.
+   *
+   * @param c the character.
+   */
+  void appendChar(char c) {
+    reservePool(1);
+    pool[poolSize++] = c;
+  }
+
+  /**
+   * Appends characters to the string being written.
+   *
+   * @param buf the buffer holding the characters.
+   * @param off the index of the first character.
+   * @param len the number of characters.
+   */
+  void appendChars(char[] buf, int off, int len) {
+    reservePool(len);
+    System.arraycopy(buf, off, pool, poolSize, len);
+    poolSize += len;
+  }
+
+  /**
+   * Appends a whole string to the pool.
+   *
+   * @param str the string.
+   * @return the position of the string in the pool.
+   */
+  int pooled(String str) {
+    int start = beginString();
+    reservePool(str.length());
+    str.getChars(0, str.length(), pool, poolSize);
+    poolSize += str.length();
+    finishLength(start);
+    return start;
+  }
+
+  /**
+   * Writes the string that has been appended as a string value.
+   *
+   * @param start the position of the string in the pool.
+   */
+  void endString(int start) {
+    finishLength(start);
+    countChild(true);
+    append((long) JsonTape.STRING << JsonTape.TYPE_SHIFT | start);
+  }
+
+  /**
+   * Writes the string that has been appended as a key. A key in the shared symbol table is
+   * written as its id, and removed from the pool.
+   *
+   * @param start the position of the string in the pool.
+   */
+  void endKey(int start) {
+    int id = SYMBOLS.intern(pool, start + 2, poolSize - start - 2);
+    countChild(false);
+    if (id >= 0) {
+      poolSize = start;
+      append((long) JsonTape.KEY << JsonTape.TYPE_SHIFT | id);
+    } else {
+      finishLength(start);
+      append((long) JsonTape.POOLED_KEY << JsonTape.TYPE_SHIFT | start);
+    }
+  }
+
+  /**
+   * Writes a key of a tree, which is written as its id if it is already in the shared
+   * symbol table.
+   *
+   * @param key the key.
+   */
+  void key(String key) {
+    int id = SYMBOLS.find(key);
+    countChild(false);
+    if (id >= 0) {
+      append((long) JsonTape.KEY << JsonTape.TYPE_SHIFT | id);
+    } else {
+      append((long) JsonTape.POOLED_KEY << JsonTape.TYPE_SHIFT | pooled(key));
+    }
+  }
+
+  /**
+   * Removes the string being written from the pool.
+   *
+   * @param start the position of the string in the pool.
+   * @return the string.
+   */
+  String takeString(int start) {
+    String str = new String(pool, start + 2, poolSize - start - 2);
+    poolSize = start;
+    return str;
+  }
+
+  /**
+   * Makes the string being written the only content of the tape, for a root that replaces
+   * the previous one.
+   *
+   * @param start the position of the string in the pool.
+   * @return the new position of the string in the pool.
+   */
+  int restartWithString(int start) {
+    int length = poolSize - start;
+    System.arraycopy(pool, start, pool, 0, length);
+    reset();
+    poolSize = length;
+    return 0;
+  }
+
+  /**
+   * Copies what has been written into a tape of the exact size.
+   *
+   * @return the tape.
+   */
+  JsonTape finish() {
+    return new JsonTape(Arrays.copyOf(tape, size), Arrays.copyOf(pool, poolSize));
+  }
+
+  /**
+   * Stores the length of a string in front of it.
+   *
+   * @param start the position of the string in the pool.
+   */
+  private void finishLength(int start) {
+    int length = poolSize - start - 2;
+    pool[start] = (char) (length >>> 16);
+    pool[start + 1] = (char) length;
+  }
+
+  /**
+   * Counts a child of the innermost container, if it is of the kind the container counts.
+   *
+   * @param value true for a value, false for a key.
+   */
+  private void countChild(boolean value) {
+    if (depth > 0 && value != inObject()) {
+      counts[depth - 1]++;
+    }
+  }
+
+  /**
+   * Appends an entry to the tape.
+   *
+   * @param entry the entry.
+   */
+  private void append(long entry) {
+    if (size == tape.length) {
+      tape = Arrays.copyOf(tape, size * 2);
+    }
+    tape[size++] = entry;
+  }
+
+  /**
+   * Makes room in the pool.
+   *
+   * @param len the number of characters about to be added.
+   */
+  private void reservePool(int len) {
+    if (poolSize + len > pool.length) {
+      pool = Arrays.copyOf(pool, Math.max(pool.length * 2, poolSize + len));
+    }
+  }
+}
@@ -1,10 +1,21 @@
 package parser;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Objects;
+
 /**
  * This interface represents a simple JSON parser that accepts input one
  * character at a time.
  */
 public interface JsonParser<T> {
+
+  /**
+   * The number of characters copied per step when input is provided in bulk from a
+   * {@link CharSequence} or a {@link Reader}.
+   */
+  int CHUNK_SIZE = 8192;
+
   /**
    * Accept a single character as input, and return the new parser as a result
    * of handling this character.
@@ -15,6 +26,85 @@ public interface JsonParser<T> {
    */
   JsonParser<T> input(char c) throws InvalidJsonException;
 
+  /**
+   * Accept a range of characters as input, and return the new parser as a result
+   * of handling them. The result is the same as providing each character in turn to
+   * {@link #input(char)}; implementations may override this to process the whole range
+   * in a single pass.
+   *
+   * @param buf the buffer holding the input characters
+   * @param off the index of the first character to handle
+   * @param len the number of characters to handle
+   * @return the parser after handling the provided characters
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   * @throws IndexOutOfBoundsException if the range is outside the buffer
+   */
+  default JsonParser<T> input(char[] buf, int off, int len) throws InvalidJsonException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    JsonParser<T> parser = this;
+    for (int i = off; i < off + len; i++) {
+      parser = parser.input(buf[i]);
+    }
+    return parser;
+  }
+
+  /**
+   * Accept a sequence of characters as input, and return the new parser as a result
+   * of handling them. The characters are handed to {@link #input(char[], int, int)} in
+   * chunks of {@link #CHUNK_SIZE}.
+   *
+   * @param seq the input characters
+   * @return the parser after handling the provided characters
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   */
+  default JsonParser<T> input(CharSequence seq) throws InvalidJsonException {
+    int length = seq.length();
+    char[] chunk = new char[Math.min(length, CHUNK_SIZE)];
+    JsonParser<T> parser = this;
+    for (int start = 0; start < length; start += chunk.length) {
+      int count = Math.min(chunk.length, length - start);
+      if (seq instanceof String) {
+        ((String) seq).getChars(start, start + count, chunk, 0);
+      } else {
+        for (int i = 0; i < count; i++) {
+          chunk[i] = seq.charAt(start + i);
+        }
+      }
+      parser = parser.input(chunk, 0, count);
+    }
+    return parser;
+  }
+
+  /**
+   * Read the given reader until it is exhausted, providing everything it returns as
+   * input. The reader is not closed.
+   *
+   * @param reader the source of the input characters
+   * @return the parser after handling all the characters of the reader
+   * @throws IOException if the reader fails
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   */
+  default JsonParser<T> consume(Reader reader) throws IOException, InvalidJsonException {
+    char[] chunk = new char[CHUNK_SIZE];
+    JsonParser<T> parser = this;
+    int count;
+    while ((count = reader.read(chunk, 0, chunk.length)) != -1) {
+      parser = parser.input(chunk, 0, count);
+    }
+    return parser;
+  }
+
+  /**
+   * Return the parser to its initial state, so that it can parse another input. Buffers
+   * that have grown are kept, so that a reused parser does not allocate them again.
+   * Outputs that have already been provided are not affected.
+   *
+   * @throws UnsupportedOperationException if the parser cannot be reused
+   */
+  default void reset() {
+    throw new UnsupportedOperationException(getClass().getName() + " cannot be reset");
+  }
+
   /**
    * Provide the output of the parser, given all the inputs it has been provided
    * so far. The content and format of this output is defined by individual
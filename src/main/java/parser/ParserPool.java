@@ -0,0 +1,67 @@
+package parser;
+
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.function.Supplier;
+
+/**
+ * A pool of parsers that are reset and reused instead of being created for every document.
+ * Each thread keeps the last parser it released, so that a thread parsing one document after
+ * another gets the same parser back without any synchronization. Other released parsers are
+ * kept in a bounded queue shared by all threads, and the pool creates a new parser when both
+ * are empty.
+ *
+ * @param <P> the type of the pooled parsers.
+ */
+public final class ParserPool<P extends JsonParser<?>> {
+
+  private final Supplier<? extends P> factory;
+  private final ThreadLocal<P> local;
+  private final ArrayBlockingQueue<P> shared;
+
+  /**
+   * Creates a pool.
+   *
+   * @param factory creates a parser when none is available.
+   * @param capacity the number of parsers kept for all threads, besides the one each thread
+   *                 keeps.
+   * @throws IllegalArgumentException if the capacity is not positive.
+   */
+  public ParserPool(Supplier<? extends P> factory, int capacity) {
+    this.factory = Objects.requireNonNull(factory);
+    this.local = new ThreadLocal<>();
+    this.shared = new ArrayBlockingQueue<>(capacity);
+  }
+
+  /**
+   * Takes a parser in its initial state. It belongs to the caller until it is released.
+   *
+   * @return a parser.
+   */
+  public P acquire() {
+    P parser = local.get();
+    if (parser != null) {
+      local.set(null);
+      return parser;
+    }
+    parser = shared.poll();
+    return parser != null ? parser : factory.get();
+  }
+
+  /**
+   * Resets a parser and returns it to the pool. It must not be used by the caller
+   * afterwards, but the outputs it has provided stay valid. A parser is dropped when the pool
+   * is full.
+   *
+   * @param parser a parser acquired from this pool.
+   * @throws UnsupportedOperationException if the parser cannot be reset.
+   */
+  public void release(P parser) {
+    parser.reset();
+    if (local.get() == null) {
+      local.set(parser);
+    } else {
+      shared.offer(parser);
+    }
+  }
+}
@@ -0,0 +1,20 @@
+package parser;
+
+/**
+ * The state of a {@link SnapshotParser} at some point of its input, captured by
+ * {@link SnapshotParser#snapshot()}. A snapshot is not changed by the input the parser handles
+ * afterwards, and any number of parsers can be forked from it, each continuing
+ * independently of the others.
+ *
+ * @param <T> the type of the output of the parser
+ */
+public interface ParserSnapshot<T> {
+
+  /**
+   * Creates a parser in the captured state, as if it had been provided the same input as
+   * the parser the snapshot was taken from.
+   *
+   * @return a new parser
+   */
+  SnapshotParser<T> fork();
+}
@@ -0,0 +1,28 @@
+package parser;
+
+/**
+ * A {@link JsonParser} whose state can be captured at any point of its input, so that
+ * other continuations of that input can be parsed without providing it again.
+ *
+ * @param <T> the type of the output of the parser
+ */
+public interface SnapshotParser<T> extends JsonParser<T> {
+
+  /**
+   * Capture the state of the parser. The state is shared with the snapshot instead of
+   * being copied, and the parser copies only what it changes later.
+   *
+   * @return the snapshot
+   */
+  ParserSnapshot<T> snapshot();
+
+  /**
+   * Create a parser that continues from the current state of this one, independently of
+   * it. This is the same as forking a {@link #snapshot()}.
+   *
+   * @return the new parser
+   */
+  default SnapshotParser<T> fork() {
+    return snapshot().fork();
+  }
+}
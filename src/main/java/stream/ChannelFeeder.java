@@ -0,0 +1,169 @@
+package stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import validator.DfaJsonValidator;
+
+/**
+ * Feeds a parser with UTF-8 bytes as they arrive, from buffers or from a channel, without
+ * ever waiting for more of them. Bytes are decoded into a reused character buffer that is
+ * handed to {@link JsonParser#input(char[], int, int)}, and a multi-byte sequence split
+ * across buffers is completed by the next one. A {@link DfaJsonValidator} reads the bytes
+ * directly instead, since it only decodes the characters outside of string values.
+ * Malformed sequences are handled as the replacement character.
+ *
+ * <p>With a channel in non-blocking mode, such as a socket channel or the source of a
+ * {@link java.nio.channels.Pipe}, {@link #read(ReadableByteChannel)} returns at once when
+ * no bytes are available, so it can be called whenever a selector reports the channel as
+ * readable.
+ *
+ * @param <T> the type of the output of the parser
+ */
+public class ChannelFeeder<T> {
+
+  /** The number of bytes read from a channel at a time. */
+  public static final int BUFFER_SIZE = 1 << 16;
+
+  private JsonParser<T> parser;
+  private final DfaJsonValidator direct;
+  private final CharsetDecoder decoder;
+  private final CharBuffer chars;
+  private final ByteBuffer carry;
+  private ByteBuffer bytes;
+
+  /**
+   * Constructs a feeder for a parser.
+   *
+   * @param parser the parser receiving the characters
+   */
+  public ChannelFeeder(JsonParser<T> parser) {
+    this.parser = Objects.requireNonNull(parser);
+    this.direct = parser instanceof DfaJsonValidator ? (DfaJsonValidator) parser : null;
+    this.decoder = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    this.chars = CharBuffer.allocate(JsonParser.CHUNK_SIZE);
+    this.carry = ByteBuffer.allocate(8);
+  }
+
+  /**
+   * Returns the parser, as returned by its last input.
+   *
+   * @return the parser
+   */
+  public JsonParser<T> parser() {
+    return parser;
+  }
+
+  /**
+   * Feeds the remaining bytes of a buffer to the parser, which are all consumed. The bytes
+   * of a multi-byte sequence that is not complete are kept until the next buffer.
+   *
+   * @param utf8 the buffer, whose position is moved to its limit
+   * @return the parser
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   */
+  public JsonParser<T> feed(ByteBuffer utf8) throws InvalidJsonException {
+    if (direct != null) {
+      direct.input(utf8);
+      return parser;
+    }
+    while (carry.position() > 0 && utf8.hasRemaining()) {
+      carry.put(utf8.get());
+      carry.flip();
+      decode(carry, false);
+      carry.compact();
+    }
+    decode(utf8, false);
+    carry.put(utf8);
+    return parser;
+  }
+
+  /**
+   * Reads the bytes that are available from a channel once, and feeds them to the parser.
+   * When the end of the stream is reached, the input is finished.
+   *
+   * @param channel the channel, which blocks only if it is in blocking mode
+   * @return the number of bytes read, possibly zero, or -1 at the end of the stream
+   * @throws IOException if the channel cannot be read
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   */
+  public int read(ReadableByteChannel channel) throws IOException, InvalidJsonException {
+    if (bytes == null) {
+      bytes = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+    bytes.clear();
+    int count = channel.read(bytes);
+    if (count < 0) {
+      finish();
+    } else if (count > 0) {
+      bytes.flip();
+      feed(bytes);
+    }
+    return count;
+  }
+
+  /**
+   * Ends the input, feeding the bytes of an incomplete sequence as the replacement
+   * character. The feeder can then be used for a new input.
+   *
+   * @return the parser
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   */
+  public JsonParser<T> finish() throws InvalidJsonException {
+    if (direct != null) {
+      direct.finishUtf8();
+      return parser;
+    }
+    try {
+      carry.flip();
+      decode(carry, true);
+      decoder.flush(chars);
+      flushChars();
+    } finally {
+      carry.clear();
+      decoder.reset();
+    }
+    return parser;
+  }
+
+  /**
+   * Decodes bytes and feeds the characters to the parser, leaving the bytes of an incomplete
+   * sequence in the buffer unless it is the end of the input.
+   *
+   * @param in the bytes
+   * @param endOfInput true if no bytes follow
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   */
+  private void decode(ByteBuffer in, boolean endOfInput) throws InvalidJsonException {
+    CoderResult result;
+    do {
+      result = decoder.decode(in, chars, endOfInput);
+      flushChars();
+    } while (result.isOverflow());
+  }
+
+  /**
+   * Feeds the decoded characters to the parser and empties the character buffer.
+   *
+   * @throws InvalidJsonException if the input causes the JSON to be invalid
+   */
+  private void flushChars() throws InvalidJsonException {
+    try {
+      if (chars.position() > 0) {
+        parser = parser.input(chars.array(), 0, chars.position());
+      }
+    } finally {
+      chars.clear();
+    }
+  }
+}
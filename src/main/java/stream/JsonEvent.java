@@ -0,0 +1,8 @@
+package stream;
+
+/**
+ * The events reported while JSON input is being parsed, in document order.
+ */
+public enum JsonEvent {
+  START_OBJECT, KEY, STRING, START_ARRAY, END_ARRAY, END_OBJECT
+}
@@ -0,0 +1,190 @@
+package stream;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import validator.ValidatorStatus;
+
+/**
+ * A pull-style view of the events of a {@link JsonEventParser}. Input is either provided
+ * through the methods of {@link JsonParser}, in which case {@link #next()} returns the
+ * events of the characters read so far, or read from a reader in chunks of
+ * {@link JsonParser#CHUNK_SIZE} characters as events are asked for. Only the events of the
+ * last chunk are kept, so memory does not grow with the size of the document.
+ */
+public class JsonEventCursor implements JsonParser<String> {
+
+  private final JsonEventParser parser;
+  private final Reader source;
+  private char[] chunk;
+  private boolean exhausted;
+  private JsonEvent[] events;
+  private String[] texts;
+  private int head;
+  private int count;
+  private JsonEvent event;
+  private String text;
+
+  /**
+   * Constructs a cursor over the input provided through the methods of {@link JsonParser}.
+   */
+  public JsonEventCursor() {
+    this(null);
+  }
+
+  /**
+   * Constructs a cursor that reads its input from a reader as events are asked for.
+   *
+   * @param source the reader, which is not closed by the cursor, or null to provide the
+   *               input through the methods of {@link JsonParser}
+   */
+  public JsonEventCursor(Reader source) {
+    this.parser = new JsonEventParser(this::enqueue);
+    this.source = source;
+    this.exhausted = source == null;
+    this.events = new JsonEvent[16];
+    this.texts = new String[16];
+  }
+
+  /**
+   * Queues an event reported by the parser.
+   *
+   * @param reported the event
+   * @param content the content of a key or a string, or null
+   */
+  private void enqueue(JsonEvent reported, CharSequence content) {
+    if (count == events.length) {
+      JsonEvent[] grownEvents = new JsonEvent[count * 2];
+      String[] grownTexts = new String[count * 2];
+      for (int i = 0; i < count; i++) {
+        grownEvents[i] = events[(head + i) % count];
+        grownTexts[i] = texts[(head + i) % count];
+      }
+      events = grownEvents;
+      texts = grownTexts;
+      head = 0;
+    }
+    int tail = (head + count) % events.length;
+    events[tail] = reported;
+    texts[tail] = content == null ? null : content.toString();
+    count++;
+  }
+
+  /**
+   * Moves to the next event. When the cursor reads from a reader, more characters are read
+   * until an event is complete or the reader is exhausted.
+   *
+   * @return the next event, or null if the input read so far has no more events
+   * @throws IOException if the reader fails
+   * @throws InvalidJsonException if the input is not adhering to valid JSON syntax
+   */
+  public JsonEvent next() throws IOException, InvalidJsonException {
+    while (count == 0 && !exhausted) {
+      if (chunk == null) {
+        chunk = new char[CHUNK_SIZE];
+      }
+      int read = source.read(chunk, 0, chunk.length);
+      if (read < 0) {
+        exhausted = true;
+      } else {
+        parser.input(chunk, 0, read);
+      }
+    }
+    if (count == 0) {
+      event = null;
+      text = null;
+      return null;
+    }
+    event = events[head];
+    text = texts[head];
+    events[head] = null;
+    texts[head] = null;
+    head = (head + 1) % events.length;
+    count--;
+    return event;
+  }
+
+  /**
+   * Returns the event the cursor is on.
+   *
+   * @return the event returned by the last call to {@link #next()}
+   */
+  public JsonEvent event() {
+    return event;
+  }
+
+  /**
+   * Returns the content of the key or string the cursor is on.
+   *
+   * @return the content, or null if the cursor is not on a key or a string
+   */
+  public String text() {
+    return text;
+  }
+
+  /**
+   * Returns the cursor to its initial state, discarding the events that have not been
+   * pulled. A cursor over a reader goes on reading from the current position of the reader.
+   */
+  @Override
+  public void reset() {
+    parser.reset();
+    Arrays.fill(events, null);
+    Arrays.fill(texts, null);
+    head = 0;
+    count = 0;
+    event = null;
+    text = null;
+    exhausted = source == null;
+  }
+
+  /**
+   * Processes a single character, queueing the event it completes if any.
+   *
+   * @param c the character that is currently being processed
+   * @return this cursor
+   * @throws InvalidJsonException if the input character is not adhering to valid JSON syntax
+   */
+  @Override
+  public JsonParser<String> input(char c) throws InvalidJsonException {
+    parser.input(c);
+    return this;
+  }
+
+  /**
+   * Processes a range of characters, queueing the events they complete.
+   *
+   * @param buf the buffer holding the characters to process
+   * @param off the index of the first character to process
+   * @param len the number of characters to process
+   * @return this cursor
+   * @throws InvalidJsonException if a character is not adhering to valid JSON syntax
+   */
+  @Override
+  public JsonParser<String> input(char[] buf, int off, int len) throws InvalidJsonException {
+    parser.input(buf, off, len);
+    return this;
+  }
+
+  /**
+   * Computes the status of the input read so far.
+   *
+   * @return the parsing status
+   */
+  public ValidatorStatus status() {
+    return parser.status();
+  }
+
+  /**
+   * Generates the status of the input read so far, in the same form as
+   * {@link validator.JsonValidator}.
+   *
+   * @return the parsing status
+   */
+  @Override
+  public String output() {
+    return parser.output();
+  }
+}
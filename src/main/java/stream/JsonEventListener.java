@@ -0,0 +1,18 @@
+package stream;
+
+/**
+ * Receives the events of a {@link JsonEventParser} as soon as the characters that complete
+ * them have been read.
+ */
+@FunctionalInterface
+public interface JsonEventListener {
+
+  /**
+   * Handles a single event.
+   *
+   * @param event the event
+   * @param text the content of a key or a string, or null for the other events. It is only
+   *             valid during the call, and has to be copied to be kept.
+   */
+  void onEvent(JsonEvent event, CharSequence text);
+}
@@ -0,0 +1,282 @@
+package stream;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import parser.ParserSnapshot;
+import parser.SnapshotParser;
+import validator.BracketStack;
+import validator.JsonGrammar;
+import validator.ValidatorStatus;
+
+/**
+ * Implements the JsonParser interface by reporting events to a listener instead of building
+ * a tree, so that documents of any size are processed in memory proportional to their
+ * nesting depth and their longest string.
+ * Like {@link validator.DfaJsonValidator}, it is driven by the tables of {@link JsonGrammar}
+ * and accepts and rejects the same input, and its output is the status of the input read so
+ * far. The events of a container are reported before it is known whether the rest of the
+ * input is valid, so a listener has to be ready for an {@link InvalidJsonException}.
+ * A snapshot shares the {@link BracketStack}, and the parsers forked from it report to the
+ * same listener.
+ * Like {@link validator.JsonValidator}, it has a multi-document mode for a sequence of
+ * objects.
+ */
+public class JsonEventParser implements SnapshotParser<String> {
+
+  private final JsonEventListener listener;
+  private int state;
+  private final BracketStack brackets;
+  private final StringBuilder text;
+  private final Consumer<String> documents;
+
+  /**
+   * Constructs a parser waiting for the opening curly brace.
+   *
+   * @param listener the listener receiving the events
+   */
+  public JsonEventParser(JsonEventListener listener) {
+    this(Objects.requireNonNull(listener), null, JsonGrammar.START, new BracketStack(),
+            new StringBuilder());
+  }
+
+  /**
+   * Constructs a parser in multi-document mode. As soon as the closing brace of an object
+   * is read, the listener receives its last event, the consumer receives its status, and
+   * the parser returns to its initial state in place, ready for the next object.
+   *
+   * @param listener the listener receiving the events
+   * @param documents the consumer of the status of each complete object
+   */
+  public JsonEventParser(JsonEventListener listener, Consumer<String> documents) {
+    this(Objects.requireNonNull(listener), Objects.requireNonNull(documents), JsonGrammar.START,
+            new BracketStack(), new StringBuilder());
+  }
+
+  /**
+   * Constructs a parser in the state captured by a snapshot.
+   *
+   * @param snapshot the snapshot
+   */
+  private JsonEventParser(Snapshot snapshot) {
+    this(snapshot.listener, snapshot.documents, snapshot.state, snapshot.brackets.share(),
+            new StringBuilder(snapshot.text));
+  }
+
+  /**
+   * Constructs a parser in the given state.
+   *
+   * @param listener the listener receiving the events
+   * @param documents the consumer of the status of each complete object, or null outside of
+   *                  multi-document mode
+   * @param state the current state
+   * @param brackets the bracket stack
+   * @param text the content of the string being read
+   */
+  private JsonEventParser(JsonEventListener listener, Consumer<String> documents, int state,
+                          BracketStack brackets, StringBuilder text) {
+    this.listener = listener;
+    this.documents = documents;
+    this.state = state;
+    this.brackets = brackets;
+    this.text = text;
+  }
+
+  /**
+   * Returns the parser to its initial state, keeping its listener, bracket stack and string
+   * buffer.
+   */
+  @Override
+  public void reset() {
+    state = JsonGrammar.START;
+    brackets.reset();
+    text.setLength(0);
+  }
+
+  /**
+   * Processes a single character, reporting the event it completes if any. Nothing is done
+   * once the input has been found invalid.
+   *
+   * @param c the character that is currently being processed
+   * @return this parser
+   * @throws InvalidJsonException if the input character is not adhering to valid JSON syntax
+   */
+  @Override
+  public JsonParser<String> input(char c) throws InvalidJsonException {
+    if (!brackets.invalid()) {
+      state = step(state, c);
+    }
+    return this;
+  }
+
+  /**
+   * Processes a range of characters. Runs of string characters are copied at once instead
+   * of one at a time.
+   *
+   * @param buf the buffer holding the characters to process
+   * @param off the index of the first character to process
+   * @param len the number of characters to process
+   * @return this parser
+   * @throws InvalidJsonException if a character is not adhering to valid JSON syntax
+   */
+  @Override
+  public JsonParser<String> input(char[] buf, int off, int len) throws InvalidJsonException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (brackets.invalid()) {
+      return this;
+    }
+    int end = off + len;
+    int current = state;
+    try {
+      for (int i = off; i < end; i++) {
+        if (current == JsonGrammar.STRING) {
+          int start = i;
+          while (i < end && buf[i] != '"') {
+            i++;
+          }
+          text.append(buf, start, i - start);
+          if (i == end) {
+            break;
+          }
+        }
+        current = step(current, buf[i]);
+      }
+    } finally {
+      state = current;
+    }
+    return this;
+  }
+
+  /**
+   * Moves to the next state for a single character and reports the event it completes.
+   *
+   * @param current the current state
+   * @param c the character
+   * @return the next state
+   * @throws InvalidJsonException if the character is not adhering to valid JSON syntax
+   */
+  private int step(int current, char c) throws InvalidJsonException {
+    int entry = JsonGrammar.transition(current, JsonGrammar.classOf(c));
+    int next = JsonGrammar.nextState(entry);
+    switch (JsonGrammar.action(entry)) {
+      case JsonGrammar.NONE:
+        if (next == JsonGrammar.STRING || next == JsonGrammar.KEY) {
+          text.append(c);
+        }
+        break;
+      case JsonGrammar.BEGIN_KEY:
+      case JsonGrammar.BEGIN_STRING:
+        text.setLength(0);
+        break;
+      case JsonGrammar.END_KEY:
+        // The grammar also reads a string right after a closed object as a key, which is
+        // only a key when the enclosing container is an object.
+        listener.onEvent(brackets.inObject() ? JsonEvent.KEY : JsonEvent.STRING, text);
+        break;
+      case JsonGrammar.END_STRING:
+        listener.onEvent(JsonEvent.STRING, text);
+        break;
+      case JsonGrammar.PUSH_OBJECT:
+        brackets.push(true);
+        listener.onEvent(JsonEvent.START_OBJECT, null);
+        break;
+      case JsonGrammar.PUSH_ARRAY:
+        brackets.push(false);
+        listener.onEvent(JsonEvent.START_ARRAY, null);
+        break;
+      case JsonGrammar.POP_OBJECT:
+        brackets.pop(true);
+        listener.onEvent(JsonEvent.END_OBJECT, null);
+        if (brackets.depth() == 0 && documents != null) {
+          documents.accept(ValidatorStatus.VALID.text());
+          return JsonGrammar.START;
+        }
+        break;
+      case JsonGrammar.POP_ARRAY:
+        brackets.pop(false);
+        listener.onEvent(JsonEvent.END_ARRAY, null);
+        break;
+      case JsonGrammar.SEPARATOR:
+        return brackets.separate();
+      default:
+        throw brackets.fail(JsonGrammar.message(entry));
+    }
+    return next;
+  }
+
+  /**
+   * Returns the number of containers that are open.
+   *
+   * @return the nesting depth
+   */
+  public int depth() {
+    return brackets.depth();
+  }
+
+  /**
+   * Computes the status of the input provided so far.
+   *
+   * @return the parsing status
+   */
+  public ValidatorStatus status() {
+    return brackets.status(state);
+  }
+
+  /**
+   * Generates the status of the given input, in the same form as
+   * {@link validator.JsonValidator}.
+   *
+   * @return the parsing status
+   */
+  @Override
+  public String output() {
+    return status().text();
+  }
+
+  /**
+   * Captures the state of the parser, sharing its bracket stack. Only the characters of an
+   * unfinished string or key are copied.
+   *
+   * @return the snapshot
+   */
+  @Override
+  public ParserSnapshot<String> snapshot() {
+    return new Snapshot(this);
+  }
+
+  /**
+   * The state of a parser, from which parsers are forked.
+   */
+  private static final class Snapshot implements ParserSnapshot<String> {
+
+    private final JsonEventListener listener;
+    private final Consumer<String> documents;
+    private final int state;
+    private final BracketStack brackets;
+    private final String text;
+
+    /**
+     * Captures the state of a parser.
+     *
+     * @param parser the parser
+     */
+    Snapshot(JsonEventParser parser) {
+      listener = parser.listener;
+      documents = parser.documents;
+      state = parser.state;
+      brackets = parser.brackets.share();
+      text = parser.text.toString();
+    }
+
+    /**
+     * Creates a parser in the captured state.
+     *
+     * @return the parser
+     */
+    @Override
+    public SnapshotParser<String> fork() {
+      return new JsonEventParser(this);
+    }
+  }
+}
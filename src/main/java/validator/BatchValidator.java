@@ -0,0 +1,270 @@
+package validator;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import parser.InvalidJsonException;
+
+/**
+ * Validates many independent inputs concurrently. A batch is split between a bounded number
+ * of workers that take the next input as soon as they are done with the previous one, so
+ * that a few large inputs do not hold the others back. Each worker reuses a single
+ * {@link DfaJsonValidator} and read buffer for all of its inputs, and writes its results at
+ * the position of their inputs, which keeps them in the original order.
+ *
+ * <p>The workers run on virtual threads when the runtime provides them, and on a
+ * {@link ForkJoinPool} otherwise.
+ */
+public class BatchValidator {
+
+  /** Files larger than this are mapped into memory instead of being read into the buffer. */
+  static final long MAP_THRESHOLD = 1L << 20;
+
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final Method VIRTUAL_THREADS = virtualThreads();
+
+  private final int parallelism;
+
+  /**
+   * Constructs a batch validator with one worker per available processor.
+   */
+  public BatchValidator() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Constructs a batch validator.
+   *
+   * @param parallelism the largest number of inputs validated at once
+   * @throws IllegalArgumentException if the parallelism is not positive
+   */
+  public BatchValidator(int parallelism) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("invalid parallelism: " + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * The outcome of validating a file, which is either a status or the error that prevented
+   * reading the file.
+   */
+  public static final class Result {
+
+    private final ValidatorStatus status;
+    private final IOException error;
+
+    /**
+     * Constructs a result.
+     *
+     * @param status the status of the file, or null if it could not be read
+     * @param error the error reading the file, or null if it was read
+     */
+    Result(ValidatorStatus status, IOException error) {
+      this.status = status;
+      this.error = error;
+    }
+
+    /**
+     * Returns the status of the content of the file.
+     *
+     * @return the status, or null if the file could not be read
+     */
+    public ValidatorStatus status() {
+      return status;
+    }
+
+    /**
+     * Returns the error that prevented reading the file.
+     *
+     * @return the error, or null if the file was read
+     */
+    public IOException error() {
+      return error;
+    }
+  }
+
+  /**
+   * Validates UTF-8 encoded JSON files. A file that cannot be read does not stop the others.
+   *
+   * @param files the files to validate
+   * @return the result of each file, in the iteration order of the files
+   * @throws InterruptedException if the thread is interrupted while waiting for the workers
+   */
+  public List<Result> validateFiles(Collection<Path> files) throws InterruptedException {
+    Path[] inputs = files.toArray(new Path[0]);
+    Result[] results = new Result[inputs.length];
+    MappedFileValidator mapped = new MappedFileValidator();
+    run(inputs.length, (validator, buffer, i) -> {
+      try {
+        results[i] = new Result(check(inputs[i], validator, buffer, mapped), null);
+      } catch (IOException e) {
+        results[i] = new Result(null, e);
+      }
+    });
+    return Arrays.asList(results);
+  }
+
+  /**
+   * Validates UTF-8 encoded JSON held in buffers. Each buffer is read from its position to
+   * its limit, which are left unchanged.
+   *
+   * @param sources the buffers to validate
+   * @return the status of each buffer, in the iteration order of the buffers
+   * @throws InterruptedException if the thread is interrupted while waiting for the workers
+   */
+  public List<ValidatorStatus> validateBuffers(Collection<ByteBuffer> sources)
+          throws InterruptedException {
+    ByteBuffer[] inputs = sources.toArray(new ByteBuffer[0]);
+    ValidatorStatus[] results = new ValidatorStatus[inputs.length];
+    run(inputs.length, (validator, buffer, i) -> {
+      validator.reset();
+      results[i] = finish(validator, inputs[i].duplicate());
+    });
+    return Arrays.asList(results);
+  }
+
+  /**
+   * The work done for one input by a worker.
+   */
+  private interface Task {
+
+    /**
+     * Validates an input.
+     *
+     * @param validator the validator of the worker
+     * @param buffer the read buffer of the worker
+     * @param index the position of the input
+     */
+    void run(DfaJsonValidator validator, ByteBuffer buffer, int index);
+  }
+
+  /**
+   * Runs a task for each input on the workers and waits for all of them.
+   *
+   * @param count the number of inputs
+   * @param task the task
+   * @throws InterruptedException if the thread is interrupted while waiting for the workers
+   */
+  private void run(int count, Task task) throws InterruptedException {
+    AtomicInteger next = new AtomicInteger();
+    int workers = Math.min(parallelism, count);
+    ExecutorService executor = newExecutor();
+    try {
+      List<Future<?>> futures = new ArrayList<>(workers);
+      for (int w = 0; w < workers; w++) {
+        futures.add(executor.submit(() -> {
+          DfaJsonValidator validator = new DfaJsonValidator();
+          ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+          for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+            task.run(validator, buffer, i);
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw (RuntimeException) cause;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Validates a file, reading it into the buffer unless it is large enough to be mapped.
+   *
+   * @param file the file
+   * @param validator the validator, which is reset first
+   * @param buffer the read buffer
+   * @param mapped the validator of large files
+   * @return the status of the content of the file
+   * @throws IOException if the file cannot be read
+   */
+  private static ValidatorStatus check(Path file, DfaJsonValidator validator, ByteBuffer buffer,
+                                       MappedFileValidator mapped) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > MAP_THRESHOLD) {
+        return mapped.check(file, validator);
+      }
+      validator.reset();
+      buffer.clear();
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        try {
+          validator.input(buffer);
+        } catch (InvalidJsonException e) {
+          return ValidatorStatus.INVALID;
+        }
+        buffer.clear();
+      }
+    }
+    return finish(validator, null);
+  }
+
+  /**
+   * Provides the last bytes of an input and returns its status.
+   *
+   * @param validator the validator
+   * @param utf8 the last bytes, or null if they have all been provided
+   * @return the status of the input
+   */
+  private static ValidatorStatus finish(DfaJsonValidator validator, ByteBuffer utf8) {
+    try {
+      if (utf8 != null) {
+        validator.input(utf8);
+      }
+      validator.finishUtf8();
+    } catch (InvalidJsonException e) {
+      return ValidatorStatus.INVALID;
+    }
+    return validator.status();
+  }
+
+  /**
+   * Creates the executor of a batch.
+   *
+   * @return an executor starting a virtual thread per task if the runtime supports them, or
+   *         a pool with as many threads as the parallelism
+   */
+  private ExecutorService newExecutor() {
+    if (VIRTUAL_THREADS != null) {
+      try {
+        return (ExecutorService) VIRTUAL_THREADS.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        // Fall back to platform threads.
+      }
+    }
+    return new ForkJoinPool(parallelism);
+  }
+
+  /**
+   * Looks up the factory of virtual thread executors, which exists from Java 21 on.
+   *
+   * @return the factory method, or null if the runtime has no virtual threads
+   */
+  private static Method virtualThreads() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
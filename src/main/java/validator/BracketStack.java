@@ -0,0 +1,163 @@
+package validator;
+
+import java.util.Arrays;
+import parser.InvalidJsonException;
+
+/**
+ * The stack of open brackets of a parser driven by the tables of {@link JsonGrammar}, which
+ * leave the brackets to the caller. It checks that every closing bracket matches the opening
+ * one, tells where a comma leads, and remembers whether the input has been found invalid, so
+ * that the status of the input follows from the state of the grammar.
+ * A stack can be shared with a snapshot, in which case the array of brackets is copied
+ * before the next opening bracket is pushed onto it.
+ */
+public final class BracketStack {
+
+  private static final byte OPEN_OBJECT = 0;
+  private static final byte OPEN_ARRAY = 1;
+
+  private byte[] brackets;
+  private boolean shared;
+  private int depth;
+  private boolean invalid;
+
+  /**
+   * Constructs an empty stack.
+   */
+  public BracketStack() {
+    brackets = new byte[16];
+    depth = 0;
+    invalid = false;
+  }
+
+  /**
+   * Constructs a stack that shares the brackets of another one.
+   *
+   * @param other the stack to share
+   */
+  private BracketStack(BracketStack other) {
+    brackets = other.brackets;
+    shared = true;
+    depth = other.depth;
+    invalid = other.invalid;
+  }
+
+  /**
+   * Empties the stack and forgets that the input was invalid, keeping the array of brackets.
+   */
+  public void reset() {
+    depth = 0;
+    invalid = false;
+  }
+
+  /**
+   * Creates a stack with the same brackets, for a snapshot or a parser forked from one.
+   * Neither stack changes the brackets of the other.
+   *
+   * @return the new stack
+   */
+  public BracketStack share() {
+    shared = true;
+    return new BracketStack(this);
+  }
+
+  /**
+   * Pushes an opening bracket, growing the stack when it is full and copying it when it is
+   * shared.
+   *
+   * @param object true for a curly brace, false for a square bracket
+   */
+  public void push(boolean object) {
+    if (depth == brackets.length || shared) {
+      brackets = Arrays.copyOf(brackets, depth == brackets.length ? depth * 2 : brackets.length);
+      shared = false;
+    }
+    brackets[depth++] = object ? OPEN_OBJECT : OPEN_ARRAY;
+  }
+
+  /**
+   * Pops an opening bracket and checks that it matches the closing one.
+   *
+   * @param object true for a closing curly brace, false for a closing square bracket
+   * @throws InvalidJsonException if there is no open bracket or it does not match
+   */
+  public void pop(boolean object) throws InvalidJsonException {
+    if (depth == 0 || brackets[--depth] != (object ? OPEN_OBJECT : OPEN_ARRAY)) {
+      throw fail(JsonGrammar.BRACKET_MISMATCH);
+    }
+  }
+
+  /**
+   * Returns the state that follows a comma, which depends on the innermost open bracket.
+   *
+   * @return {@link JsonGrammar#OBJECT} inside an object, {@link JsonGrammar#VALUE} inside an
+   *         array
+   * @throws InvalidJsonException if no bracket is open
+   */
+  public int separate() throws InvalidJsonException {
+    if (depth == 0) {
+      throw fail(JsonGrammar.NOTHING_TO_SEPARATE);
+    }
+    return brackets[depth - 1] == OPEN_OBJECT ? JsonGrammar.OBJECT : JsonGrammar.VALUE;
+  }
+
+  /**
+   * Checks whether the innermost open bracket is a curly brace.
+   *
+   * @return true inside an object, false inside an array or outside of every bracket
+   */
+  public boolean inObject() {
+    return depth > 0 && brackets[depth - 1] == OPEN_OBJECT;
+  }
+
+  /**
+   * Returns the number of brackets that are open.
+   *
+   * @return the nesting depth
+   */
+  public int depth() {
+    return depth;
+  }
+
+  /**
+   * Checks whether the input has been found invalid.
+   *
+   * @return true once the input is invalid
+   */
+  public boolean invalid() {
+    return invalid;
+  }
+
+  /**
+   * Marks the input as invalid.
+   *
+   * @param message the reason the input is invalid
+   * @return the exception to throw
+   */
+  public InvalidJsonException fail(String message) {
+    invalid = true;
+    return new InvalidJsonException(message);
+  }
+
+  /**
+   * Marks the input as invalid for a reason that is reported some other way.
+   */
+  public void invalidate() {
+    invalid = true;
+  }
+
+  /**
+   * Computes the status of the input read so far.
+   *
+   * @param state the current state of the grammar
+   * @return the parsing status
+   */
+  public ValidatorStatus status(int state) {
+    if (invalid) {
+      return ValidatorStatus.INVALID;
+    } else if (state == JsonGrammar.START) {
+      return ValidatorStatus.EMPTY;
+    }
+    return depth == 0 ? ValidatorStatus.VALID : ValidatorStatus.INCOMPLETE;
+  }
+}
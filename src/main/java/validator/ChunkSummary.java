@@ -0,0 +1,446 @@
+package validator;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What a chunk of a document does to the state of a {@link DfaJsonValidator}, computed
+ * without knowing what came before the chunk. The chunk is run from each state of the
+ * grammar. The brackets left open by the previous chunks are unknown, so popping one of
+ * them records the kind it must have, and reading the kind of one after a comma follows
+ * both kinds as separate branches. A branch that meets an error is dropped, since the
+ * document is invalid whenever the brackets that were open match it.
+ *
+ * <p>Once the state and brackets before the chunk are known, the branch that matches them
+ * gives the state and brackets after it, exactly as if the validator had read the chunk.
+ * A chunk whose branches grow past {@link #MAX_BRANCHES} from some state is read again from
+ * that state when it is reached instead.
+ */
+final class ChunkSummary {
+
+  /** The number of branches from one state above which a chunk is read again instead. */
+  static final int MAX_BRANCHES = 64;
+
+  private static final byte OPEN_OBJECT = 0;
+  private static final byte OPEN_ARRAY = 1;
+  private static final int UNKNOWN = 2;
+  private static final int DEAD = -1;
+
+  private final char[] chars;
+  private final ByteBuffer bytes;
+  private final int from;
+  private final int to;
+  private final Branch[][] outcomes;
+  private final ArrayDeque<Branch> pending;
+  private int created;
+
+  /**
+   * Wraps a chunk of characters or UTF-8 bytes.
+   *
+   * @param chars the characters, or null
+   * @param bytes the bytes, or null
+   * @param from the index of the first character or byte of the chunk
+   * @param to the index just past the chunk
+   */
+  private ChunkSummary(char[] chars, ByteBuffer bytes, int from, int to) {
+    this.chars = chars;
+    this.bytes = bytes;
+    this.from = from;
+    this.to = to;
+    this.outcomes = new Branch[JsonGrammar.STATE_COUNT][];
+    this.pending = new ArrayDeque<>();
+  }
+
+  /**
+   * Summarizes a chunk of characters.
+   *
+   * @param buf the characters, which must not change while the summary is used
+   * @param from the index of the first character of the chunk
+   * @param to the index just past the chunk
+   * @param first true for the chunk that starts the document, which is only run from the
+   *              initial state
+   * @return the summary
+   */
+  static ChunkSummary of(char[] buf, int from, int to, boolean first) {
+    ChunkSummary summary = new ChunkSummary(buf, null, from, to);
+    summary.summarize(first);
+    return summary;
+  }
+
+  /**
+   * Summarizes a chunk of UTF-8 bytes that starts at the beginning of a character, and ends
+   * at the beginning of another one or at the end of the document.
+   *
+   * @param buf the bytes, which must not change while the summary is used
+   * @param from the index of the first byte of the chunk
+   * @param to the index just past the chunk
+   * @param first true for the chunk that starts the document, which is only run from the
+   *              initial state
+   * @return the summary
+   */
+  static ChunkSummary of(ByteBuffer buf, int from, int to, boolean first) {
+    ChunkSummary summary = new ChunkSummary(null, buf, from, to);
+    summary.summarize(first);
+    return summary;
+  }
+
+  /**
+   * Computes the branches of the chunk from each state.
+   *
+   * @param first true to only run the chunk from the initial state with no open brackets
+   */
+  private void summarize(boolean first) {
+    if (first) {
+      Branch branch = new Branch(JsonGrammar.START, from, true, new byte[16], 0);
+      outcomes[JsonGrammar.START] = run(branch) ? new Branch[] {branch} : new Branch[0];
+      return;
+    }
+    for (int state = 0; state < JsonGrammar.STATE_COUNT; state++) {
+      outcomes[state] = explore(state);
+    }
+  }
+
+  /**
+   * Runs the chunk from a state with unknown open brackets.
+   *
+   * @param state the state
+   * @return the branches that reach the end of the chunk, or null if there are too many
+   */
+  private Branch[] explore(int state) {
+    List<Branch> survivors = new ArrayList<>();
+    pending.add(new Branch(state, from, false, new byte[16], 0));
+    created = 1;
+    while (!pending.isEmpty()) {
+      Branch branch = pending.poll();
+      if (run(branch)) {
+        survivors.add(branch);
+      }
+      if (created > MAX_BRANCHES) {
+        pending.clear();
+        return null;
+      }
+    }
+    return survivors.toArray(new Branch[0]);
+  }
+
+  /**
+   * Runs a branch from its position to the end of the chunk.
+   *
+   * @param branch the branch
+   * @return true if it reaches the end of the chunk, false if it meets an error
+   */
+  private boolean run(Branch branch) {
+    int current = branch.state;
+    if (chars != null) {
+      for (int i = branch.position; i < to && current != DEAD; i++) {
+        if (current == JsonGrammar.STRING) {
+          while (i < to && chars[i] != '"') {
+            i++;
+          }
+          if (i == to) {
+            break;
+          }
+        }
+        current = step(branch, current, chars[i], i + 1);
+      }
+    } else {
+      for (int i = branch.position; i < to && current != DEAD; i++) {
+        if (current == JsonGrammar.STRING) {
+          i = StructuralIndexer.nextQuote(bytes, i, to);
+          if (i == to) {
+            break;
+          }
+        }
+        current = stepByte(branch, current, bytes.get(i), i + 1);
+      }
+      if (branch.decoder.finish() && current != DEAD) {
+        current = step(branch, current, '\uFFFD', to);
+      }
+    }
+    branch.state = current;
+    return current != DEAD;
+  }
+
+  /**
+   * Handles a single UTF-8 byte outside of a string value, like
+   * {@link DfaJsonValidator#input(ByteBuffer)}.
+   *
+   * @param branch the branch
+   * @param current the current state
+   * @param b the byte
+   * @param resume the index after the byte
+   * @return the next state, or {@link #DEAD}
+   */
+  private int stepByte(Branch branch, int current, byte b, int resume) {
+    if (branch.decoder.interrupts(b)) {
+      current = step(branch, current, '\uFFFD', resume);
+      if (current == DEAD) {
+        return DEAD;
+      }
+    }
+    int codePoint = branch.decoder.decode(b);
+    if (codePoint == Utf8Decoder.MORE) {
+      return current;
+    } else if (Character.isBmpCodePoint(codePoint)) {
+      return step(branch, current, (char) codePoint, resume);
+    }
+    int next = step(branch, current, Character.highSurrogate(codePoint), resume);
+    return next == DEAD ? DEAD : step(branch, next, Character.lowSurrogate(codePoint), resume);
+  }
+
+  /**
+   * Moves a branch to the next state for a single character. Reading the kind of an unknown
+   * bracket continues this branch with an object and queues a copy with an array.
+   *
+   * @param branch the branch
+   * @param current the current state
+   * @param c the character
+   * @param resume the index after the character, where a copy continues
+   * @return the next state, or {@link #DEAD}
+   */
+  private int step(Branch branch, int current, char c, int resume) {
+    int entry = JsonGrammar.transition(current, JsonGrammar.classOf(c));
+    switch (JsonGrammar.action(entry)) {
+      case JsonGrammar.PUSH_OBJECT:
+        branch.push(OPEN_OBJECT);
+        break;
+      case JsonGrammar.PUSH_ARRAY:
+        branch.push(OPEN_ARRAY);
+        break;
+      case JsonGrammar.POP_OBJECT:
+        if (!branch.pop(OPEN_OBJECT)) {
+          return DEAD;
+        }
+        break;
+      case JsonGrammar.POP_ARRAY:
+        if (!branch.pop(OPEN_ARRAY)) {
+          return DEAD;
+        }
+        break;
+      case JsonGrammar.SEPARATOR:
+        int top = branch.top();
+        if (top == UNKNOWN) {
+          Branch copy = branch.copy(JsonGrammar.VALUE, resume);
+          copy.require(OPEN_ARRAY);
+          pending.add(copy);
+          created++;
+          branch.require(OPEN_OBJECT);
+          return JsonGrammar.OBJECT;
+        }
+        return top == DEAD ? DEAD : top == OPEN_OBJECT ? JsonGrammar.OBJECT : JsonGrammar.VALUE;
+      case JsonGrammar.ERROR:
+        return DEAD;
+      default:
+        break;
+    }
+    return JsonGrammar.nextState(entry);
+  }
+
+  /**
+   * Finds the branch taken when the chunk is reached in a state with some brackets open.
+   *
+   * @param state the state before the chunk
+   * @param stack the kinds of the open brackets, innermost last
+   * @param depth the number of open brackets
+   * @return the branch, which has no unknown brackets if the chunk was read again, or null
+   *         if the chunk makes the document invalid
+   */
+  private Branch follow(int state, byte[] stack, int depth) {
+    Branch[] branches = outcomes[state];
+    if (branches == null) {
+      Branch branch = new Branch(state, from, true, Arrays.copyOf(stack, stack.length), depth);
+      return run(branch) ? branch : null;
+    }
+    for (Branch branch : branches) {
+      if (branch.matches(stack, depth)) {
+        return branch;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Computes the status of a document from the summaries of its chunks.
+   */
+  static final class Combiner {
+
+    private int state = JsonGrammar.START;
+    private boolean invalid;
+    private byte[] stack = new byte[16];
+    private int depth;
+
+    /**
+     * Moves past the next chunk of the document.
+     *
+     * @param chunk the summary of the chunk
+     * @return false if the document is invalid
+     */
+    boolean add(ChunkSummary chunk) {
+      if (invalid) {
+        return false;
+      }
+      Branch branch = chunk.follow(state, stack, depth);
+      if (branch == null) {
+        invalid = true;
+        return false;
+      }
+      if (branch.closed) {
+        stack = branch.local;
+        depth = branch.depth;
+      } else {
+        depth -= branch.popped;
+        if (depth + branch.depth > stack.length) {
+          stack = Arrays.copyOf(stack, Math.max(stack.length * 2, depth + branch.depth));
+        }
+        System.arraycopy(branch.local, 0, stack, depth, branch.depth);
+        depth += branch.depth;
+      }
+      state = branch.state;
+      return true;
+    }
+
+    /**
+     * Computes the status of the chunks added so far, like {@link DfaJsonValidator#status()}.
+     *
+     * @return the status
+     */
+    ValidatorStatus status() {
+      if (invalid) {
+        return ValidatorStatus.INVALID;
+      } else if (state == JsonGrammar.START) {
+        return ValidatorStatus.EMPTY;
+      }
+      return depth == 0 ? ValidatorStatus.VALID : ValidatorStatus.INCOMPLETE;
+    }
+  }
+
+  /**
+   * A way through the chunk: its state, the brackets it opened and has not closed, and what
+   * it assumed about the brackets open before the chunk.
+   */
+  private static final class Branch {
+
+    int state;
+    int position;
+    final boolean closed;
+    byte[] local;
+    int depth;
+    byte[] need;
+    int needCount;
+    int popped;
+    final Utf8Decoder decoder;
+
+    /**
+     * Creates a branch.
+     *
+     * @param state the state it starts in
+     * @param position the index it starts at
+     * @param closed true if the brackets open before the chunk are known and in local
+     * @param local the brackets it starts with
+     * @param depth the number of brackets it starts with
+     */
+    Branch(int state, int position, boolean closed, byte[] local, int depth) {
+      this.state = state;
+      this.position = position;
+      this.closed = closed;
+      this.local = local;
+      this.depth = depth;
+      this.need = new byte[4];
+      this.decoder = new Utf8Decoder();
+    }
+
+    /**
+     * Copies the branch at a comma, where it has no brackets of its own.
+     *
+     * @param next the state of the copy
+     * @param resume the index the copy continues at
+     * @return the copy
+     */
+    Branch copy(int next, int resume) {
+      Branch copy = new Branch(next, resume, closed, new byte[16], 0);
+      copy.need = Arrays.copyOf(need, need.length);
+      copy.needCount = needCount;
+      copy.popped = popped;
+      return copy;
+    }
+
+    /**
+     * Opens a bracket.
+     *
+     * @param bracket its kind
+     */
+    void push(byte bracket) {
+      if (depth == local.length) {
+        local = Arrays.copyOf(local, depth * 2);
+      }
+      local[depth++] = bracket;
+    }
+
+    /**
+     * Closes the innermost bracket, which is assumed to match when it was opened before the
+     * chunk and its kind is unknown.
+     *
+     * @param expected the kind it has to be
+     * @return false if it does not match or there is none
+     */
+    boolean pop(byte expected) {
+      if (depth > 0) {
+        return local[--depth] == expected;
+      } else if (closed) {
+        return false;
+      } else if (needCount == popped) {
+        require(expected);
+      }
+      return need[popped++] == expected;
+    }
+
+    /**
+     * Returns the kind of the innermost bracket.
+     *
+     * @return its kind, {@link #UNKNOWN} if it was opened before the chunk and its kind has
+     *         not been assumed yet, or {@link #DEAD} if there is none
+     */
+    int top() {
+      if (depth > 0) {
+        return local[depth - 1];
+      } else if (closed) {
+        return DEAD;
+      }
+      return needCount > popped ? need[popped] : UNKNOWN;
+    }
+
+    /**
+     * Assumes the kind of the innermost bracket opened before the chunk that is still open.
+     *
+     * @param bracket its kind
+     */
+    void require(byte bracket) {
+      if (needCount == need.length) {
+        need = Arrays.copyOf(need, needCount * 2);
+      }
+      need[needCount++] = bracket;
+    }
+
+    /**
+     * Checks whether the brackets open before the chunk are the ones this branch assumed.
+     *
+     * @param stack the kinds of the open brackets, innermost last
+     * @param open the number of open brackets
+     * @return true if they match
+     */
+    boolean matches(byte[] stack, int open) {
+      if (open < needCount) {
+        return false;
+      }
+      for (int i = 0; i < needCount; i++) {
+        if (stack[open - 1 - i] != need[i]) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -0,0 +1,315 @@
+package validator;
+
+import java.nio.ByteBuffer;
+import java.util.Objects;
+import java.util.function.Consumer;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import parser.ParserSnapshot;
+import parser.SnapshotParser;
+
+/**
+ * Implements the JsonParser interface with the tables of {@link JsonGrammar}.
+ * This accepts and rejects exactly the same input as {@link JsonValidator}, but each
+ * character costs a table lookup for its class and another one for the transition, the
+ * brackets are kept in a {@link BracketStack} and the status is only computed when it is
+ * asked for.
+ * Input can also be provided as UTF-8 bytes, in which case only the characters outside of
+ * string values are decoded.
+ * A snapshot shares the bracket stack.
+ * Like {@link JsonValidator}, it has a multi-document mode for a sequence of objects.
+ */
+public class DfaJsonValidator implements SnapshotParser<String> {
+
+  private int state;
+  private final BracketStack brackets;
+  private final Utf8Decoder decoder;
+  private final Consumer<String> documents;
+
+  /**
+   * Constructs a new instance of the DfaJsonValidator class, waiting for the opening
+   * curly brace.
+   */
+  public DfaJsonValidator() {
+    this(null, new BracketStack(), new Utf8Decoder(), JsonGrammar.START);
+  }
+
+  /**
+   * Constructs a validator in multi-document mode. As soon as the closing brace of an
+   * object is read, its status is given to the consumer and the validator returns to its
+   * initial state in place, ready for the next object.
+   *
+   * @param documents the consumer of the status of each complete object
+   */
+  public DfaJsonValidator(Consumer<String> documents) {
+    this(Objects.requireNonNull(documents), new BracketStack(), new Utf8Decoder(),
+            JsonGrammar.START);
+  }
+
+  /**
+   * Constructs a validator in the state captured by a snapshot.
+   *
+   * @param snapshot the snapshot
+   */
+  private DfaJsonValidator(Snapshot snapshot) {
+    this(snapshot.documents, snapshot.brackets.share(), new Utf8Decoder(snapshot.decoder),
+            snapshot.state);
+  }
+
+  /**
+   * Constructs a validator in the given state.
+   *
+   * @param documents the consumer of the status of each complete object, or null outside of
+   *                  multi-document mode
+   * @param brackets the bracket stack
+   * @param decoder the decoder of the bytes of a character split across buffers
+   * @param state the current state
+   */
+  private DfaJsonValidator(Consumer<String> documents, BracketStack brackets,
+                           Utf8Decoder decoder, int state) {
+    this.documents = documents;
+    this.brackets = brackets;
+    this.decoder = decoder;
+    this.state = state;
+  }
+
+  /**
+   * Returns the validator to its initial state, keeping its bracket stack.
+   */
+  @Override
+  public void reset() {
+    state = JsonGrammar.START;
+    brackets.reset();
+    decoder.reset();
+  }
+
+  /**
+   * Moves to the next state for a single character. Nothing is done once the input has
+   * been found invalid.
+   *
+   * @param c the character that is currently being processed
+   * @return this validator
+   * @throws InvalidJsonException if the input character is not adhering to valid JSON syntax
+   */
+  @Override
+  public JsonParser<String> input(char c) throws InvalidJsonException {
+    if (!brackets.invalid()) {
+      state = step(state, c);
+    }
+    return this;
+  }
+
+  /**
+   * Moves through the states for a range of characters. The characters of a string value
+   * are skipped until its closing quote.
+   *
+   * @param buf the buffer holding the characters to process
+   * @param off the index of the first character to process
+   * @param len the number of characters to process
+   * @return this validator
+   * @throws InvalidJsonException if a character is not adhering to valid JSON syntax
+   */
+  @Override
+  public JsonParser<String> input(char[] buf, int off, int len) throws InvalidJsonException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (brackets.invalid()) {
+      return this;
+    }
+    int end = off + len;
+    int current = state;
+    for (int i = off; i < end; i++) {
+      if (current == JsonGrammar.STRING) {
+        while (i < end && buf[i] != '"') {
+          i++;
+        }
+        if (i == end) {
+          break;
+        }
+      }
+      current = step(current, buf[i]);
+    }
+    state = current;
+    return this;
+  }
+
+  /**
+   * Moves through the states for the remaining UTF-8 bytes of a buffer, which is read
+   * until its limit. The bytes of a string value are skipped eight at a time until its
+   * closing quote with {@code StructuralIndexer.nextQuote}, which is
+   * safe because no byte of a multi-byte sequence is an ASCII character. Other
+   * characters are decoded, and a sequence split across buffers is completed by the bytes
+   * of the next buffer. Malformed sequences are handled as the replacement character.
+   *
+   * @param utf8 the buffer holding the bytes to process
+   * @return this validator
+   * @throws InvalidJsonException if a character is not adhering to valid JSON syntax
+   */
+  public DfaJsonValidator input(ByteBuffer utf8) throws InvalidJsonException {
+    int end = utf8.limit();
+    if (brackets.invalid()) {
+      utf8.position(end);
+      return this;
+    }
+    int current = state;
+    try {
+      for (int i = utf8.position(); i < end; i++) {
+        if (current == JsonGrammar.STRING) {
+          i = StructuralIndexer.nextQuote(utf8, i, end);
+          if (i == end) {
+            break;
+          }
+        }
+        current = stepByte(current, utf8.get(i));
+      }
+    } finally {
+      state = current;
+      utf8.position(end);
+    }
+    return this;
+  }
+
+  /**
+   * Reports a multi-byte sequence that is left incomplete at the end of the UTF-8 input
+   * as a replacement character.
+   *
+   * @throws InvalidJsonException if the input ends inside a multi-byte character
+   */
+  public void finishUtf8() throws InvalidJsonException {
+    if (decoder.finish() && !brackets.invalid()) {
+      state = step(state, '\uFFFD');
+    }
+  }
+
+  /**
+   * Handles a single UTF-8 byte outside of a string value.
+   *
+   * @param current the current state
+   * @param b the byte
+   * @return the next state
+   * @throws InvalidJsonException if a character is not adhering to valid JSON syntax
+   */
+  private int stepByte(int current, byte b) throws InvalidJsonException {
+    if (decoder.interrupts(b)) {
+      current = step(current, '\uFFFD');
+    }
+    int codePoint = decoder.decode(b);
+    if (codePoint == Utf8Decoder.MORE) {
+      return current;
+    } else if (Character.isBmpCodePoint(codePoint)) {
+      return step(current, (char) codePoint);
+    }
+    return step(step(current, Character.highSurrogate(codePoint)),
+            Character.lowSurrogate(codePoint));
+  }
+
+  /**
+   * Moves to the next state for a single character.
+   *
+   * @param current the current state
+   * @param c the character
+   * @return the next state
+   * @throws InvalidJsonException if the character is not adhering to valid JSON syntax
+   */
+  private int step(int current, char c) throws InvalidJsonException {
+    int entry = JsonGrammar.transition(current, JsonGrammar.classOf(c));
+    int action = JsonGrammar.action(entry);
+    return action < JsonGrammar.PUSH_OBJECT ? JsonGrammar.nextState(entry)
+            : perform(entry, action);
+  }
+
+  /**
+   * Performs an action that involves the bracket stack or an error.
+   *
+   * @param entry the transition entry
+   * @param action the action of the entry
+   * @return the next state
+   * @throws InvalidJsonException if the action is an error or the brackets do not match
+   */
+  private int perform(int entry, int action) throws InvalidJsonException {
+    switch (action) {
+      case JsonGrammar.PUSH_OBJECT:
+        brackets.push(true);
+        break;
+      case JsonGrammar.PUSH_ARRAY:
+        brackets.push(false);
+        break;
+      case JsonGrammar.POP_OBJECT:
+        brackets.pop(true);
+        if (brackets.depth() == 0 && documents != null) {
+          documents.accept(ValidatorStatus.VALID.text());
+          return JsonGrammar.START;
+        }
+        break;
+      case JsonGrammar.POP_ARRAY:
+        brackets.pop(false);
+        break;
+      case JsonGrammar.SEPARATOR:
+        return brackets.separate();
+      default:
+        throw brackets.fail(JsonGrammar.message(entry));
+    }
+    return JsonGrammar.nextState(entry);
+  }
+
+  /**
+   * Computes the status of the input provided so far.
+   *
+   * @return the parsing status
+   */
+  public ValidatorStatus status() {
+    return brackets.status(state);
+  }
+
+  /**
+   * Generates the status of the given input, in the same form as {@link JsonValidator}.
+   *
+   * @return the parsing status
+   */
+  @Override
+  public String output() {
+    return status().text();
+  }
+
+  /**
+   * Captures the state of the validator, sharing its bracket stack.
+   *
+   * @return the snapshot
+   */
+  @Override
+  public ParserSnapshot<String> snapshot() {
+    return new Snapshot(this);
+  }
+
+  /**
+   * The state of a validator, from which validators are forked.
+   */
+  private static final class Snapshot implements ParserSnapshot<String> {
+
+    private final Consumer<String> documents;
+    private final BracketStack brackets;
+    private final Utf8Decoder decoder;
+    private final int state;
+
+    /**
+     * Captures the state of a validator.
+     *
+     * @param validator the validator
+     */
+    Snapshot(DfaJsonValidator validator) {
+      documents = validator.documents;
+      brackets = validator.brackets.share();
+      decoder = new Utf8Decoder(validator.decoder);
+      state = validator.state;
+    }
+
+    /**
+     * Creates a validator in the captured state.
+     *
+     * @return the validator
+     */
+    @Override
+    public SnapshotParser<String> fork() {
+      return new DfaJsonValidator(this);
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package validator;
+
+/**
+ * Precomputed tables describing the JSON syntax accepted by {@link JsonValidator}.
+ * Every character is mapped to a character class, and every pair of state and character
+ * class is mapped to a single transition entry that packs the next state, the action to
+ * perform and the error to report. The states correspond to the parsing phases of
+ * {@link JsonValidator}, so the tables accept and reject exactly the same inputs.
+ * The bracket stack is left to the caller: an entry tells it what to push, pop or peek.
+ */
+public final class JsonGrammar {
+
+  /** Nothing has been read yet; an opening curly brace is expected. */
+  public static final int START = 0;
+  /** Inside an object, where a key or the closing curly brace is expected. */
+  public static final int OBJECT = 1;
+  /** Right after the opening quote of a key. */
+  public static final int KEY_START = 2;
+  /** Inside a key that already has its first character. */
+  public static final int KEY = 3;
+  /** After a key, where the colon is expected. */
+  public static final int COLON = 4;
+  /** Where a value, that is a string, object or array, is expected. */
+  public static final int VALUE = 5;
+  /** Inside a string value. */
+  public static final int STRING = 6;
+  /** After a value, where a comma or a closing bracket is expected. */
+  public static final int COMMA = 7;
+  /** The number of states. */
+  public static final int STATE_COUNT = 8;
+
+  /** Whitespace characters. */
+  public static final int WHITESPACE = 0;
+  /** The double quote. */
+  public static final int QUOTE = 1;
+  /** The opening curly brace. */
+  public static final int OPEN_BRACE = 2;
+  /** The closing curly brace. */
+  public static final int CLOSE_BRACE = 3;
+  /** The opening square bracket. */
+  public static final int OPEN_BRACKET = 4;
+  /** The closing square bracket. */
+  public static final int CLOSE_BRACKET = 5;
+  /** The colon. */
+  public static final int COLON_MARK = 6;
+  /** The comma. */
+  public static final int COMMA_MARK = 7;
+  /** Letters. */
+  public static final int LETTER = 8;
+  /** Digits that are not letters. */
+  public static final int DIGIT = 9;
+  /** Every other character. */
+  public static final int OTHER = 10;
+  /** The number of character classes. */
+  public static final int CLASS_COUNT = 11;
+
+  /** Nothing to do besides moving to the next state. */
+  public static final int NONE = 0;
+  /** The opening quote of a key. */
+  public static final int BEGIN_KEY = 1;
+  /** The closing quote of a key. */
+  public static final int END_KEY = 2;
+  /** The opening quote of a string value. */
+  public static final int BEGIN_STRING = 3;
+  /** The closing quote of a string value. */
+  public static final int END_STRING = 4;
+  /** An object is opened and its curly brace has to be pushed. */
+  public static final int PUSH_OBJECT = 5;
+  /** An array is opened and its square bracket has to be pushed. */
+  public static final int PUSH_ARRAY = 6;
+  /** An object is closed and a curly brace has to be popped. */
+  public static final int POP_OBJECT = 7;
+  /** An array is closed and a square bracket has to be popped. */
+  public static final int POP_ARRAY = 8;
+  /**
+   * A comma, after which the next state is {@link #OBJECT} if the innermost open bracket
+   * is a curly brace and {@link #VALUE} otherwise.
+   */
+  public static final int SEPARATOR = 9;
+  /** The character is not allowed in the current state. */
+  public static final int ERROR = 10;
+
+  /** The message when a popped bracket does not match the closing one. */
+  public static final String BRACKET_MISMATCH = "improperly placed brackets";
+  /** The message when a comma appears outside of every object and array. */
+  public static final String NOTHING_TO_SEPARATE = "comma outside of an object or array";
+
+  private static final String[] MESSAGES = {
+    null,
+    "not starting with curly brace",
+    "missing '\"' or '}'",
+    "key is empty",
+    "key should start with letter",
+    "key should have only letters and numbers",
+    "missing colon",
+    "value is not one of the object, string or array",
+    "missing comma or closing bracket"
+  };
+
+  private static final byte[] ASCII_CLASSES = new byte[128];
+  private static final int[] TRANSITIONS = new int[STATE_COUNT * CLASS_COUNT];
+
+  static {
+    for (char c = 0; c < ASCII_CLASSES.length; c++) {
+      ASCII_CLASSES[c] = (byte) computeClass(c);
+    }
+
+    reject(START, 1);
+    on(START, WHITESPACE, START, NONE);
+    on(START, OPEN_BRACE, OBJECT, PUSH_OBJECT);
+
+    reject(OBJECT, 2);
+    on(OBJECT, WHITESPACE, OBJECT, NONE);
+    on(OBJECT, QUOTE, KEY_START, BEGIN_KEY);
+    on(OBJECT, CLOSE_BRACE, OBJECT, POP_OBJECT);
+
+    reject(KEY_START, 4);
+    on(KEY_START, QUOTE, KEY_START, ERROR | 3 << 4);
+    on(KEY_START, LETTER, KEY, NONE);
+
+    reject(KEY, 5);
+    on(KEY, LETTER, KEY, NONE);
+    on(KEY, DIGIT, KEY, NONE);
+    on(KEY, QUOTE, COLON, END_KEY);
+
+    reject(COLON, 6);
+    on(COLON, WHITESPACE, COLON, NONE);
+    on(COLON, COLON_MARK, VALUE, NONE);
+
+    reject(VALUE, 7);
+    on(VALUE, WHITESPACE, VALUE, NONE);
+    on(VALUE, QUOTE, STRING, BEGIN_STRING);
+    on(VALUE, OPEN_BRACE, OBJECT, PUSH_OBJECT);
+    on(VALUE, OPEN_BRACKET, VALUE, PUSH_ARRAY);
+
+    for (int charClass = 0; charClass < CLASS_COUNT; charClass++) {
+      on(STRING, charClass, STRING, NONE);
+    }
+    on(STRING, QUOTE, COMMA, END_STRING);
+
+    reject(COMMA, 8);
+    on(COMMA, WHITESPACE, COMMA, NONE);
+    on(COMMA, COMMA_MARK, COMMA, SEPARATOR);
+    on(COMMA, CLOSE_BRACKET, COMMA, POP_ARRAY);
+    on(COMMA, CLOSE_BRACE, COMMA, POP_OBJECT);
+  }
+
+  private JsonGrammar() {
+  }
+
+  /**
+   * Fills every transition of a state with an error.
+   *
+   * @param state the state
+   * @param message the index of the error message
+   */
+  private static void reject(int state, int message) {
+    for (int charClass = 0; charClass < CLASS_COUNT; charClass++) {
+      on(state, charClass, state, ERROR | message << 4);
+    }
+  }
+
+  /**
+   * Sets a single transition.
+   *
+   * @param state the current state
+   * @param charClass the class of the character read
+   * @param next the next state
+   * @param action the action, with the index of the error message above its lowest four bits
+   */
+  private static void on(int state, int charClass, int next, int action) {
+    TRANSITIONS[state * CLASS_COUNT + charClass] = next | action << 4;
+  }
+
+  /**
+   * Classifies a character the same way {@link JsonValidator} does.
+   *
+   * @param c the character
+   * @return the class of the character
+   */
+  private static int computeClass(char c) {
+    switch (c) {
+      case '"':
+        return QUOTE;
+      case '{':
+        return OPEN_BRACE;
+      case '}':
+        return CLOSE_BRACE;
+      case '[':
+        return OPEN_BRACKET;
+      case ']':
+        return CLOSE_BRACKET;
+      case ':':
+        return COLON_MARK;
+      case ',':
+        return COMMA_MARK;
+      default:
+        if (Character.isWhitespace(c)) {
+          return WHITESPACE;
+        } else if (Character.isLetter(c)) {
+          return LETTER;
+        } else if (Character.isLetterOrDigit(c)) {
+          return DIGIT;
+        }
+        return OTHER;
+    }
+  }
+
+  /**
+   * Returns the class of a character. ASCII characters are looked up in a table.
+   *
+   * @param c the character
+   * @return the class of the character
+   */
+  public static int classOf(char c) {
+    return c < 128 ? ASCII_CLASSES[c] : computeClass(c);
+  }
+
+  /**
+   * Returns the transition entry for a state and a character class.
+   *
+   * @param state the current state
+   * @param charClass the class of the character read
+   * @return the packed transition entry
+   */
+  public static int transition(int state, int charClass) {
+    return TRANSITIONS[state * CLASS_COUNT + charClass];
+  }
+
+  /**
+   * Returns the next state of a transition entry. It is meaningless for
+   * {@link #SEPARATOR} and {@link #ERROR}.
+   *
+   * @param entry the transition entry
+   * @return the next state
+   */
+  public static int nextState(int entry) {
+    return entry & 0xF;
+  }
+
+  /**
+   * Returns the action of a transition entry.
+   *
+   * @param entry the transition entry
+   * @return the action
+   */
+  public static int action(int entry) {
+    return entry >>> 4 & 0xF;
+  }
+
+  /**
+   * Returns the error message of a transition entry whose action is {@link #ERROR}.
+   *
+   * @param entry the transition entry
+   * @return the error message
+   */
+  public static String message(int entry) {
+    return MESSAGES[entry >>> 8];
+  }
+}
@@ -1,15 +1,21 @@
 package validator;
 
-import java.util.Stack;
+import java.util.Objects;
+import java.util.function.Consumer;
 import parser.InvalidJsonException;
 import parser.JsonParser;
+import parser.ParserSnapshot;
+import parser.SnapshotParser;
 
 /**
  * Implements the JsonParser interface.
  * This validates JSON input character-by-character and checks for valid JSON syntax.
  * This adapts from one parsing phase to the other depending on the current input.
+ * The brackets that are passed are kept in a persistent list, which a snapshot shares.
+ * In multi-document mode, the input is a sequence of objects separated by whitespace, such as
+ * newline-delimited JSON, and the validator starts over after each of them.
  */
-public class JsonValidator implements JsonParser<String> {
+public class JsonValidator implements SnapshotParser<String> {
 
   private static final String output1 = "Status:Empty";
   private static final String output2 = "Status:Valid";
@@ -26,19 +32,70 @@ public class JsonValidator implements JsonParser<String> {
 
   private String initialPhase;
   private String preStatus;
-  private String preKey;
+  private int keyLength;
   private boolean inString;
-  private final Stack<Character> bracketContainer;
+  private Bracket bracketContainer;
+  private final Consumer<String> documents;
 
   /**
    * Constructs a new instance of the JsonValidator class.
-   * Initializes all variables and a stack for tracking the brackets that are passed.
+   * Initializes all variables and an empty list for tracking the brackets that are passed.
    */
   public JsonValidator() {
-    bracketContainer = new Stack<>();
+    this(null, null, startPhase, false, 0, output1);
+  }
+
+  /**
+   * Constructs a validator in multi-document mode. As soon as the closing brace of an
+   * object is read, its status is given to the consumer and the validator returns to its
+   * initial state in place, ready for the next object.
+   *
+   * @param documents the consumer of the status of each complete object
+   */
+  public JsonValidator(Consumer<String> documents) {
+    this(Objects.requireNonNull(documents), null, startPhase, false, 0, output1);
+  }
+
+  /**
+   * Constructs a validator in the state captured by a snapshot.
+   *
+   * @param snapshot the snapshot
+   */
+  private JsonValidator(Snapshot snapshot) {
+    this(snapshot.documents, snapshot.brackets, snapshot.phase, snapshot.inString,
+            snapshot.keyLength, snapshot.status);
+  }
+
+  /**
+   * Constructs a validator in the given state.
+   *
+   * @param documents the consumer of the status of each complete object, or null outside of
+   *                  multi-document mode
+   * @param brackets the innermost open bracket, or null if none is open
+   * @param phase the current phase
+   * @param inString whether a string is being read
+   * @param keyLength the number of characters of the key being read
+   * @param status the current status
+   */
+  private JsonValidator(Consumer<String> documents, Bracket brackets, String phase,
+                        boolean inString, int keyLength, String status) {
+    this.documents = documents;
+    this.bracketContainer = brackets;
+    this.initialPhase = phase;
+    this.inString = inString;
+    this.keyLength = keyLength;
+    this.preStatus = status;
+  }
+
+  /**
+   * Returns the validator to its initial state.
+   */
+  @Override
+  public void reset() {
+    bracketContainer = null;
     initialPhase = startPhase;
     inString = false;
-    preKey = "";
+    keyLength = 0;
     preStatus = output1;
   }
 
@@ -51,10 +108,58 @@ public class JsonValidator implements JsonParser<String> {
    */
   @Override
   public JsonParser<String> input(char inCharacter) throws InvalidJsonException {
+    step(inCharacter);
+    updSts();
+    return this;
+  }
+
+  /**
+   * Handles a range of characters in a single pass. The characters of a string value
+   * are skipped until its closing quote, and the status is only updated once the whole
+   * range has been handled, giving the same result as handling each character in turn.
+   *
+   * @param buf the buffer holding the characters to process
+   * @param off the index of the first character to process
+   * @param len the number of characters to process
+   * @return the updated status
+   * @throws InvalidJsonException if a character is not adhering to valid JSON syntax
+   */
+  @Override
+  public JsonParser<String> input(char[] buf, int off, int len) throws InvalidJsonException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    if (len == 0) {
+      return this;
+    }
+    int end = off + len;
+    try {
+      for (int i = off; i < end; i++) {
+        if (startString.equals(initialPhase)) {
+          while (i < end && buf[i] != '"') {
+            i++;
+          }
+          if (i == end) {
+            break;
+          }
+        }
+        step(buf[i]);
+      }
+    } finally {
+      updSts();
+    }
+    return this;
+  }
+
+  /**
+   * Dispatches a character to the current parsing phase without updating the status.
+   *
+   * @param inCharacter the character that is currently being processed
+   * @throws InvalidJsonException if the input character is not adhering to valid JSON syntax
+   */
+  private void step(char inCharacter) throws InvalidJsonException {
     if (!inString) {
       if (Character.isWhitespace(inCharacter)) {
 
-        return this;
+        return;
       }
     }
 
@@ -84,9 +189,6 @@ public class JsonValidator implements JsonParser<String> {
         // Nothing to be done just for completeness
         break;
     }
-
-    updSts();
-    return this;
   }
 
   /**
@@ -97,7 +199,7 @@ public class JsonValidator implements JsonParser<String> {
    */
   private void inlStg(char inCharacter) throws InvalidJsonException {
     if (inCharacter == '{') {
-      bracketContainer.push(inCharacter);
+      bracketContainer = new Bracket(inCharacter, bracketContainer);
 
       initialPhase = objectPhase;
     } else {
@@ -132,16 +234,16 @@ public class JsonValidator implements JsonParser<String> {
    */
   private void keyStg(char inCharacter) throws InvalidJsonException {
     if (inCharacter == '"') {
-      if (preKey.isEmpty()) {
+      if (keyLength == 0) {
         preStatus = output4;
         throw new InvalidJsonException("key is empty");
       }
       inString = false;
-      preKey = "";
+      keyLength = 0;
       initialPhase = colon;
     } else {
       keyChk(inCharacter);
-      preKey += inCharacter;
+      keyLength++;
     }
   }
 
@@ -152,7 +254,7 @@ public class JsonValidator implements JsonParser<String> {
    * @throws InvalidJsonException if the key contains invalid characters
    */
   private void keyChk(char inCharacter) throws InvalidJsonException {
-    if (preKey.isEmpty() && !Character.isLetter(inCharacter)) {
+    if (keyLength == 0 && !Character.isLetter(inCharacter)) {
       preStatus = output4;
       throw new InvalidJsonException("key should start with letter");
     }
@@ -189,10 +291,10 @@ public class JsonValidator implements JsonParser<String> {
       initialPhase = startString;
       inString = true;
     } else if (inCharacter == '{') {
-      bracketContainer.push(inCharacter);
+      bracketContainer = new Bracket(inCharacter, bracketContainer);
       initialPhase = objectPhase;
     } else if (inCharacter == '[') {
-      bracketContainer.push(inCharacter);
+      bracketContainer = new Bracket(inCharacter, bracketContainer);
       initialPhase = valuePhase;
     } else {
       preStatus = output4;
@@ -220,7 +322,10 @@ public class JsonValidator implements JsonParser<String> {
    */
   private void commaStg(char inCharacter) throws InvalidJsonException {
     if (inCharacter == ',') {
-      if (bracketContainer.peek() == '{') {
+      if (bracketContainer == null) {
+        preStatus = output4;
+        throw new InvalidJsonException(JsonGrammar.NOTHING_TO_SEPARATE);
+      } else if (bracketContainer.kind == '{') {
         initialPhase = objectPhase;
       } else {
         initialPhase = valuePhase;
@@ -243,21 +348,28 @@ public class JsonValidator implements JsonParser<String> {
    * @throws InvalidJsonException if the brackets are improperly placed
    */
   private void brkChk(char expectedCharacter) throws InvalidJsonException {
-    if (bracketContainer.isEmpty() || bracketContainer.pop() != expectedCharacter) {
+    if (bracketContainer == null || bracketContainer.kind != expectedCharacter) {
       preStatus = output4;
       throw new InvalidJsonException("improperly placed brackets");
     }
+    bracketContainer = bracketContainer.next;
+    if (bracketContainer == null && documents != null) {
+      reset();
+      documents.accept(output2);
+    }
   }
 
   /**
    * Updates the current status of the process.
    * The status is set to either "Valid", "Incomplete" or "Invalid" according to the parsing done.
+   * It is left untouched while the opening curly brace has not been read, so that leading
+   * whitespace, and whitespace between two objects in multi-document mode, keeps it empty.
    */
   private void updSts() {
-    if (preStatus.equals(output4)) {
+    if (preStatus.equals(output4) || initialPhase.equals(startPhase)) {
       return;
     }
-    if (bracketContainer.isEmpty() && !initialPhase.equals(startPhase)) {
+    if (bracketContainer == null) {
       preStatus = output2;
     } else {
       preStatus = output3;
@@ -273,4 +385,71 @@ public class JsonValidator implements JsonParser<String> {
   public String output() {
     return preStatus;
   }
+
+  /**
+   * Captures the state of the validator, sharing its brackets.
+   *
+   * @return the snapshot
+   */
+  @Override
+  public ParserSnapshot<String> snapshot() {
+    return new Snapshot(this);
+  }
+
+  /**
+   * A bracket that is passed and not closed yet, with the ones passed before it.
+   */
+  private static final class Bracket {
+
+    private final char kind;
+    private final Bracket next;
+
+    /**
+     * Constructs a bracket on top of the others.
+     *
+     * @param kind the opening character
+     * @param next the brackets passed before it, or null
+     */
+    Bracket(char kind, Bracket next) {
+      this.kind = kind;
+      this.next = next;
+    }
+  }
+
+  /**
+   * The state of a validator, from which validators are forked.
+   */
+  private static final class Snapshot implements ParserSnapshot<String> {
+
+    private final Consumer<String> documents;
+    private final Bracket brackets;
+    private final String phase;
+    private final boolean inString;
+    private final int keyLength;
+    private final String status;
+
+    /**
+     * Captures the state of a validator.
+     *
+     * @param validator the validator
+     */
+    Snapshot(JsonValidator validator) {
+      documents = validator.documents;
+      brackets = validator.bracketContainer;
+      phase = validator.initialPhase;
+      inString = validator.inString;
+      keyLength = validator.keyLength;
+      status = validator.preStatus;
+    }
+
+    /**
+     * Creates a validator in the captured state.
+     *
+     * @return the validator
+     */
+    @Override
+    public SnapshotParser<String> fork() {
+      return new JsonValidator(this);
+    }
+  }
 }
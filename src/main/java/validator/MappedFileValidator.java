@@ -0,0 +1,91 @@
+package validator;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import parser.InvalidJsonException;
+
+/**
+ * Validates JSON files by mapping them into memory and walking their UTF-8 bytes with a
+ * {@link DfaJsonValidator}, so that the content is neither copied onto the heap nor decoded
+ * into characters. Files are mapped one window at a time, which allows files larger than the
+ * 2 GB that a single mapping can cover.
+ */
+public class MappedFileValidator {
+
+  /** The default number of bytes mapped at once. */
+  public static final long DEFAULT_WINDOW = 1L << 30;
+
+  private final long window;
+
+  /**
+   * Constructs a validator that maps files in windows of {@link #DEFAULT_WINDOW} bytes.
+   */
+  public MappedFileValidator() {
+    this(DEFAULT_WINDOW);
+  }
+
+  /**
+   * Constructs a validator that maps files in windows of the given size.
+   *
+   * @param window the number of bytes mapped at once
+   * @throws IllegalArgumentException if the window is not positive or larger than what a
+   *                                  single mapping can cover
+   */
+  public MappedFileValidator(long window) {
+    if (window <= 0 || window > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("invalid window size: " + window);
+    }
+    this.window = window;
+  }
+
+  /**
+   * Validates a UTF-8 encoded JSON file with the default window size.
+   *
+   * @param file the file to validate
+   * @return the status of the content of the file
+   * @throws IOException if the file cannot be read
+   */
+  public static ValidatorStatus validate(Path file) throws IOException {
+    return new MappedFileValidator().check(file);
+  }
+
+  /**
+   * Validates a UTF-8 encoded JSON file. Mapping stops at the first window in which the
+   * content is found invalid.
+   *
+   * @param file the file to validate
+   * @return the status of the content of the file
+   * @throws IOException if the file cannot be read
+   */
+  public ValidatorStatus check(Path file) throws IOException {
+    return check(file, new DfaJsonValidator());
+  }
+
+  /**
+   * Validates a UTF-8 encoded JSON file with a validator that is reset first, so that one
+   * validator can check many files.
+   *
+   * @param file the file to validate
+   * @param validator the validator to use
+   * @return the status of the content of the file
+   * @throws IOException if the file cannot be read
+   */
+  public ValidatorStatus check(Path file, DfaJsonValidator validator) throws IOException {
+    validator.reset();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      for (long position = 0; position < size; position += window) {
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                Math.min(window, size - position));
+        validator.input(mapped);
+      }
+      validator.finishUtf8();
+    } catch (InvalidJsonException e) {
+      return ValidatorStatus.INVALID;
+    }
+    return validator.status();
+  }
+}
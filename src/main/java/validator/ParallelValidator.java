@@ -0,0 +1,222 @@
+package validator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Validates a single large document on several threads. The document is split into chunks
+ * that are summarized concurrently with {@link ChunkSummary}, from every state the
+ * validator could be in when it reaches them, and the summaries are then chained from the
+ * first chunk on. The status is exactly the one {@link DfaJsonValidator} reports for the
+ * whole document.
+ *
+ * <p>Summarizing a chunk from a state that it was not reached in usually fails within a few
+ * characters, so a chunk costs little more than reading it once.
+ */
+public class ParallelValidator {
+
+  /** The default number of characters or bytes in a chunk. */
+  public static final int DEFAULT_CHUNK_SIZE = 1 << 22;
+
+  private final int parallelism;
+  private final int chunkSize;
+  private final ExecutorService executor;
+
+  /**
+   * Constructs a validator with one thread per available processor and chunks of
+   * {@link #DEFAULT_CHUNK_SIZE}.
+   */
+  public ParallelValidator() {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * Constructs a validator.
+   *
+   * @param parallelism the number of threads
+   * @param chunkSize the number of characters or bytes in a chunk
+   * @throws IllegalArgumentException if the parallelism or the chunk size is not positive
+   */
+  public ParallelValidator(int parallelism, int chunkSize) {
+    if (parallelism <= 0) {
+      throw new IllegalArgumentException("invalid parallelism: " + parallelism);
+    }
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("invalid chunk size: " + chunkSize);
+    }
+    this.parallelism = parallelism;
+    this.chunkSize = chunkSize;
+    this.executor = null;
+  }
+
+  /**
+   * Constructs a validator that summarizes the chunks on the given executor, which is left
+   * running, so that it can be shared with other work.
+   *
+   * @param executor the executor
+   * @param chunkSize the number of characters or bytes in a chunk
+   * @throws IllegalArgumentException if the chunk size is not positive
+   */
+  public ParallelValidator(ExecutorService executor, int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("invalid chunk size: " + chunkSize);
+    }
+    this.parallelism = 0;
+    this.chunkSize = chunkSize;
+    this.executor = Objects.requireNonNull(executor);
+  }
+
+  /**
+   * Validates a range of characters, which must not change until the status is returned.
+   *
+   * @param buf the buffer holding the characters
+   * @param off the index of the first character
+   * @param len the number of characters
+   * @return the status of the characters
+   * @throws InterruptedException if the thread is interrupted while waiting for the chunks
+   */
+  public ValidatorStatus validate(char[] buf, int off, int len) throws InterruptedException {
+    Objects.checkFromIndexSize(off, len, buf.length);
+    List<Callable<ChunkSummary>> chunks = new ArrayList<>();
+    for (int from = off; from < off + len; from += chunkSize) {
+      int start = from;
+      int end = (int) Math.min((long) from + chunkSize, off + len);
+      chunks.add(() -> ChunkSummary.of(buf, start, end, start == off));
+    }
+    return combine(chunks);
+  }
+
+  /**
+   * Validates the UTF-8 bytes of a buffer from its position to its limit, which are left
+   * unchanged. The bytes must not change until the status is returned.
+   *
+   * @param utf8 the buffer
+   * @return the status of the bytes
+   * @throws InterruptedException if the thread is interrupted while waiting for the chunks
+   */
+  public ValidatorStatus validate(ByteBuffer utf8) throws InterruptedException {
+    List<Callable<ChunkSummary>> chunks = new ArrayList<>();
+    int limit = utf8.limit();
+    for (int from = utf8.position(); from < limit; ) {
+      int end = (int) Math.min((long) from + chunkSize, limit);
+      while (end < limit && (utf8.get(end) & 0xC0) == 0x80) {
+        end++;
+      }
+      ByteBuffer chunk = utf8.duplicate();
+      int start = from;
+      int stop = end;
+      boolean first = from == utf8.position();
+      chunks.add(() -> ChunkSummary.of(chunk, start, stop, first));
+      from = end;
+    }
+    return combine(chunks);
+  }
+
+  /**
+   * Validates a UTF-8 encoded file. Each chunk is mapped into memory by the thread that
+   * summarizes it.
+   *
+   * @param file the file
+   * @return the status of the content of the file
+   * @throws IOException if the file cannot be read
+   * @throws InterruptedException if the thread is interrupted while waiting for the chunks
+   */
+  public ValidatorStatus validate(Path file) throws IOException, InterruptedException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      List<Callable<ChunkSummary>> chunks = new ArrayList<>();
+      ByteBuffer probe = ByteBuffer.allocate(1);
+      for (long from = 0; from < size; ) {
+        long end = Math.min(from + chunkSize, size);
+        while (end < size && isContinuation(channel, probe, end)) {
+          end++;
+        }
+        long start = from;
+        long length = end - from;
+        chunks.add(() -> {
+          try {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+            return ChunkSummary.of(mapped, 0, (int) length, start == 0);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+        from = end;
+      }
+      return combine(chunks);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Checks whether the byte of a file at a position continues a multi-byte sequence.
+   *
+   * @param channel the file
+   * @param probe a buffer of one byte
+   * @param position the position of the byte
+   * @return true for a continuation byte
+   * @throws IOException if the file cannot be read
+   */
+  private static boolean isContinuation(FileChannel channel, ByteBuffer probe, long position)
+          throws IOException {
+    probe.clear();
+    channel.read(probe, position);
+    return (probe.get(0) & 0xC0) == 0x80;
+  }
+
+  /**
+   * Summarizes the chunks concurrently and chains their summaries in order, stopping as
+   * soon as the document is found invalid. The chunks that are left are cancelled.
+   *
+   * @param chunks the tasks summarizing each chunk
+   * @return the status of the document
+   * @throws InterruptedException if the thread is interrupted while waiting for the chunks
+   */
+  private ValidatorStatus combine(List<Callable<ChunkSummary>> chunks)
+          throws InterruptedException {
+    ChunkSummary.Combiner combiner = new ChunkSummary.Combiner();
+    ExecutorService executor = this.executor != null ? this.executor
+            : new ForkJoinPool(parallelism);
+    List<Future<ChunkSummary>> summaries = new ArrayList<>(chunks.size());
+    try {
+      for (Callable<ChunkSummary> chunk : chunks) {
+        summaries.add(executor.submit(chunk));
+      }
+      for (Future<ChunkSummary> summary : summaries) {
+        if (!combiner.add(summary.get())) {
+          break;
+        }
+      }
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      } else if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException(cause);
+    } finally {
+      if (executor != this.executor) {
+        executor.shutdownNow();
+      } else {
+        for (Future<ChunkSummary> summary : summaries) {
+          summary.cancel(true);
+        }
+      }
+    }
+    return combiner.status();
+  }
+}
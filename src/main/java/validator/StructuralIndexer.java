@@ -0,0 +1,67 @@
+package validator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Finds the double quotes of UTF-8 encoded JSON eight bytes at a time, so that the
+ * validators skip the bodies of string values without looking at each byte. Each step loads
+ * a long word and marks the bytes equal to a quote with bit tricks, which are exact because
+ * the addition used to detect zero bytes never carries from one byte into the next.
+ */
+final class StructuralIndexer {
+
+  private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+  private static final long QUOTES = '"' * 0x0101010101010101L;
+
+  private StructuralIndexer() {
+  }
+
+  /**
+   * Marks the bytes of a word that are equal to the byte repeated in the pattern.
+   *
+   * @param word eight bytes of input
+   * @param pattern the byte to look for, repeated eight times
+   * @return a word with the high bit set in every matching byte and all other bits clear
+   */
+  private static long matches(long word, long pattern) {
+    long x = word ^ pattern;
+    return ~((x & LOW_BITS) + LOW_BITS | x | LOW_BITS);
+  }
+
+  /**
+   * Loads eight bytes as a little-endian word, whatever the order of the buffer.
+   *
+   * @param buf the buffer
+   * @param index the index of the first byte
+   * @return the word
+   */
+  private static long load(ByteBuffer buf, int index) {
+    long word = buf.getLong(index);
+    return buf.order() == ByteOrder.BIG_ENDIAN ? Long.reverseBytes(word) : word;
+  }
+
+  /**
+   * Finds the next double quote, eight bytes at a time.
+   *
+   * @param buf the buffer holding the input
+   * @param from the index to start looking at
+   * @param to the index to stop looking at, exclusive
+   * @return the index of the first double quote in the range, or {@code to} if there is none
+   */
+  static int nextQuote(ByteBuffer buf, int from, int to) {
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      long marked = matches(load(buf, i), QUOTES);
+      if (marked != 0) {
+        return i + (Long.numberOfTrailingZeros(marked) >>> 3);
+      }
+    }
+    for (; i < to; i++) {
+      if (buf.get(i) == '"') {
+        return i;
+      }
+    }
+    return to;
+  }
+}
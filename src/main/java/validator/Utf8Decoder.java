@@ -0,0 +1,118 @@
+package validator;
+
+/**
+ * Decodes UTF-8 one byte at a time, for the validators that read bytes. A sequence may be
+ * split across buffers, since the decoder keeps the bytes it has read of it. Malformed input
+ * is decoded to the replacement character: an overlong sequence, a surrogate, a code point
+ * out of range or a stray byte gives one replacement character, and so does a sequence that
+ * is cut short by a byte that does not continue it or by the end of the input.
+ */
+final class Utf8Decoder {
+
+  /** Returned by {@link #decode(byte)} while a sequence needs more bytes. */
+  static final int MORE = -1;
+
+  private int codePoint;
+  private int pendingBytes;
+  private int minCodePoint;
+
+  /**
+   * Constructs a decoder at the start of a character.
+   */
+  Utf8Decoder() {
+  }
+
+  /**
+   * Constructs a decoder in the same state as another one.
+   *
+   * @param other the decoder to copy
+   */
+  Utf8Decoder(Utf8Decoder other) {
+    codePoint = other.codePoint;
+    pendingBytes = other.pendingBytes;
+    minCodePoint = other.minCodePoint;
+  }
+
+  /**
+   * Forgets any sequence that was started.
+   */
+  void reset() {
+    pendingBytes = 0;
+  }
+
+  /**
+   * Checks whether a byte cuts short the sequence that was started, which is then dropped.
+   * It has to be called before {@link #decode(byte)} for every byte, and a replacement
+   * character has to be handled first when it returns true.
+   *
+   * @param b the next byte
+   * @return true if a sequence was started and the byte does not continue it
+   */
+  boolean interrupts(byte b) {
+    if (pendingBytes > 0 && (b & 0xC0) != 0x80) {
+      pendingBytes = 0;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Decodes the next byte.
+   *
+   * @param b the byte
+   * @return the code point it completes, the replacement character for malformed input, or
+   *         {@link #MORE} if the sequence needs more bytes
+   */
+  int decode(byte b) {
+    if (pendingBytes > 0) {
+      codePoint = codePoint << 6 | b & 0x3F;
+      if (--pendingBytes > 0) {
+        return MORE;
+      } else if (codePoint < minCodePoint || codePoint > Character.MAX_CODE_POINT
+              || (codePoint >= Character.MIN_SURROGATE
+              && codePoint <= Character.MAX_SURROGATE)) {
+        return '\uFFFD';
+      }
+      return codePoint;
+    }
+    if (b >= 0) {
+      return b;
+    } else if ((b & 0xE0) == 0xC0) {
+      start(b & 0x1F, 1, 0x80);
+    } else if ((b & 0xF0) == 0xE0) {
+      start(b & 0x0F, 2, 0x800);
+    } else if ((b & 0xF8) == 0xF0) {
+      start(b & 0x07, 3, 0x10000);
+    } else {
+      return '\uFFFD';
+    }
+    return MORE;
+  }
+
+  /**
+   * Ends the input, dropping a sequence that was started.
+   *
+   * @return true if a sequence was started, for which a replacement character has to be
+   *         handled
+   */
+  boolean finish() {
+    if (pendingBytes > 0) {
+      pendingBytes = 0;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Starts decoding a multi-byte sequence.
+   *
+   * @param bits the payload bits of the leading byte
+   * @param continuations the number of continuation bytes that follow
+   * @param min the smallest code point that needs this many bytes
+   */
+  private void start(int bits, int continuations, int min) {
+    codePoint = bits;
+    pendingBytes = continuations;
+    minCodePoint = min;
+  }
+}
@@ -0,0 +1,31 @@
+package validator;
+
+/**
+ * The status of a validation, together with the text reported by {@link JsonValidator}.
+ */
+public enum ValidatorStatus {
+  EMPTY("Status:Empty"),
+  VALID("Status:Valid"),
+  INCOMPLETE("Status:Incomplete"),
+  INVALID("Status:Invalid");
+
+  private final String text;
+
+  /**
+   * Constructs a status with its text.
+   *
+   * @param text the text of the status
+   */
+  ValidatorStatus(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Returns the text of this status, such as "Status:Valid".
+   *
+   * @return the text of this status
+   */
+  public String text() {
+    return text;
+  }
+}
@@ -0,0 +1,245 @@
+package corpus;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import jsontree.JsonTreeBuilder;
+import parser.InvalidJsonException;
+import validator.BatchValidator;
+import validator.DfaJsonValidator;
+import validator.JsonGrammar;
+import validator.JsonValidator;
+import validator.ValidatorStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for CorpusGenerator.
+ */
+public class CorpusGeneratorTest {
+
+  private static final Pattern RECORD = Pattern.compile("\\{([^{}\\[\\]]*)\\}");
+  private static final Pattern KEY = Pattern.compile("\"(\\w+)\":");
+  private static final Pattern STRING = Pattern.compile(":\"([^\"]*)\"");
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Returns the largest nesting depth of a document.
+   *
+   * @param json the document
+   * @return the depth
+   */
+  private static int depth(String json) {
+    int depth = 0;
+    int max = 0;
+    boolean inString = false;
+    for (int i = 0; i < json.length(); i++) {
+      char c = json.charAt(i);
+      if (c == '"') {
+        inString = !inString;
+      } else if (!inString && (c == '{' || c == '[')) {
+        max = Math.max(max, ++depth);
+      } else if (!inString && (c == '}' || c == ']')) {
+        depth--;
+      }
+    }
+    return max;
+  }
+
+  /**
+   * Test case to verify that a seed gives the same document whatever it is written to, and
+   * that another seed gives another document.
+   *
+   * @throws IOException if the writer fails
+   * @throws InvalidJsonException if the document is invalid
+   */
+  @Test
+  public void testDeterministic() throws IOException, InvalidJsonException {
+    CorpusGenerator generator = CorpusGenerator.builder(42).nonAsciiRatio(0.2).build();
+    String json = generator.generate(50000);
+    assertEquals(json, generator.generate(50000));
+    StringWriter writer = new StringWriter();
+    generator.write(writer, 50000);
+    assertEquals(json, writer.toString());
+    assertEquals(new JsonTreeBuilder().input(json).output(),
+            generator.feed(new JsonTreeBuilder(), 50000).output());
+    assertNotEquals(json, CorpusGenerator.builder(43).nonAsciiRatio(0.2).build()
+            .generate(50000));
+  }
+
+  /**
+   * Test that documents of various shapes are valid, reach their size, and respect their
+   * depth.
+   *
+   * @throws InvalidJsonException if a document is invalid
+   */
+  @Test
+  public void testValid() throws InvalidJsonException {
+    for (int seed = 0; seed < 20; seed++) {
+      int maxDepth = 3 + seed % 6;
+      CorpusGenerator generator = CorpusGenerator.builder(seed)
+              .maxDepth(maxDepth)
+              .fanOut(1 + seed % 3, 1 + seed % 3 + seed % 5)
+              .containerRatio(0.8)
+              .stringLength(seed % 4, 10)
+              .nonAsciiRatio(seed % 2 * 0.5)
+              .build();
+      int size = 1000 + seed * 1000;
+      String json = generator.generate(size);
+      assertTrue(json.length() >= size);
+      assertEquals(maxDepth, depth(json));
+      assertEquals(ValidatorStatus.VALID,
+              ((DfaJsonValidator) generator.feed(new DfaJsonValidator(), size)).status());
+      assertEquals("Status:Valid", new JsonValidator().input(json).output());
+    }
+    assertEquals("{\"items\":[{\"k", CorpusGenerator.builder(0).build().generate(0)
+            .substring(0, 13));
+  }
+
+  /**
+   * Test that keys repeat within an object at the duplicate key ratio only.
+   */
+  @Test
+  public void testDuplicateKeys() {
+    for (double ratio : new double[] {0, 1}) {
+      String json = CorpusGenerator.builder(7).maxDepth(3).fanOut(4, 4)
+              .keyVocabulary(4).duplicateKeyRatio(ratio).build().generate(20000);
+      Matcher records = RECORD.matcher(json);
+      int count = 0;
+      while (records.find()) {
+        Matcher keys = KEY.matcher(records.group(1));
+        Set<String> distinct = new HashSet<>();
+        int entries = 0;
+        while (keys.find()) {
+          distinct.add(keys.group(1));
+          entries++;
+        }
+        assertEquals(4, entries);
+        assertEquals(ratio == 0 ? 4 : 1, distinct.size());
+        count++;
+      }
+      assertTrue(count > 100);
+    }
+  }
+
+  /**
+   * Test that string lengths have the requested mean and maximum.
+   */
+  @Test
+  public void testStringLengths() {
+    String json = CorpusGenerator.builder(3).maxDepth(3).stringLength(20, 60)
+            .nonAsciiRatio(0.1).build().generate(500000);
+    Matcher strings = STRING.matcher(json);
+    long total = 0;
+    int count = 0;
+    while (strings.find()) {
+      int length = strings.group(1).codePointCount(0, strings.group(1).length());
+      assertTrue(length <= 60);
+      total += length;
+      count++;
+    }
+    double mean = (double) total / count;
+    assertTrue("mean " + mean, mean > 17 && mean < 21);
+  }
+
+  /**
+   * Test that each defect makes the document invalid or incomplete after the characters of
+   * the valid document.
+   */
+  @Test
+  public void testDefects() {
+    String valid = CorpusGenerator.builder(5).nonAsciiRatio(0.5).build().generate(30000);
+    String[] messages = {
+      null, null, JsonGrammar.BRACKET_MISMATCH, "missing colon",
+      "key should start with letter", "value is not one of the object, string or array"
+    };
+    for (CorpusGenerator.Defect defect : CorpusGenerator.Defect.values()) {
+      for (double position : new double[] {0, 0.3, 1}) {
+        CorpusGenerator generator = CorpusGenerator.builder(5).nonAsciiRatio(0.5)
+                .defect(defect, position).build();
+        String json = generator.generate(30000);
+        int prefix = (int) (position * 30000);
+        DfaJsonValidator validator = new DfaJsonValidator();
+        try {
+          validator.input(json);
+          assertNull(messages[defect.ordinal()]);
+        } catch (InvalidJsonException e) {
+          assertEquals(messages[defect.ordinal()], e.getMessage());
+        }
+        switch (defect) {
+          case NONE:
+            assertEquals(valid, json);
+            assertEquals(ValidatorStatus.VALID, validator.status());
+            break;
+          case TRUNCATED:
+            assertTrue(json.length() == prefix
+                    || json.length() == prefix - 1 && Character.isHighSurrogate(
+                    valid.charAt(prefix - 1)));
+            assertEquals(valid.substring(0, json.length()), json);
+            assertEquals(prefix == 0 ? ValidatorStatus.EMPTY : ValidatorStatus.INCOMPLETE,
+                    validator.status());
+            break;
+          default:
+            assertEquals(valid.substring(0, prefix), json.substring(0, prefix));
+            assertEquals(ValidatorStatus.INVALID, validator.status());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test that the error of a defect stops a parser fed by the generator.
+   */
+  @Test
+  public void testFeedInvalid() {
+    CorpusGenerator generator = CorpusGenerator.builder(1)
+            .defect(CorpusGenerator.Defect.MISSING_COLON, 0.5).build();
+    try {
+      generator.feed(new JsonTreeBuilder(), 100000);
+      fail("expected the missing colon to be reported");
+    } catch (InvalidJsonException e) {
+      assertEquals("missing colon", e.getMessage());
+    }
+  }
+
+  /**
+   * Test that a file written by the generator is valid UTF-8 and at least as large as the
+   * requested number of characters.
+   *
+   * @throws IOException if the file cannot be written
+   * @throws InterruptedException if the validation is interrupted
+   */
+  @Test
+  public void testFile() throws IOException, InterruptedException {
+    Path file = folder.newFile("corpus.json").toPath();
+    CorpusGenerator.builder(11).nonAsciiRatio(0.3).build().write(file, 1 << 20);
+    assertTrue(Files.size(file) > 1 << 20);
+    List<BatchValidator.Result> results =
+            new BatchValidator(1).validateFiles(Collections.singletonList(file));
+    assertEquals(ValidatorStatus.VALID, results.get(0).status());
+  }
+
+  /**
+   * Test that settings out of range are rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidFanOut() {
+    CorpusGenerator.builder(0).fanOut(0, 3);
+  }
+}
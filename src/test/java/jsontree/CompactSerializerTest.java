@@ -0,0 +1,126 @@
+package jsontree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for writing the compact form of JSON nodes.
+ */
+public class CompactSerializerTest {
+
+  /**
+   * Creates a tree with nested containers and characters of every UTF-8 length.
+   *
+   * @return the root of the tree
+   */
+  private JsonObject sampleTree() {
+    JsonObject root = new JsonObject();
+    JsonArray list = new JsonArray();
+    list.add(new JsonString("a b"));
+    list.add(new JsonObject());
+    list.add(new JsonArray());
+    JsonObject inner = new JsonObject();
+    inner.add("x", new JsonString("é€😀"));
+    list.add(inner);
+    root.add("list", list);
+    root.add("name", new JsonString("n"));
+    return root;
+  }
+
+  /**
+   * Test case to verify the compact form of a tree and its size.
+   */
+  @Test
+  public void testCompactBytes() {
+    JsonObject root = sampleTree();
+    String expected = "{\"list\":[\"a b\",{},[],{\"x\":\"é€😀\"}],\"name\":\"n\"}";
+    byte[] bytes = root.toCompactBytes();
+    assertArrayEquals(expected.getBytes(StandardCharsets.UTF_8), bytes);
+    assertEquals(bytes.length, root.compactSize());
+  }
+
+  /**
+   * Test case to verify that unpaired surrogates are written like String.getBytes does.
+   */
+  @Test
+  public void testUnpairedSurrogates() {
+    JsonString node = new JsonString("a\uD800b\uDC00");
+    assertArrayEquals("\"a\uD800b\uDC00\"".getBytes(StandardCharsets.UTF_8),
+            node.toCompactBytes());
+    assertEquals(6, node.compactSize());
+  }
+
+  /**
+   * Test case to verify writing into an array at an offset.
+   */
+  @Test
+  public void testWriteToArray() {
+    JsonObject root = sampleTree();
+    byte[] dst = new byte[(int) root.compactSize() + 3];
+    assertEquals(root.compactSize(), root.writeCompact(dst, 3));
+    byte[] expected = root.toCompactBytes();
+    for (int i = 0; i < expected.length; i++) {
+      assertEquals(expected[i], dst[i + 3]);
+    }
+  }
+
+  /**
+   * Test case to verify that an array that is too small is reported.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testArrayTooSmall() {
+    JsonObject root = sampleTree();
+    root.writeCompact(new byte[(int) root.compactSize() - 1], 0);
+  }
+
+  /**
+   * Test case to verify writing a tree larger than the scratch buffer to a stream and to
+   * a direct byte buffer.
+   */
+  @Test
+  public void testWriteToStreamAndBuffer() throws IOException {
+    JsonArray root = new JsonArray();
+    for (int i = 0; i < 5000; i++) {
+      root.add(sampleTree());
+    }
+    byte[] expected = root.toCompactBytes();
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    root.writeCompact(out);
+    assertArrayEquals(expected, out.toByteArray());
+    ByteBuffer buffer = ByteBuffer.allocateDirect(expected.length + 1);
+    buffer.put((byte) '#');
+    root.writeCompact(buffer);
+    assertEquals(expected.length + 1, buffer.position());
+    byte[] written = new byte[expected.length];
+    buffer.position(1);
+    buffer.get(written);
+    assertArrayEquals(expected, written);
+  }
+
+  /**
+   * Test that a byte buffer that is too small is left at its position.
+   */
+  @Test
+  public void testBufferOverflow() {
+    JsonObject root = new JsonObject();
+    root.add("key", new JsonString("value"));
+    for (ByteBuffer buffer : new ByteBuffer[] {ByteBuffer.allocate(8),
+        ByteBuffer.allocateDirect(8)}) {
+      buffer.put((byte) '#');
+      try {
+        root.writeCompact(buffer);
+        fail();
+      } catch (BufferOverflowException e) {
+        assertEquals(1, buffer.position());
+      }
+    }
+  }
+}
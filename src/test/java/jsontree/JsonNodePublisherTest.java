@@ -0,0 +1,226 @@
+package jsontree;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+import parser.InvalidJsonException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for JsonNodePublisher.
+ */
+public class JsonNodePublisherTest {
+
+  /**
+   * A reader that counts the chunks read from it and whether it is closed.
+   */
+  private static final class CountingReader extends StringReader {
+
+    int reads;
+    boolean closed;
+
+    /**
+     * Creates a reader.
+     *
+     * @param text the characters to read
+     */
+    CountingReader(String text) {
+      super(text);
+    }
+
+    @Override
+    public int read(char[] buf, int off, int len) throws IOException {
+      reads++;
+      return super.read(buf, off, len);
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      super.close();
+    }
+  }
+
+  /**
+   * A subscriber that records what it is given and only requests trees when told to.
+   */
+  private static class Recorder implements Flow.Subscriber<JsonNode> {
+
+    final List<JsonNode> items = new ArrayList<>();
+    final CountDownLatch ended = new CountDownLatch(1);
+    Flow.Subscription subscription;
+    Throwable error;
+    boolean complete;
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(JsonNode item) {
+      items.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      ended.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      complete = true;
+      ended.countDown();
+    }
+  }
+
+  /**
+   * Builds a tree with the sequential builder.
+   *
+   * @param json the document
+   * @return its tree
+   * @throws InvalidJsonException if the document is invalid
+   */
+  private static JsonNode tree(String json) throws InvalidJsonException {
+    return new JsonTreeBuilder().input(json).output();
+  }
+
+  /**
+   * Test case to verify that the reader is only read as trees are requested.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testDemand() throws InvalidJsonException {
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 5000; i++) {
+      json.append("{\"id\":\"").append(i).append("\"}\n");
+    }
+    CountingReader reader = new CountingReader(json.toString());
+    JsonNodePublisher publisher = new JsonNodePublisher(reader, Runnable::run, false);
+    Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    assertEquals(0, reader.reads);
+    recorder.subscription.request(1);
+    assertEquals(1, recorder.items.size());
+    assertEquals(1, reader.reads);
+    recorder.subscription.request(100);
+    assertEquals(101, recorder.items.size());
+    assertEquals(1, reader.reads);
+    recorder.subscription.request(Long.MAX_VALUE);
+    recorder.subscription.request(Long.MAX_VALUE);
+    assertEquals(5000, recorder.items.size());
+    assertEquals(tree("{\"id\":\"4999\"}"), recorder.items.get(4999));
+    assertTrue(recorder.complete);
+    assertTrue(reader.closed);
+    assertNull(recorder.error);
+  }
+
+  /**
+   * Test that an invalid document ends the stream with its exception.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testError() throws InvalidJsonException {
+    String json = "{\"a\":\"b\"}\n{\"c\"}\n{\"d\":\"e\"}\n";
+    JsonNodePublisher publisher =
+            new JsonNodePublisher(new StringReader(json), Runnable::run, false);
+    Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    recorder.subscription.request(10);
+    assertEquals(1, recorder.items.size());
+    assertEquals(tree("{\"a\":\"b\"}"), recorder.items.get(0));
+    assertTrue(recorder.error instanceof InvalidJsonException);
+    assertFalse(recorder.complete);
+    Recorder second = new Recorder();
+    publisher.subscribe(second);
+    assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  /**
+   * Test that invalid and incomplete documents are skipped and counted when asked to.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testSkip() throws InvalidJsonException {
+    String json = "{\"a\":\"b\"}\n{\"c\"} {\"x\":\"y\"}\n{\"d\":\"e\"} {\"f\":\"g\"}\n"
+            + "{\"ü\":\"h\"}\n{\"i\":";
+    JsonNodePublisher publisher =
+            new JsonNodePublisher(new StringReader(json), Runnable::run, true);
+    Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    recorder.subscription.request(Long.MAX_VALUE);
+    List<JsonNode> expected = new ArrayList<>();
+    expected.add(tree("{\"a\":\"b\"}"));
+    expected.add(tree("{\"d\":\"e\"}"));
+    expected.add(tree("{\"f\":\"g\"}"));
+    assertEquals(expected, recorder.items);
+    assertEquals(3, publisher.skipped());
+    assertTrue(recorder.complete);
+  }
+
+  /**
+   * Test that a cancelled subscription gets no more trees and closes the reader.
+   */
+  @Test
+  public void testCancel() {
+    CountingReader reader = new CountingReader("{\"a\":\"b\"}\n{\"c\":\"d\"}\n");
+    JsonNodePublisher publisher = new JsonNodePublisher(reader, Runnable::run, false);
+    Recorder recorder = new Recorder();
+    publisher.subscribe(recorder);
+    recorder.subscription.request(1);
+    recorder.subscription.cancel();
+    recorder.subscription.request(1);
+    assertEquals(1, recorder.items.size());
+    assertTrue(reader.closed);
+    assertFalse(recorder.complete);
+    assertNull(recorder.error);
+  }
+
+  /**
+   * Test a subscriber on another thread that requests one tree at a time.
+   *
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testExecutor() throws InterruptedException {
+    StringBuilder json = new StringBuilder();
+    for (int i = 0; i < 3000; i++) {
+      json.append("{\"k\":[\"").append(i).append("\"]}");
+    }
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      JsonNodePublisher publisher =
+              new JsonNodePublisher(new StringReader(json.toString()), executor, false);
+      Recorder recorder = new Recorder() {
+        @Override
+        public void onNext(JsonNode item) {
+          super.onNext(item);
+          subscription.request(1);
+        }
+      };
+      publisher.subscribe(recorder);
+      recorder.subscription.request(1);
+      assertTrue(recorder.ended.await(10, TimeUnit.SECONDS));
+      assertEquals(3000, recorder.items.size());
+      assertTrue(recorder.complete);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
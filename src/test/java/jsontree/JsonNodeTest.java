@@ -1,5 +1,8 @@
 package jsontree;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
@@ -332,4 +335,209 @@ public class JsonNodeTest {
     obj2.add("html", html2);
     assertNotEquals(obj1, obj2);
   }
+
+  /**
+   * Test case to verify that the hash code follows changes made deep inside a tree after
+   * it has been computed.
+   */
+  @Test
+  public void testHashAfterChange() {
+    JsonObject root1 = new JsonObject();
+    JsonArray list1 = new JsonArray();
+    JsonObject leaf1 = new JsonObject();
+    root1.add("list", list1);
+    list1.add(leaf1);
+    JsonObject root2 = new JsonObject();
+    JsonArray list2 = new JsonArray();
+    JsonObject leaf2 = new JsonObject();
+    root2.add("list", list2);
+    list2.add(leaf2);
+    assertEquals(root1.hashCode(), root2.hashCode());
+    leaf1.add("a", new JsonString("b"));
+    assertNotEquals(root1, root2);
+    leaf2.add("a", new JsonString("b"));
+    assertEquals(root1, root2);
+    assertEquals(root1.hashCode(), root2.hashCode());
+  }
+
+  /**
+   * Test case to verify that a node added to two containers updates both of them.
+   */
+  @Test
+  public void testHashOfSharedNode() {
+    JsonArray shared = new JsonArray();
+    JsonObject first = new JsonObject();
+    JsonArray second = new JsonArray();
+    first.add("shared", shared);
+    second.add(shared);
+    int firstHash = first.hashCode();
+    int secondHash = second.hashCode();
+    shared.add(new JsonString("x"));
+    JsonArray expected = new JsonArray();
+    expected.add(new JsonString("x"));
+    JsonArray expectedSecond = new JsonArray();
+    expectedSecond.add(expected);
+    assertEquals(expectedSecond.hashCode(), second.hashCode());
+    assertNotEquals(firstHash, first.hashCode());
+    assertNotEquals(secondHash, second.hashCode());
+  }
+
+  /**
+   * Test case to verify that a container still follows changes to a child after the hash
+   * codes computed from that child have been discarded and computed again.
+   */
+  @Test
+  public void testHashAfterRepeatedChanges() {
+    JsonArray child = new JsonArray();
+    JsonObject parent = new JsonObject();
+    parent.add("child", child);
+    JsonArray expected = new JsonArray();
+    JsonObject expectedParent = new JsonObject();
+    expectedParent.add("child", expected);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(expectedParent.hashCode(), parent.hashCode());
+      child.add(new JsonString("x" + i));
+      assertNotEquals(expectedParent, parent);
+      expected.add(new JsonString("x" + i));
+    }
+    assertEquals(expectedParent.hashCode(), parent.hashCode());
+  }
+
+  /**
+   * Test case to verify that objects are equal when their entries only differ in order,
+   * including entries with duplicate keys.
+   */
+  @Test
+  public void testObjectsWithDifferentOrder() {
+    JsonObject root1 = new JsonObject();
+    root1.add("same", new JsonString("s"));
+    root1.add("a", new JsonString("x"));
+    root1.add("b", new JsonString("y"));
+    root1.add("a", new JsonString("z"));
+    JsonObject root2 = new JsonObject();
+    root2.add("same", new JsonString("s"));
+    root2.add("a", new JsonString("z"));
+    root2.add("a", new JsonString("x"));
+    root2.add("b", new JsonString("y"));
+    assertEquals(root1, root2);
+    assertEquals(root1.hashCode(), root2.hashCode());
+  }
+
+  /**
+   * Test case to verify that duplicate keys are counted when comparing objects.
+   */
+  @Test
+  public void testObjectsWithDuplicateKeys() {
+    JsonObject root1 = new JsonObject();
+    root1.add("a", new JsonString("x"));
+    root1.add("a", new JsonString("x"));
+    root1.add("a", new JsonString("y"));
+    JsonObject root2 = new JsonObject();
+    root2.add("a", new JsonString("y"));
+    root2.add("a", new JsonString("x"));
+    root2.add("a", new JsonString("y"));
+    assertNotEquals(root1, root2);
+    JsonObject root3 = new JsonObject();
+    root3.add("a", new JsonString("x"));
+    root3.add("a", new JsonString("y"));
+    assertNotEquals(root1, root3);
+  }
+
+  /**
+   * Creates a tree with nested objects and arrays, duplicate keys and empty containers.
+   *
+   * @return the root of the tree
+   */
+  private JsonObject sampleTree() {
+    JsonObject root = new JsonObject();
+    JsonArray list = new JsonArray();
+    JsonObject inner = new JsonObject();
+    inner.add("x", new JsonString("1"));
+    inner.add("y", new JsonArray());
+    list.add(new JsonString("a"));
+    list.add(inner);
+    list.add(new JsonArray());
+    root.add("list", list);
+    root.add("empty", new JsonObject());
+    root.add("name", new JsonString("n"));
+    root.add("name", new JsonString("n"));
+    return root;
+  }
+
+  /**
+   * Test case to verify that the last entry has no trailing comma, even when it is equal
+   * to an earlier entry.
+   */
+  @Test
+  public void testDuplicateLastEntry() {
+    JsonObject root = new JsonObject();
+    root.add("a", new JsonString("b"));
+    root.add("a", new JsonString("b"));
+    assertEquals("{\n  \"a\":\"b\",\n  \"a\":\"b\"\n}", root.prettyPrint());
+  }
+
+  /**
+   * Test case to verify that printing to a writer gives the same output as prettyPrint.
+   */
+  @Test
+  public void testPrettyPrintTo() throws IOException {
+    JsonObject root = sampleTree();
+    StringWriter out = new StringWriter();
+    root.prettyPrintTo(out);
+    assertEquals(root.prettyPrint(), out.toString());
+  }
+
+  /**
+   * Test case to verify that the reader gives the same output as prettyPrint, whatever the
+   * size of the reads.
+   */
+  @Test
+  public void testPrettyPrintReader() throws IOException {
+    JsonObject root = sampleTree();
+    for (int size = 1; size <= 64; size *= 2) {
+      StringBuilder read = new StringBuilder();
+      try (Reader reader = root.prettyPrintReader()) {
+        char[] buf = new char[size];
+        int count;
+        while ((count = reader.read(buf, 0, size)) != -1) {
+          read.append(buf, 0, count);
+        }
+      }
+      assertEquals(root.prettyPrint(), read.toString());
+    }
+  }
+
+  /**
+   * Test case to verify that very deep trees can be printed.
+   */
+  @Test
+  public void testDeepPrettyPrint() throws IOException {
+    JsonArray root = new JsonArray();
+    JsonArray current = root;
+    for (int i = 0; i < 5000; i++) {
+      JsonArray child = new JsonArray();
+      current.add(child);
+      current = child;
+    }
+    StringBuilder tail = new StringBuilder();
+    root.prettyPrintTo(new Appendable() {
+      @Override
+      public Appendable append(CharSequence csq) {
+        return append(csq, 0, csq.length());
+      }
+
+      @Override
+      public Appendable append(CharSequence csq, int start, int end) {
+        tail.append(csq, start, end);
+        tail.delete(0, Math.max(0, tail.length() - 8));
+        return this;
+      }
+
+      @Override
+      public Appendable append(char c) {
+        return append(String.valueOf(c));
+      }
+    });
+    assertTrue(tail.toString().endsWith("  ]\n]"));
+  }
 }
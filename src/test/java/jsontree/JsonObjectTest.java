@@ -0,0 +1,226 @@
+package jsontree;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+import parser.InvalidJsonException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for looking up keys in a JSON object.
+ */
+public class JsonObjectTest {
+
+  /**
+   * Creates an object with the given number of distinct keys, followed by a second value
+   * for the first key.
+   *
+   * @param size the number of distinct keys
+   * @return the object
+   */
+  private JsonObject objectOf(int size) {
+    JsonObject object = new JsonObject();
+    for (int i = 0; i < size; i++) {
+      object.add("k" + i, new JsonString("v" + i));
+    }
+    object.add("k0", new JsonString("again"));
+    return object;
+  }
+
+  /**
+   * Test case to verify lookups in objects below and above the index threshold.
+   */
+  @Test
+  public void testLookup() {
+    for (int size : new int[] {1, JsonObject.INDEX_THRESHOLD, 1000}) {
+      JsonObject object = objectOf(size);
+      assertEquals(new JsonString("v0"), object.get("k0"));
+      assertEquals(new JsonString("v" + (size - 1)), object.get("k" + (size - 1)));
+      assertEquals(Arrays.asList(new JsonString("v0"), new JsonString("again")),
+              object.getAll("k0"));
+      assertTrue(object.containsKey("k0"));
+      assertFalse(object.containsKey("missing"));
+      assertNull(object.get("missing"));
+      assertEquals(Collections.emptyList(), object.getAll("missing"));
+      assertEquals(size, object.keys().size());
+      assertEquals("k0", object.keys().iterator().next());
+    }
+  }
+
+  /**
+   * Test case to verify that entries added after the index was built are found.
+   */
+  @Test
+  public void testAddAfterIndex() {
+    JsonObject object = objectOf(20);
+    assertTrue(object.containsKey("k19"));
+    object.add("late", new JsonString("x"));
+    object.add("k0", new JsonString("third"));
+    assertEquals(new JsonString("x"), object.get("late"));
+    List<JsonNode> all = object.getAll("k0");
+    assertEquals(3, all.size());
+    assertEquals(new JsonString("third"), all.get(2));
+    assertEquals(21, object.keys().size());
+  }
+
+  /**
+   * Test case to verify that the returned values cannot be modified.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testUnmodifiableValues() {
+    objectOf(20).getAll("k1").add(new JsonString("x"));
+  }
+
+  /**
+   * Test case to verify that keys read by a parser are shared through the symbol table,
+   * that keys added by hand are not added to it, and that objects built with the same keys
+   * in another order are equal.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testSharedKeys() throws InvalidJsonException {
+    new JsonTreeBuilder().input("{\"shared1\":\"a\"}");
+    JsonObject first = new JsonObject();
+    first.add("shared" + 1, new JsonString("a"));
+    first.add("other", new JsonString("b"));
+    JsonObject second = new JsonObject();
+    second.add("other", new JsonString("b"));
+    second.add(new StringBuilder("shared").append(1).toString(), new JsonString("a"));
+    assertSame(first.keyAt(0), second.keyAt(1));
+    assertEquals(first.keyIdAt(0), second.keyIdAt(1));
+    assertEquals(KeySymbols.shared().find("shared1"), first.keyIdAt(0));
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+    first.add("onlyAddedByHand", new JsonString("c"));
+    second.add("onlyAddedByHand", new JsonString("c"));
+    assertEquals(-1, KeySymbols.shared().find("onlyAddedByHand"));
+    assertEquals(-1, first.keyIdAt(2));
+    assertEquals(first, second);
+  }
+
+  /**
+   * Test case to verify that the entries of an object can still be read as a list.
+   */
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testEntryView() {
+    JsonObject object = objectOf(2);
+    List<Map.Entry<String, JsonNode>> entries =
+            (List<Map.Entry<String, JsonNode>>) object.valueObtain();
+    assertEquals(3, entries.size());
+    assertEquals("k1", entries.get(1).getKey());
+    assertEquals(new JsonString("again"), entries.get(2).getValue());
+  }
+
+  /**
+   * Test case to verify that keys are checked exactly like the naming convention says.
+   */
+  @Test
+  public void testKeyCheck() {
+    String alphabet = "aZz09_ \u00e9\n";
+    Random random = new Random(12);
+    for (int round = 0; round < 5000; round++) {
+      StringBuilder key = new StringBuilder();
+      for (int i = random.nextInt(5); i > 0; i--) {
+        key.append(alphabet.charAt(random.nextInt(alphabet.length())));
+      }
+      boolean expected = key.toString().matches("^[a-zA-Z][a-zA-Z0-9]*$");
+      try {
+        new JsonObject().add(key.toString(), new JsonString("v"));
+        assertTrue(key.toString(), expected);
+      } catch (IllegalArgumentException e) {
+        assertFalse(key.toString(), expected);
+      }
+    }
+  }
+
+  /**
+   * Test case to verify that adding a map adds its pairs in order, or none of them if a key
+   * is invalid.
+   */
+  @Test
+  public void testAddAll() {
+    Map<String, JsonNode> pairs = new LinkedHashMap<>();
+    pairs.put("b", new JsonString("1"));
+    pairs.put("a", new JsonString("2"));
+    JsonObject object = new JsonObject(1);
+    object.add("c", new JsonString("0"));
+    int hash = object.hashCode();
+    object.addAll(pairs);
+    assertNotEquals(hash, object.hashCode());
+    assertEquals(Arrays.asList("c", "b", "a"), new ArrayList<>(object.keys()));
+    pairs.put("1bad", new JsonString("3"));
+    try {
+      object.addAll(pairs);
+      fail("invalid key accepted");
+    } catch (IllegalArgumentException e) {
+      assertEquals(3, object.keys().size());
+      assertEquals(new JsonString("0"), object.get("c"));
+      assertEquals(1, object.getAll("b").size());
+    }
+  }
+
+  /**
+   * Test case to verify that builders create the same nodes as adding one by one.
+   */
+  @Test
+  public void testBuilders() {
+    JsonArray array = new JsonArray();
+    array.add(new JsonString("x"));
+    array.addAll(Arrays.asList(new JsonString("y"), new JsonObject()));
+    JsonObject expected = new JsonObject();
+    expected.add("name", new JsonString("n"));
+    expected.add("list", array);
+
+    JsonObject built = JsonObject.builder(2)
+            .put("name", new JsonString("n"))
+            .put("list", JsonArray.builder(3)
+                    .add(new JsonString("x"))
+                    .add(new JsonString("y"))
+                    .add(JsonObject.builder(0).build())
+                    .build())
+            .build();
+    assertEquals(expected, built);
+    assertEquals(expected.hashCode(), built.hashCode());
+    assertEquals(expected.prettyPrint(), built.prettyPrint());
+  }
+
+  /**
+   * Test case to verify that a builder rejects invalid keys.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testBuilderInvalidKey() {
+    JsonObject.builder(1).put("not valid", new JsonString("v"));
+  }
+
+  /**
+   * Test case to verify that a builder cannot be used after building.
+   */
+  @Test(expected = IllegalStateException.class)
+  public void testBuilderReuse() {
+    JsonObject.Builder builder = JsonObject.builder(1);
+    builder.build();
+    builder.put("k", new JsonString("v"));
+  }
+
+  /**
+   * Test case to verify that a negative size is rejected.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeSize() {
+    new JsonArray(-1);
+  }
+}
@@ -0,0 +1,213 @@
+package jsontree;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Test;
+import parser.InvalidJsonException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test class for JsonTape and TapeBuilder, which are compared with JsonTreeBuilder.
+ */
+public class JsonTapeTest {
+
+  /**
+   * Creates a random valid document with non-empty objects, duplicate keys and nested
+   * arrays.
+   *
+   * @param random the source of randomness
+   * @param out the builder receiving the document
+   * @param depth the remaining nesting depth
+   */
+  private static void randomObject(Random random, StringBuilder out, int depth) {
+    out.append('{');
+    int size = 1 + random.nextInt(3);
+    for (int i = 0; i < size; i++) {
+      out.append(i == 0 ? "" : ",").append("\"k").append(random.nextInt(3)).append("\":");
+      int kind = depth == 0 ? 0 : random.nextInt(3);
+      if (kind == 0) {
+        out.append("\"v").append(random.nextInt(3)).append(" €\"");
+      } else if (kind == 1) {
+        randomObject(random, out, depth - 1);
+      } else {
+        out.append("[\"a\",");
+        randomObject(random, out, depth - 1);
+        out.append(",\"b\"]");
+      }
+    }
+    out.append('}');
+  }
+
+  /**
+   * Checks that a tape view and a tree are interchangeable.
+   *
+   * @param expected the eagerly built tree
+   * @param actual the view
+   */
+  private static void assertSameTree(JsonNode expected, JsonNode actual) {
+    assertEquals(expected.hashCode(), actual.hashCode());
+    assertEquals(expected, actual);
+    assertEquals(actual, expected);
+    assertEquals(expected.prettyPrint(), actual.prettyPrint());
+    assertArrayEquals(expected.toCompactBytes(), actual.toCompactBytes());
+  }
+
+  /**
+   * Test case to verify that tapes of random documents, parsed or copied from trees, read
+   * like the trees.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testSameAsTree() throws InvalidJsonException {
+    Random random = new Random(15);
+    for (int round = 0; round < 2000; round++) {
+      StringBuilder json = new StringBuilder();
+      randomObject(random, json, 4);
+      JsonNode expected = new JsonTreeBuilder().input(json).output();
+      TapeBuilder builder = new TapeBuilder();
+      for (int i = 0; i < json.length(); i++) {
+        builder.input(json.charAt(i));
+      }
+      assertSameTree(expected, builder.output().root());
+      assertSameTree(expected, new TapeBuilder().input(json).output().root());
+      assertSameTree(expected, JsonTape.of(expected).root());
+    }
+  }
+
+  /**
+   * Test case to verify that random input, including the odd input the grammar accepts, is
+   * accepted, rejected and turned into the same documents as the eager builder.
+   */
+  @Test
+  public void testSameAsTreeOnRandomInput() {
+    Random random = new Random(5010);
+    String alphabet = "{}[]\":, a7$";
+    for (int round = 0; round < 20000; round++) {
+      JsonTreeBuilder eager = new JsonTreeBuilder();
+      TapeBuilder tape = new TapeBuilder();
+      int length = 1 + random.nextInt(24);
+      for (int i = 0; i < length; i++) {
+        char c = i == 0 ? '{' : alphabet.charAt(random.nextInt(alphabet.length()));
+        String expectedError = null;
+        String actualError = null;
+        try {
+          eager.input(c);
+        } catch (InvalidJsonException e) {
+          expectedError = e.getMessage();
+        }
+        try {
+          tape.input(c);
+        } catch (InvalidJsonException e) {
+          actualError = e.getMessage();
+        }
+        assertEquals(expectedError, actualError);
+        if (expectedError != null) {
+          break;
+        }
+        if (eager.output() == null) {
+          assertNull(tape.output());
+        } else {
+          assertSameTree(eager.output(), tape.output().root());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test case to verify lookups on a tape, in any order of access.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testLookup() throws InvalidJsonException {
+    StringBuilder json = new StringBuilder("{\"list\":[");
+    for (int i = 0; i < 100; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"id\":\"").append(i).append("\"}");
+    }
+    json.append("],\"a\":\"1\",\"a\":\"2\"}");
+    JsonObjectView root = (JsonObjectView) new TapeBuilder().input(json).output().root();
+    assertEquals(Arrays.asList(new JsonString("1"), new JsonString("2")), root.getAll("a"));
+    assertEquals(new JsonString("1"), root.get("a"));
+    assertTrue(root.containsKey("list"));
+    assertFalse(root.containsKey("missing"));
+    assertNull(root.get("never seen anywhere"));
+    assertEquals(Arrays.asList("list", "a"), Arrays.asList(root.keys().toArray()));
+    JsonNode list = root.get("list");
+    for (int i : new int[] {99, 0, 50, 51, 3}) {
+      JsonNode element = list.childAt(i);
+      assertEquals(new JsonString(String.valueOf(i)), ((JsonObjectView) element).get("id"));
+    }
+    assertEquals(100, list.childCount());
+  }
+
+  /**
+   * Test case to verify the size of a tape.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testFootprint() throws InvalidJsonException {
+    JsonTape tape = new TapeBuilder().input("{\"name\":\"abc\",\"list\":[\"de\"]}").output();
+    assertEquals(6, tape.tapeLength());
+    assertEquals(2 + 3 + 2 + 2, tape.poolLength());
+  }
+
+  /**
+   * Test case to verify that tape nodes have the lookups of an object but are not mutable
+   * containers.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testReadOnly() throws InvalidJsonException {
+    JsonNode root = new TapeBuilder().input("{\"a\":[\"b\"]}").output().root();
+    assertTrue(root instanceof JsonObjectView);
+    assertFalse(root instanceof IJsonObject);
+    assertFalse(((JsonObjectView) root).get("a") instanceof IJsonArray);
+  }
+
+  /**
+   * Test case to verify that a tree with null values is not copied.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testNullValue() {
+    JsonObject object = new JsonObject();
+    object.add("a", null);
+    JsonTape.of(object);
+  }
+
+  /**
+   * Test case to verify that non-ASCII keys are rejected like the objects do.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidKey() throws InvalidJsonException {
+    new TapeBuilder().input("{\"ключ\":\"v\"}");
+  }
+
+  /**
+   * Test that a reset builder writes a new tape without changing the previous one.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testReset() throws InvalidJsonException {
+    TapeBuilder builder = new TapeBuilder();
+    builder.input("{\"a\":[\"b\"]}");
+    JsonTape first = builder.output();
+    builder.reset();
+    assertNull(builder.output());
+    builder.input("{\"c\":[");
+    builder.reset();
+    builder.input("{\"d\":\"e\"}");
+    assertEquals(new JsonTreeBuilder().input("{\"d\":\"e\"}").output(), builder.output().root());
+    assertEquals(new JsonTreeBuilder().input("{\"a\":[\"b\"]}").output(), first.root());
+  }
+}
@@ -1,12 +1,22 @@
 package jsontree;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.junit.Test;
 import parser.InvalidJsonException;
 import parser.JsonParser;
+import parser.ParserSnapshot;
+import parser.SnapshotParser;
+import validator.JsonValidator;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Test class for validating the functionality of the JsonTreeBuilder.
@@ -143,4 +153,185 @@ public class JsonTreeBuilderTest {
             .input('}');
     assertEquals(build, returned);
   }
+
+  /**
+   * Test case to verify that bulk input builds the same tree as single characters,
+   * wherever the input is split.
+   */
+  @Test
+  public void testBulkInput() throws InvalidJsonException {
+    String json = "{\"a\":\"x y\",\"b\":[\"1\",{\"c\":\"\"}], \"d\" : {\"e\":\"2\"}}";
+    JsonNode expected = treeBuild(json);
+    char[] chars = json.toCharArray();
+    for (int split = 0; split <= chars.length; split++) {
+      JsonParser<JsonNode> parser = new JsonTreeBuilder();
+      parser.input(chars, 0, split).input(chars, split, chars.length - split);
+      assertEquals(expected.prettyPrint(), parser.output().prettyPrint());
+    }
+  }
+
+  /**
+   * Test case to verify that a tree is built from a reader.
+   */
+  @Test
+  public void testConsumeReader() throws IOException, InvalidJsonException {
+    String json = "{\"out\":{\"in\":[\"one\",\"two\"]}}";
+    JsonParser<JsonNode> parser = new JsonTreeBuilder().consume(new StringReader(json));
+    assertEquals(treeBuild(json), parser.output());
+  }
+
+  @Test(expected = InvalidJsonException.class)
+  public void testBulkInvalidValue() throws InvalidJsonException {
+    new JsonTreeBuilder().input("{\"name\":5}");
+  }
+
+  /**
+   * Test case to verify that a tree is only returned once the input is complete.
+   */
+  @Test
+  public void testIncomplete() throws InvalidJsonException {
+    JsonParser<JsonNode> parser = new JsonTreeBuilder();
+    assertNull(parser.output());
+    parser.input("{\"a\":[\"b\"");
+    assertNull(parser.output());
+    parser.input("]}");
+    assertNotNull(parser.output());
+  }
+
+  /**
+   * Test case to verify that the builder accepts and rejects the same input as the
+   * JsonValidator, with the same messages.
+   */
+  @Test
+  public void testSameAsValidator() {
+    Random random = new Random(5010);
+    String alphabet = "{}[]\":, a7$";
+    for (int round = 0; round < 20000; round++) {
+      JsonValidator validator = new JsonValidator();
+      JsonTreeBuilder builder = new JsonTreeBuilder();
+      int length = 1 + random.nextInt(24);
+      for (int i = 0; i < length; i++) {
+        char c = i == 0 ? '{' : alphabet.charAt(random.nextInt(alphabet.length()));
+        String expectedError = null;
+        String actualError = null;
+        try {
+          validator.input(c);
+        } catch (InvalidJsonException e) {
+          expectedError = e.getMessage();
+        }
+        try {
+          builder.input(c);
+        } catch (InvalidJsonException e) {
+          actualError = e.getMessage();
+        }
+        assertEquals(expectedError, actualError);
+        if (expectedError != null) {
+          break;
+        }
+        assertEquals(validator.output().equals("Status:Valid"), builder.output() != null);
+      }
+    }
+  }
+
+  /**
+   * Test case to verify that keys the grammar accepts but the objects do not are still
+   * rejected, and that valid keys are added without a new check.
+   *
+   * @throws InvalidJsonException if the input JSON string is invalid
+   */
+  @Test
+  public void testKeyValidation() throws InvalidJsonException {
+    JsonObject expected = new JsonObject();
+    expected.add("k1", new JsonString("v"));
+    JsonArray array = new JsonArray();
+    array.add(new JsonString("x"));
+    expected.add("Z9z", array);
+    assertEquals(expected, treeBuild("{\"k1\":\"v\",\"Z9z\":[\"x\"]}"));
+    try {
+      treeBuild("{\"\u00e9t\u00e9\":\"v\"}");
+      fail("non-ASCII key accepted");
+    } catch (IllegalArgumentException e) {
+      assertEquals("\u00e9t\u00e9 is not a valid key", e.getMessage());
+    }
+  }
+
+  /**
+   * Test that a reset builder builds a new tree without changing the previous one.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testReset() throws InvalidJsonException {
+    JsonTreeBuilder builder = new JsonTreeBuilder();
+    builder.input("{\"a\":[\"b\"]}");
+    JsonNode first = builder.output();
+    builder.reset();
+    assertNull(builder.output());
+    builder.input("{\"c\":{\"d\":");
+    builder.reset();
+    builder.input("{\"e\":\"f\"}");
+    assertEquals(treeBuild("{\"e\":\"f\"}"), builder.output());
+    assertEquals(treeBuild("{\"a\":[\"b\"]}"), first);
+  }
+
+  /**
+   * Test that builders forked from a snapshot, taken within a large array and an unfinished
+   * string, continue independently of each other and of the original builder.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testSnapshot() throws InvalidJsonException {
+    StringBuilder prefix = new StringBuilder("{\"items\":[");
+    for (int i = 0; i < 150; i++) {
+      prefix.append("{\"id\":\"").append(i).append("\"},");
+    }
+    prefix.append("{\"n\":\"ab");
+    String[] suffixes = {"c\"}]}", "d\", \"m\":{} \"k\":\"v\"}]}", "\"}, \"q\"]}"};
+    JsonTreeBuilder builder = new JsonTreeBuilder();
+    builder.input(prefix);
+    ParserSnapshot<JsonNode> snapshot = builder.snapshot();
+    SnapshotParser<JsonNode> fork = builder.fork();
+    builder.input(suffixes[0]);
+    JsonNode first = builder.output();
+    for (String suffix : suffixes) {
+      assertEquals(treeBuild(prefix + suffix), snapshot.fork().input(suffix).output());
+    }
+    fork.input("\"}, ");
+    JsonParser<JsonNode> nested = fork.fork();
+    fork.input("\"r\"]}");
+    nested.input("[\"s\"]]}");
+    assertEquals(treeBuild(prefix + "\"}, \"r\"]}"), fork.output());
+    assertEquals(treeBuild(prefix + "\"}, [\"s\"]]}"), nested.output());
+    assertEquals(treeBuild(prefix + suffixes[0]), first);
+  }
+
+  /**
+   * Test that each object of a sequence is handed over as soon as it is complete, and that
+   * the builder is ready for the next one.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testDocuments() throws InvalidJsonException {
+    String[] documents = {
+      "{\"a\":\"b\"}", "{\"c\":[\"d\",{\"e\":\"x\"}]}", "{\"f\":{} \"g\":\"h\"}"
+    };
+    List<JsonNode> trees = new ArrayList<>();
+    JsonTreeBuilder builder = new JsonTreeBuilder(trees::add);
+    builder.input(String.join("\n", documents) + "\n{\"i\":");
+    assertEquals(documents.length, trees.size());
+    for (int i = 0; i < documents.length; i++) {
+      assertEquals(treeBuild(documents[i]), trees.get(i));
+    }
+    assertNull(builder.output());
+    builder.input("\"j\"}");
+    assertEquals(treeBuild("{\"i\":\"j\"}"), trees.get(documents.length));
+    try {
+      builder.input(" \"k\"");
+      fail();
+    } catch (InvalidJsonException e) {
+      assertEquals(documents.length + 1, trees.size());
+    }
+  }
 }
@@ -0,0 +1,157 @@
+package jsontree;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test class for KeySymbols.
+ */
+public class KeySymbolsTest {
+
+  /**
+   * Test that a key gets the same id from a string and from a buffer, and that the buffer
+   * is not kept by the table.
+   */
+  @Test
+  public void testIntern() {
+    KeySymbols symbols = new KeySymbols(100);
+    int id = symbols.intern("name");
+    StringBuilder buffer = new StringBuilder("name");
+    assertEquals(id, symbols.intern(buffer));
+    assertEquals(id, symbols.find("name"));
+    assertNotEquals(id, symbols.intern("other"));
+    buffer.setLength(0);
+    buffer.append("third");
+    int third = symbols.intern(buffer);
+    buffer.setLength(0);
+    assertEquals("third", symbols.name(third));
+    assertSame(symbols.name(id), symbols.name(symbols.intern("na" + "me".trim())));
+    assertEquals(-1, symbols.find("missing"));
+    assertEquals(3, symbols.size());
+  }
+
+  /**
+   * Test that keys longer than the limit are not added, however they are given.
+   */
+  @Test
+  public void testLongKey() {
+    KeySymbols symbols = new KeySymbols(100);
+    StringBuilder key = new StringBuilder();
+    for (int i = 0; i < KeySymbols.MAX_KEY_LENGTH; i++) {
+      key.append('k');
+    }
+    assertEquals(0, symbols.intern(key));
+    key.append('k');
+    char[] chars = key.toString().toCharArray();
+    assertEquals(-1, symbols.intern(key));
+    assertEquals(-1, symbols.intern(key.toString()));
+    assertEquals(-1, symbols.intern(chars, 0, chars.length));
+    assertEquals(-1, symbols.find(key.toString()));
+    assertEquals(1, symbols.size());
+  }
+
+  /**
+   * Test that keys with the same hash are told apart, across several resizes.
+   */
+  @Test
+  public void testCollisions() {
+    KeySymbols symbols = new KeySymbols(10000);
+    for (int i = 0; i < 1024; i++) {
+      assertEquals(i, symbols.intern(collidingKey(i)));
+    }
+    assertEquals(1024, symbols.size());
+    for (int i = 0; i < 1024; i++) {
+      assertEquals(collidingKey(i).hashCode(), collidingKey(0).hashCode());
+      assertEquals(i, symbols.find(collidingKey(i)));
+    }
+    assertEquals(-1, symbols.find("AaAa"));
+  }
+
+  /**
+   * Creates a key of ten pairs of "Aa" or "BB", which all have the same hash.
+   *
+   * @param bits which pairs are "BB"
+   * @return the key
+   */
+  private static String collidingKey(int bits) {
+    StringBuilder key = new StringBuilder();
+    for (int b = 0; b < 10; b++) {
+      key.append((bits >> b & 1) == 0 ? "Aa" : "BB");
+    }
+    return key.toString();
+  }
+
+  /**
+   * Test that a full table keeps its symbols and rejects new ones.
+   */
+  @Test
+  public void testFull() {
+    KeySymbols symbols = new KeySymbols(2);
+    assertEquals(0, symbols.intern("a"));
+    assertEquals(1, symbols.intern("b"));
+    assertEquals(-1, symbols.intern("c"));
+    assertEquals(-1, symbols.intern(new StringBuilder("c")));
+    assertEquals(1, symbols.intern("b"));
+    assertEquals(2, symbols.size());
+  }
+
+  /**
+   * Test that a table cannot be empty.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidMaximum() {
+    new KeySymbols(0);
+  }
+
+  /**
+   * Test that an unknown id is rejected.
+   */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testUnknownId() {
+    new KeySymbols(10).name(0);
+  }
+
+  /**
+   * Test that threads interning the same keys concurrently all get the same ids.
+   *
+   * @throws Exception if a thread fails
+   */
+  @Test
+  public void testConcurrentIntern() throws Exception {
+    KeySymbols symbols = new KeySymbols(100000);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<int[]>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        int offset = t;
+        results.add(executor.submit(() -> {
+          int[] ids = new int[5000];
+          for (int i = 0; i < ids.length; i++) {
+            int k = (i + offset * 1250) % ids.length;
+            ids[k] = symbols.intern(new StringBuilder("key").append(k));
+          }
+          return ids;
+        }));
+      }
+      int[] expected = results.get(0).get();
+      for (Future<int[]> result : results) {
+        int[] ids = result.get();
+        for (int i = 0; i < ids.length; i++) {
+          assertEquals(expected[i], ids[i]);
+          assertEquals("key" + i, symbols.name(ids[i]));
+        }
+      }
+      assertEquals(5000, symbols.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
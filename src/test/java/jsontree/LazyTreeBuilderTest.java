@@ -0,0 +1,216 @@
+package jsontree;
+
+import java.util.Random;
+import org.junit.Test;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for LazyTreeBuilder, which is compared with JsonTreeBuilder.
+ */
+public class LazyTreeBuilderTest {
+
+  /**
+   * Creates a random valid document. Objects are never empty, since the grammar does not
+   * accept a comma after an empty object.
+   *
+   * @param random the source of randomness
+   * @param out the builder receiving the document
+   * @param depth the remaining nesting depth
+   */
+  private static void randomObject(Random random, StringBuilder out, int depth) {
+    out.append('{');
+    int size = 1 + random.nextInt(3);
+    for (int i = 0; i < size; i++) {
+      out.append(i == 0 ? "" : ",").append(" \"k").append(random.nextInt(3)).append("\" : ");
+      randomValue(random, out, depth);
+    }
+    out.append('}');
+  }
+
+  /**
+   * Creates a random value, which is a string, an object or an array that is never empty.
+   *
+   * @param random the source of randomness
+   * @param out the builder receiving the value
+   * @param depth the remaining nesting depth
+   */
+  private static void randomValue(Random random, StringBuilder out, int depth) {
+    int kind = depth == 0 ? 0 : random.nextInt(3);
+    if (kind == 0) {
+      out.append("\"v").append(random.nextInt(3)).append(" é\"");
+    } else if (kind == 1) {
+      randomObject(random, out, depth - 1);
+    } else {
+      out.append('[');
+      int size = 1 + random.nextInt(3);
+      for (int i = 0; i < size; i++) {
+        out.append(i == 0 ? "" : ",");
+        randomValue(random, out, depth - 1);
+      }
+      out.append(']');
+    }
+  }
+
+  /**
+   * Checks that two trees are interchangeable.
+   *
+   * @param expected the eagerly built tree
+   * @param actual the lazy tree
+   */
+  private static void assertSameTree(JsonNode expected, JsonNode actual) {
+    assertEquals(expected.hashCode(), actual.hashCode());
+    assertEquals(expected, actual);
+    assertEquals(actual, expected);
+    assertEquals(expected.prettyPrint(), actual.prettyPrint());
+  }
+
+  /**
+   * Test case to verify that lazy trees of random documents are equal to eager ones, with
+   * the same hash codes and printed forms, whichever is read first.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testSameAsEager() throws InvalidJsonException {
+    Random random = new Random(14);
+    for (int round = 0; round < 2000; round++) {
+      StringBuilder json = new StringBuilder();
+      randomObject(random, json, 4);
+      JsonNode expected = new JsonTreeBuilder().input(json).output();
+      JsonNode lazy = new LazyTreeBuilder().input(json).output();
+      if (round % 2 == 0) {
+        assertEquals(expected.prettyPrint(), lazy.prettyPrint());
+      }
+      assertSameTree(expected, lazy);
+      JsonParser<JsonNode> single = new LazyTreeBuilder();
+      for (int i = 0; i < json.length(); i++) {
+        single.input(json.charAt(i));
+      }
+      assertSameTree(expected, single.output());
+    }
+  }
+
+  /**
+   * Test case to verify that random input, including the odd input the grammar accepts, is
+   * accepted, rejected and turned into trees like the eager builder does.
+   */
+  @Test
+  public void testSameAsEagerOnRandomInput() {
+    Random random = new Random(5010);
+    String alphabet = "{}[]\":, a7$";
+    for (int round = 0; round < 20000; round++) {
+      JsonTreeBuilder eager = new JsonTreeBuilder();
+      LazyTreeBuilder lazy = new LazyTreeBuilder();
+      int length = 1 + random.nextInt(24);
+      for (int i = 0; i < length; i++) {
+        char c = i == 0 ? '{' : alphabet.charAt(random.nextInt(alphabet.length()));
+        String expectedError = null;
+        String actualError = null;
+        try {
+          eager.input(c);
+        } catch (InvalidJsonException e) {
+          expectedError = e.getMessage();
+        }
+        try {
+          lazy.input(c);
+        } catch (InvalidJsonException e) {
+          actualError = e.getMessage();
+        }
+        assertEquals(expectedError, actualError);
+        if (expectedError != null) {
+          break;
+        }
+        if (eager.output() == null) {
+          assertNull(lazy.output());
+        } else {
+          assertSameTree(eager.output(), lazy.output());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test case to verify lookups and changes on a lazy tree.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testReadAndChange() throws InvalidJsonException {
+    String json = "{\"a\":{\"b\":[\"x\",{\"c\":\"y\"}]},\"d\":\"z\"}";
+    LazyTreeBuilder builder = new LazyTreeBuilder();
+    builder.input(json);
+    JsonObject root = (JsonObject) builder.output();
+    assertSame(root, builder.output());
+    assertEquals(new JsonString("z"), root.get("d"));
+    JsonObject a = (JsonObject) root.get("a");
+    JsonArray b = (JsonArray) a.get("b");
+    b.add(new JsonString("w"));
+    JsonNode expected = new JsonTreeBuilder().input(json).output();
+    ((JsonArray) ((JsonObject) ((JsonObject) expected).get("a")).get("b"))
+            .add(new JsonString("w"));
+    assertSameTree(expected, root);
+    root.add("e", new JsonString("v"));
+    assertTrue(root.containsKey("e"));
+    assertEquals(3, root.keys().size());
+  }
+
+  /**
+   * Test case to verify that an incomplete document has no tree until it is completed.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testIncomplete() throws InvalidJsonException {
+    LazyTreeBuilder builder = new LazyTreeBuilder();
+    assertNull(builder.output());
+    builder.input("{\"a\":[\"b\"");
+    assertNull(builder.output());
+    builder.input("]}");
+    assertEquals(new JsonTreeBuilder().input("{\"a\":[\"b\"]}").output(), builder.output());
+  }
+
+  /**
+   * Test case to verify that keys that the objects do not accept are rejected while parsing.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testInvalidKey() throws InvalidJsonException {
+    try {
+      new LazyTreeBuilder().input("{\"é\":\"v\"}");
+      fail("non-ASCII key accepted");
+    } catch (IllegalArgumentException e) {
+      assertEquals("é is not a valid key", e.getMessage());
+    }
+  }
+
+  /**
+   * Test that a reset builder does not overwrite the input of the tree it returned before,
+   * whose nodes are only decoded afterwards.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testReset() throws InvalidJsonException {
+    LazyTreeBuilder builder = new LazyTreeBuilder();
+    builder.input("{\"a\":[\"b\"]}");
+    JsonNode first = builder.output();
+    builder.reset();
+    builder.input("{\"c\":{\"d\":\"e\"}}");
+    JsonNode second = builder.output();
+    builder.reset();
+    builder.input("{\"x\":");
+    builder.reset();
+    builder.input("{\"y\":\"z\"}");
+    assertEquals(new JsonTreeBuilder().input("{\"a\":[\"b\"]}").output(), first);
+    assertEquals(new JsonTreeBuilder().input("{\"c\":{\"d\":\"e\"}}").output(), second);
+    assertEquals(new JsonTreeBuilder().input("{\"y\":\"z\"}").output(), builder.output());
+  }
+}
@@ -0,0 +1,189 @@
+package jsontree;
+
+import java.util.Random;
+import org.junit.Test;
+import parser.InvalidJsonException;
+import validator.JsonGrammar;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for ParallelTreeBuilder, which is compared with JsonTreeBuilder.
+ */
+public class ParallelTreeBuilderTest {
+
+  /**
+   * Creates a random valid document, with the empty objects the grammar allows: an empty
+   * object is followed by a key or a closing brace instead of a comma.
+   *
+   * @param random the source of randomness
+   * @param out the builder receiving the document
+   * @param depth the remaining nesting depth
+   * @return true if the closing brace is read in the state that follows an empty object,
+   *         which is then followed by a key or a closing brace
+   */
+  private static boolean randomObject(Random random, StringBuilder out, int depth) {
+    out.append('{');
+    int size = random.nextInt(depth == 0 ? 3 : 12);
+    boolean comma = false;
+    for (int i = 0; i < size; i++) {
+      out.append(comma ? "," : "").append(" \"k").append(random.nextInt(20)).append("\" : ");
+      comma = randomValue(random, out, depth);
+    }
+    out.append('}');
+    return !comma;
+  }
+
+  /**
+   * Creates a random value, which is a string, an object or an array that is never empty.
+   *
+   * @param random the source of randomness
+   * @param out the builder receiving the value
+   * @param depth the remaining nesting depth
+   * @return false if the value is an object that has to be followed by a key or a
+   *         closing brace instead of a comma
+   */
+  private static boolean randomValue(Random random, StringBuilder out, int depth) {
+    int kind = depth == 0 ? 0 : random.nextInt(3);
+    if (kind == 0) {
+      out.append("\"v").append(random.nextInt(100)).append(" x\"");
+    } else if (kind == 1) {
+      return !randomObject(random, out, depth - 1);
+    } else {
+      out.append('[');
+      int size = 1 + random.nextInt(8);
+      for (int i = 0; i < size; i++) {
+        out.append(i == 0 ? "" : ", ");
+        int length = out.length();
+        if (!randomValue(random, out, depth - 1)) {
+          out.setLength(length);
+          out.append("\"empty\"");
+        }
+      }
+      out.append(']');
+    }
+    return true;
+  }
+
+  /**
+   * Builds a document with the sequential builder.
+   *
+   * @param json the document
+   * @return its tree
+   * @throws InvalidJsonException if the document is invalid
+   */
+  private static JsonNode sequential(String json) throws InvalidJsonException {
+    return new JsonTreeBuilder().input(json).output();
+  }
+
+  /**
+   * Test case to verify that random documents split at many sizes build trees equal to
+   * the sequential ones.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testSameAsSequential() throws InvalidJsonException, InterruptedException {
+    Random random = new Random(19);
+    for (int round = 0; round < 300; round++) {
+      StringBuilder json = new StringBuilder(round % 2 == 0 ? "" : " \n");
+      randomObject(random, json, 4);
+      String document = json.append(round % 3 == 0 ? " " : "").toString();
+      JsonNode expected = sequential(document);
+      for (int splitSize : new int[] {1, 5, 40, 1 << 16}) {
+        JsonNode actual = new ParallelTreeBuilder(3, splitSize).build(document);
+        assertEquals(document, expected, actual);
+        assertEquals(expected.hashCode(), actual.hashCode());
+        assertEquals(expected.prettyPrint(), actual.prettyPrint());
+      }
+    }
+  }
+
+  /**
+   * Test a large array whose elements are built in runs, with the keys and strings the
+   * grammar allows after an empty object.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testLargeArray() throws InvalidJsonException, InterruptedException {
+    StringBuilder json = new StringBuilder("{\"items\":[");
+    for (int i = 0; i < 20000; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"e\":{} \"id\":\"").append(i).append("\"}");
+    }
+    json.append(", {} \"odd\" : \"pair\"], \"tail\":{}}");
+    String document = json.toString();
+    assertEquals(sequential(document), new ParallelTreeBuilder(4, 1000).build(document));
+  }
+
+  /**
+   * Test that a single thread, or a document smaller than the split size, gives the tree
+   * and the errors of the sequential builder.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testSequentialPath() throws InvalidJsonException, InterruptedException {
+    String document = "{\"a\":[\"b\",{\"c\":\"d\"}], \"e\":{}}";
+    assertEquals(sequential(document), new ParallelTreeBuilder(1, 1).build(document));
+    assertEquals(sequential(document), new ParallelTreeBuilder(4, 1 << 16).build(document));
+    try {
+      new ParallelTreeBuilder(1, 1).build("{\"a\":[\"b\"}");
+      fail();
+    } catch (InvalidJsonException e) {
+      assertEquals(JsonGrammar.BRACKET_MISMATCH, e.getMessage());
+    }
+  }
+
+  /**
+   * Test that input that is not a single valid object gives the same result as the
+   * sequential builder.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testOtherInput() throws InvalidJsonException, InterruptedException {
+    ParallelTreeBuilder builder = new ParallelTreeBuilder(2, 1);
+    assertNull(builder.build(""));
+    assertNull(builder.build("{\"a\":[\"b\","));
+    assertEquals(sequential("{}\"root\""), builder.build("{}\"root\""));
+    assertEquals(sequential("{\"a\":{}} \"root\""), builder.build("{\"a\":{}} \"root\""));
+    try {
+      builder.build("{\"a\":[\"b\"}");
+      fail();
+    } catch (InvalidJsonException e) {
+      assertEquals(JsonGrammar.BRACKET_MISMATCH, e.getMessage());
+    }
+  }
+
+  /**
+   * Test that the first key that is not ASCII is reported, as by the sequential builder,
+   * whichever run it is in.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testInvalidKey() throws InvalidJsonException, InterruptedException {
+    StringBuilder json = new StringBuilder("{\"items\":[");
+    for (int i = 0; i < 200; i++) {
+      String key = i == 120 ? "ké" : i == 150 ? "kè" : "k";
+      json.append(i == 0 ? "" : ",").append("{\"").append(key).append("\":\"v\"}");
+    }
+    json.append("], \"é\":\"v\"}");
+    for (int splitSize : new int[] {1, 50, 1 << 16}) {
+      try {
+        new ParallelTreeBuilder(4, splitSize).build(json);
+        fail();
+      } catch (IllegalArgumentException e) {
+        assertEquals("ké is not a valid key", e.getMessage());
+      }
+    }
+  }
+}
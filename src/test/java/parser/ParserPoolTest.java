@@ -0,0 +1,112 @@
+package parser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import jsontree.JsonNode;
+import jsontree.JsonTreeBuilder;
+import org.junit.Test;
+import validator.DfaJsonValidator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Test class for ParserPool.
+ */
+public class ParserPoolTest {
+
+  /**
+   * Test that a thread gets back the parser it released, reset.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testReuse() throws InvalidJsonException {
+    ParserPool<JsonTreeBuilder> pool = new ParserPool<>(JsonTreeBuilder::new, 4);
+    JsonTreeBuilder builder = pool.acquire();
+    builder.input("{\"a\":[\"b\"");
+    pool.release(builder);
+    JsonTreeBuilder again = pool.acquire();
+    assertSame(builder, again);
+    JsonNode node = again.input("{\"c\":\"d\"}").output();
+    assertEquals(new JsonTreeBuilder().input("{\"c\":\"d\"}").output(), node);
+  }
+
+  /**
+   * Test that parsers acquired together are distinct, and that the pool creates no more
+   * parsers than are in use at once.
+   */
+  @Test
+  public void testSharedQueue() {
+    AtomicInteger created = new AtomicInteger();
+    ParserPool<DfaJsonValidator> pool = new ParserPool<>(() -> {
+      created.incrementAndGet();
+      return new DfaJsonValidator();
+    }, 2);
+    for (int round = 0; round < 10; round++) {
+      List<DfaJsonValidator> taken = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        taken.add(pool.acquire());
+      }
+      assertNotSame(taken.get(0), taken.get(1));
+      assertNotSame(taken.get(1), taken.get(2));
+      taken.forEach(pool::release);
+    }
+    assertEquals(3, created.get());
+  }
+
+  /**
+   * Test that parsers released by one thread are acquired by another.
+   *
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testThreads() throws InterruptedException {
+    AtomicInteger created = new AtomicInteger();
+    ParserPool<DfaJsonValidator> pool = new ParserPool<>(() -> {
+      created.incrementAndGet();
+      return new DfaJsonValidator();
+    }, 4);
+    DfaJsonValidator first = pool.acquire();
+    DfaJsonValidator second = pool.acquire();
+    pool.release(first);
+    pool.release(second);
+    AtomicInteger valid = new AtomicInteger();
+    Thread thread = new Thread(() -> {
+      DfaJsonValidator validator = pool.acquire();
+      try {
+        if ("Status:Valid".equals(validator.input("{\"a\":\"b\"}").output())) {
+          valid.incrementAndGet();
+        }
+      } catch (InvalidJsonException e) {
+        throw new IllegalStateException(e);
+      }
+      pool.release(validator);
+    });
+    thread.start();
+    thread.join();
+    assertEquals(1, valid.get());
+    assertEquals(2, created.get());
+  }
+
+  /**
+   * Test that a parser that cannot be reset is not pooled.
+   */
+  @Test(expected = UnsupportedOperationException.class)
+  public void testNotResettable() {
+    ParserPool<JsonParser<String>> pool = new ParserPool<>(() -> new JsonParser<String>() {
+      @Override
+      public JsonParser<String> input(char c) {
+        return this;
+      }
+
+      @Override
+      public String output() {
+        return "";
+      }
+    }, 1);
+    pool.release(pool.acquire());
+  }
+}
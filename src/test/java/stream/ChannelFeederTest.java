@@ -0,0 +1,108 @@
+package stream;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.Test;
+import jsontree.JsonNode;
+import jsontree.JsonTreeBuilder;
+import parser.InvalidJsonException;
+import validator.DfaJsonValidator;
+import validator.JsonValidator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test class for ChannelFeeder.
+ */
+public class ChannelFeederTest {
+
+  private static final String JSON =
+          "{\"a\":\"café € 😀\", \"b\":[\"é\", {\"c\":\"ÿ\"}]}";
+
+  /**
+   * Test case to verify that a document split into three buffers at every pair of
+   * positions, including inside multi-byte sequences, builds the same tree.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testSplitSequences() throws InvalidJsonException {
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    JsonNode expected = new JsonTreeBuilder().input(JSON).output();
+    for (int i = 0; i <= bytes.length; i++) {
+      for (int j = i; j <= bytes.length; j += 3) {
+        ChannelFeeder<JsonNode> feeder = new ChannelFeeder<>(new JsonTreeBuilder());
+        feeder.feed(ByteBuffer.wrap(bytes, 0, i));
+        feeder.feed(ByteBuffer.wrap(bytes, i, j - i));
+        feeder.feed(ByteBuffer.wrap(bytes, j, bytes.length - j));
+        assertEquals(expected, feeder.finish().output());
+      }
+    }
+  }
+
+  /**
+   * Test that malformed and truncated sequences are read as replacement characters, as
+   * when the bytes are decoded into a string.
+   *
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testMalformed() throws InvalidJsonException {
+    byte[] bytes = "{\"a\":\"x€y\"}".getBytes(StandardCharsets.UTF_8);
+    byte[] broken = Arrays.copyOf(bytes, bytes.length);
+    broken[8] = 'z';
+    ChannelFeeder<JsonNode> feeder = new ChannelFeeder<>(new JsonTreeBuilder());
+    for (byte b : broken) {
+      feeder.feed(ByteBuffer.wrap(new byte[] {b}));
+    }
+    String decoded = new String(broken, StandardCharsets.UTF_8);
+    assertEquals(new JsonTreeBuilder().input(decoded).output(), feeder.finish().output());
+    ChannelFeeder<String> validator = new ChannelFeeder<>(new JsonValidator());
+    validator.feed(ByteBuffer.wrap(bytes, 0, 8));
+    assertEquals("Status:Incomplete", validator.finish().output());
+  }
+
+  /**
+   * Test that a non-blocking pipe is read as its bytes arrive, without waiting when none
+   * are available, with the tree builder and both validators.
+   *
+   * @throws IOException if the pipe fails
+   * @throws InvalidJsonException if the input is invalid
+   */
+  @Test
+  public void testPipe() throws IOException, InvalidJsonException {
+    byte[] bytes = JSON.getBytes(StandardCharsets.UTF_8);
+    int split = JSON.indexOf('€') + 1;
+    ChannelFeeder<?>[] feeders = {
+      new ChannelFeeder<>(new JsonTreeBuilder()),
+      new ChannelFeeder<>(new JsonValidator()),
+      new ChannelFeeder<>(new DfaJsonValidator())
+    };
+    for (ChannelFeeder<?> feeder : feeders) {
+      Pipe pipe = Pipe.open();
+      pipe.source().configureBlocking(false);
+      assertEquals(0, feeder.read(pipe.source()));
+      pipe.sink().write(ByteBuffer.wrap(bytes, 0, split));
+      assertEquals(split, feeder.read(pipe.source()));
+      assertEquals(0, feeder.read(pipe.source()));
+      pipe.sink().write(ByteBuffer.wrap(bytes, split, bytes.length - split));
+      pipe.sink().close();
+      int count;
+      while ((count = feeder.read(pipe.source())) >= 0) {
+        assertEquals(bytes.length - split, count);
+      }
+      pipe.source().close();
+      Object output = feeder.parser().output();
+      if (output instanceof String) {
+        assertEquals("Status:Valid", output);
+      } else {
+        assertEquals(new JsonTreeBuilder().input(JSON).output(), output);
+      }
+    }
+    assertNull(new ChannelFeeder<>(new JsonTreeBuilder()).finish().output());
+  }
+}
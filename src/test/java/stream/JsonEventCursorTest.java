@@ -0,0 +1,107 @@
+package stream;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import org.junit.Test;
+import parser.InvalidJsonException;
+import validator.ValidatorStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test class for JsonEventCursor.
+ */
+public class JsonEventCursorTest {
+
+  /**
+   * Test pulling events from input that is provided in pieces.
+   *
+   * @throws IOException if an error occurs while reading
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testFedInput() throws IOException, InvalidJsonException {
+    JsonEventCursor cursor = new JsonEventCursor();
+    assertNull(cursor.next());
+    cursor.input("{\"a\":\"b");
+    assertEquals(JsonEvent.START_OBJECT, cursor.next());
+    assertNull(cursor.text());
+    assertEquals(JsonEvent.KEY, cursor.next());
+    assertEquals("a", cursor.text());
+    assertNull(cursor.next());
+    cursor.input("c\"}");
+    assertEquals(JsonEvent.STRING, cursor.next());
+    assertEquals("bc", cursor.text());
+    assertEquals(JsonEvent.END_OBJECT, cursor.next());
+    assertEquals(JsonEvent.END_OBJECT, cursor.event());
+    assertNull(cursor.next());
+    assertNull(cursor.event());
+    assertEquals(ValidatorStatus.VALID, cursor.status());
+  }
+
+  /**
+   * Test pulling the values of one key out of a document read in many chunks, with more
+   * events in a chunk than the initial queue holds.
+   *
+   * @throws IOException if an error occurs while reading
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testReader() throws IOException, InvalidJsonException {
+    StringBuilder json = new StringBuilder("{\"items\":[");
+    for (int i = 0; i < 5000; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"id\":\"").append(i).append("\",\"x\":\"y\"}");
+    }
+    json.append("]}");
+    JsonEventCursor cursor = new JsonEventCursor(new StringReader(json.toString()));
+    long sum = 0;
+    int events = 0;
+    boolean idValue = false;
+    for (JsonEvent event = cursor.next(); event != null; event = cursor.next()) {
+      events++;
+      if (idValue) {
+        sum += Integer.parseInt(cursor.text());
+      }
+      idValue = event == JsonEvent.KEY && cursor.text().equals("id");
+    }
+    assertEquals(4999L * 5000 / 2, sum);
+    assertEquals(5 + 5000 * 6, events);
+    assertEquals("Status:Valid", cursor.output());
+  }
+
+  /**
+   * Test that an error in the input is reported when the events are pulled.
+   *
+   * @throws IOException if an error occurs while reading
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test(expected = InvalidJsonException.class)
+  public void testReaderInvalid() throws IOException, InvalidJsonException {
+    Reader reader = new StringReader("{\"a\":\"b\"]");
+    JsonEventCursor cursor = new JsonEventCursor(reader);
+    while (cursor.next() != null) {
+      // Pull every event until the error.
+    }
+  }
+
+  /**
+   * Test that a reset cursor drops the events that have not been pulled.
+   *
+   * @throws IOException if an error occurs while reading
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testReset() throws IOException, InvalidJsonException {
+    JsonEventCursor cursor = new JsonEventCursor();
+    cursor.input("{\"a\":[");
+    cursor.reset();
+    assertNull(cursor.next());
+    cursor.input("{\"b\":\"c\"}");
+    assertEquals(JsonEvent.START_OBJECT, cursor.next());
+    assertEquals(JsonEvent.KEY, cursor.next());
+    assertEquals("b", cursor.text());
+    assertEquals(ValidatorStatus.VALID, cursor.status());
+  }
+}
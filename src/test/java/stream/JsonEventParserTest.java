@@ -0,0 +1,107 @@
+package stream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.Test;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import parser.SnapshotParser;
+import validator.JsonValidatorTest;
+import validator.ValidatorStatus;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for JsonEventParser. It runs every test of {@link JsonValidatorTest}, since the
+ * parser reports the same status as the validators.
+ */
+public class JsonEventParserTest extends JsonValidatorTest {
+
+  @Override
+  protected SnapshotParser<String> newValidator() {
+    return new JsonEventParser((event, text) -> { });
+  }
+
+  @Override
+  protected JsonParser<String> newValidator(Consumer<String> documents) {
+    return new JsonEventParser((event, text) -> { }, documents);
+  }
+
+  /**
+   * Records the events of a parser as strings, with the content of keys and strings.
+   *
+   * @param events the list receiving the events
+   * @return the parser
+   */
+  private static JsonEventParser recording(List<String> events) {
+    return new JsonEventParser((event, text) ->
+            events.add(text == null ? event.name() : event + " " + text));
+  }
+
+  /**
+   * Test the events of a nested document, fed in one go and one character at a time.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testEvents() throws InvalidJsonException {
+    String json = "{\"name\":\"a b\", \"list\" : [\"x\",{\"k\":\"\"}], \"o\":{}}";
+    List<String> expected = List.of("START_OBJECT", "KEY name", "STRING a b", "KEY list",
+            "START_ARRAY", "STRING x", "START_OBJECT", "KEY k", "STRING ", "END_OBJECT",
+            "END_ARRAY", "KEY o", "START_OBJECT", "END_OBJECT", "END_OBJECT");
+    List<String> bulk = new ArrayList<>();
+    JsonEventParser parser = recording(bulk);
+    parser.input(json);
+    assertEquals(expected, bulk);
+    assertEquals(ValidatorStatus.VALID, parser.status());
+    List<String> single = new ArrayList<>();
+    parser = recording(single);
+    for (char c : json.toCharArray()) {
+      parser.input(c);
+    }
+    assertEquals(expected, single);
+  }
+
+  /**
+   * Test that events are reported as soon as the characters completing them are read.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testPartialInput() throws InvalidJsonException {
+    List<String> events = new ArrayList<>();
+    JsonEventParser parser = recording(events);
+    parser.input("{\"ke");
+    assertEquals(List.of("START_OBJECT"), events);
+    parser.input("y\":[\"va");
+    assertEquals(List.of("START_OBJECT", "KEY key", "START_ARRAY"), events);
+    assertEquals(2, parser.depth());
+    parser.input("lue\"");
+    assertEquals("STRING value", events.get(3));
+    assertEquals(ValidatorStatus.INCOMPLETE, parser.status());
+  }
+
+  /**
+   * Test that events stop at the first error, which is reported once.
+   */
+  @Test
+  public void testInvalid() {
+    List<String> events = new ArrayList<>();
+    JsonEventParser parser = recording(events);
+    try {
+      parser.input("{\"a\":[\"b\"}");
+      fail("expected the mismatched bracket to be reported");
+    } catch (InvalidJsonException e) {
+      assertEquals("improperly placed brackets", e.getMessage());
+    }
+    assertEquals(List.of("START_OBJECT", "KEY a", "START_ARRAY", "STRING b"), events);
+    try {
+      parser.input("]}");
+    } catch (InvalidJsonException e) {
+      fail("input after an error should be ignored");
+    }
+    assertEquals(ValidatorStatus.INVALID, parser.status());
+  }
+}
@@ -0,0 +1,127 @@
+package validator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Test class for BatchValidator.
+ */
+public class BatchValidatorTest {
+
+  private static final String[] DOCUMENTS = {
+    "{\"a\":\"b\"}",
+    "{\"a\":[\"b\",{\"c\":\"d\"}]}",
+    "{\"a\":",
+    "{\"a\"}",
+    "",
+    "{\"é\":\"€\"}",
+  };
+
+  private static final ValidatorStatus[] STATUSES = {
+    ValidatorStatus.VALID,
+    ValidatorStatus.VALID,
+    ValidatorStatus.INCOMPLETE,
+    ValidatorStatus.INVALID,
+    ValidatorStatus.EMPTY,
+    ValidatorStatus.VALID,
+  };
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Test that the results of many files come back in the order of the files, whatever the
+   * parallelism, and that a missing file is reported without stopping the others.
+   *
+   * @throws IOException if a file cannot be written
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testFiles() throws IOException, InterruptedException {
+    List<Path> files = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      Path file = folder.newFile().toPath();
+      Files.write(file, DOCUMENTS[i % DOCUMENTS.length].getBytes(StandardCharsets.UTF_8));
+      files.add(file);
+    }
+    files.add(150, folder.getRoot().toPath().resolve("missing.json"));
+    for (int parallelism : new int[] {1, 3, 16}) {
+      List<BatchValidator.Result> results = new BatchValidator(parallelism).validateFiles(files);
+      assertEquals(files.size(), results.size());
+      for (int i = 0; i < files.size(); i++) {
+        BatchValidator.Result result = results.get(i);
+        if (i == 150) {
+          assertNull(result.status());
+          assertNotNull(result.error());
+        } else {
+          int document = (i < 150 ? i : i - 1) % DOCUMENTS.length;
+          assertEquals("file " + i, STATUSES[document], result.status());
+          assertNull(result.error());
+        }
+      }
+    }
+  }
+
+  /**
+   * Test a file larger than the buffer of a worker and one large enough to be mapped.
+   *
+   * @throws IOException if a file cannot be written
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testLargeFiles() throws IOException, InterruptedException {
+    StringBuilder json = new StringBuilder("{\"items\":[");
+    Path read = folder.newFile().toPath();
+    Path mapped = folder.newFile().toPath();
+    for (int i = 0; json.length() <= BatchValidator.MAP_THRESHOLD; i++) {
+      json.append(i == 0 ? "" : ",").append("{\"id\":\"é").append(i).append("\"}");
+      if (i == 20000) {
+        Files.write(read, (json + "]}").getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    Files.write(mapped, (json + "]").getBytes(StandardCharsets.UTF_8));
+    List<BatchValidator.Result> results =
+            new BatchValidator(2).validateFiles(Arrays.asList(read, mapped));
+    assertEquals(ValidatorStatus.VALID, results.get(0).status());
+    assertEquals(ValidatorStatus.INCOMPLETE, results.get(1).status());
+  }
+
+  /**
+   * Test buffers, which are left unchanged, including one ending inside a character.
+   *
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testBuffers() throws InterruptedException {
+    List<ByteBuffer> buffers = new ArrayList<>();
+    for (String document : DOCUMENTS) {
+      buffers.add(ByteBuffer.wrap(document.getBytes(StandardCharsets.UTF_8)));
+    }
+    buffers.add(ByteBuffer.wrap(new byte[] {'{', '"', 'a', '"', ':', '"', (byte) 0xC3}));
+    List<ValidatorStatus> expected = new ArrayList<>(Arrays.asList(STATUSES));
+    expected.add(ValidatorStatus.INCOMPLETE);
+    assertEquals(expected, new BatchValidator(4).validateBuffers(buffers));
+    assertEquals(0, buffers.get(0).position());
+  }
+
+  /**
+   * Test that the parallelism has to be positive.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testInvalidParallelism() {
+    new BatchValidator(0);
+  }
+}
@@ -0,0 +1,89 @@
+package validator;
+
+import org.junit.Test;
+import parser.InvalidJsonException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for BracketStack.
+ */
+public class BracketStackTest {
+
+  /**
+   * Test that brackets are matched, that a comma leads to the state of the innermost
+   * container, and that the status follows the depth and the state.
+   *
+   * @throws InvalidJsonException if a bracket does not match
+   */
+  @Test
+  public void testPushPop() throws InvalidJsonException {
+    BracketStack stack = new BracketStack();
+    assertEquals(ValidatorStatus.EMPTY, stack.status(JsonGrammar.START));
+    for (int i = 0; i < 40; i++) {
+      stack.push(i % 2 == 0);
+    }
+    assertEquals(40, stack.depth());
+    assertFalse(stack.inObject());
+    assertEquals(JsonGrammar.VALUE, stack.separate());
+    assertEquals(ValidatorStatus.INCOMPLETE, stack.status(JsonGrammar.COMMA));
+    for (int i = 39; i >= 0; i--) {
+      stack.pop(i % 2 == 0);
+      assertEquals(i > 0 && (i - 1) % 2 == 0, stack.inObject());
+    }
+    assertEquals(ValidatorStatus.VALID, stack.status(JsonGrammar.COMMA));
+  }
+
+  /**
+   * Test that a mismatched bracket or a comma outside of every container makes the input
+   * invalid until the stack is reset.
+   */
+  @Test
+  public void testFailures() {
+    BracketStack stack = new BracketStack();
+    stack.push(true);
+    try {
+      stack.pop(false);
+      fail();
+    } catch (InvalidJsonException e) {
+      assertEquals(JsonGrammar.BRACKET_MISMATCH, e.getMessage());
+    }
+    assertTrue(stack.invalid());
+    assertEquals(ValidatorStatus.INVALID, stack.status(JsonGrammar.COMMA));
+    stack.reset();
+    assertFalse(stack.invalid());
+    try {
+      stack.separate();
+      fail();
+    } catch (InvalidJsonException e) {
+      assertEquals(JsonGrammar.NOTHING_TO_SEPARATE, e.getMessage());
+    }
+  }
+
+  /**
+   * Test that a shared stack and the original can go their own ways.
+   *
+   * @throws InvalidJsonException if a bracket does not match
+   */
+  @Test
+  public void testShare() throws InvalidJsonException {
+    BracketStack stack = new BracketStack();
+    stack.push(true);
+    stack.push(false);
+    BracketStack copy = stack.share();
+    stack.pop(false);
+    stack.push(true);
+    copy.push(true);
+    assertTrue(stack.inObject());
+    copy.pop(true);
+    copy.pop(false);
+    stack.pop(true);
+    stack.pop(true);
+    copy.pop(true);
+    assertEquals(0, stack.depth());
+    assertEquals(0, copy.depth());
+  }
+}
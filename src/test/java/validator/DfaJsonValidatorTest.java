@@ -0,0 +1,116 @@
+package validator;
+
+import java.util.Random;
+import java.util.function.Consumer;
+import org.junit.Test;
+import parser.InvalidJsonException;
+import parser.JsonParser;
+import parser.SnapshotParser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Test class for DfaJsonValidator. It runs every test of {@link JsonValidatorTest} and
+ * compares both validators on random input.
+ */
+public class DfaJsonValidatorTest extends JsonValidatorTest {
+
+  @Override
+  protected SnapshotParser<String> newValidator() {
+    return new DfaJsonValidator();
+  }
+
+  @Override
+  protected JsonParser<String> newValidator(Consumer<String> documents) {
+    return new DfaJsonValidator(documents);
+  }
+
+  /**
+   * Test the status values of a growing input.
+   *
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test
+  public void testStatus() throws InvalidJsonException {
+    DfaJsonValidator validator = new DfaJsonValidator();
+    assertEquals(ValidatorStatus.EMPTY, validator.status());
+    validator.input(" {\"a\":[");
+    assertEquals(ValidatorStatus.INCOMPLETE, validator.status());
+    validator.input("\"b\"]}");
+    assertEquals(ValidatorStatus.VALID, validator.status());
+    assertEquals("Status:Valid", validator.output());
+  }
+
+  /**
+   * Test that the status stays invalid and further input is ignored.
+   */
+  @Test
+  public void testInvalidIsFinal() {
+    DfaJsonValidator validator = new DfaJsonValidator();
+    try {
+      validator.input("{\"a\"}");
+      fail("expected the missing colon to be reported");
+    } catch (InvalidJsonException e) {
+      assertEquals("missing colon", e.getMessage());
+    }
+    try {
+      validator.input(":\"b\"}");
+    } catch (InvalidJsonException e) {
+      fail("input after an error should be ignored");
+    }
+    assertEquals(ValidatorStatus.INVALID, validator.status());
+  }
+
+  /**
+   * Test a comma after the outermost object has been closed.
+   *
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test(expected = InvalidJsonException.class)
+  public void testCommaAfterEnd() throws InvalidJsonException {
+    new DfaJsonValidator().input("{\"a\":\"b\"},");
+  }
+
+  /**
+   * Test that both validators report the same status and the same errors for random
+   * input made of the characters that matter to the syntax.
+   */
+  @Test
+  public void testSameAsJsonValidator() {
+    char[] alphabet = {'{', '}', '[', ']', '"', ':', ',', ' ', 'a', 'Z', '7', '$', 'é'};
+    Random random = new Random(5010);
+    for (int round = 0; round < 20000; round++) {
+      JsonValidator expected = new JsonValidator();
+      DfaJsonValidator actual = new DfaJsonValidator();
+      int length = 1 + random.nextInt(24);
+      for (int i = 0; i < length; i++) {
+        char c;
+        if (i == 0 && round % 10 != 0) {
+          c = '{';
+        } else if (random.nextInt(3) == 0) {
+          c = alphabet[random.nextInt(alphabet.length)];
+        } else {
+          c = "{\"k\":[\"v\"]},".charAt(random.nextInt(12));
+        }
+        String expectedError = null;
+        String actualError = null;
+        try {
+          expected.input(c);
+        } catch (InvalidJsonException e) {
+          expectedError = e.getMessage();
+        }
+        try {
+          actual.input(c);
+        } catch (InvalidJsonException e) {
+          actualError = e.getMessage();
+        }
+        assertEquals(expectedError, actualError);
+        if (expectedError != null) {
+          break;
+        }
+        assertEquals(expected.output(), actual.output());
+      }
+    }
+  }
+}
@@ -1,23 +1,52 @@
 package validator;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
 import org.junit.Before;
 import org.junit.Test;
 import parser.InvalidJsonException;
+import parser.JsonParser;
+import parser.ParserSnapshot;
+import parser.SnapshotParser;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 /**
  * Test class for JsonValidator.
  */
 public class JsonValidatorTest {
-  private JsonValidator validator;
+  private SnapshotParser<String> validator;
+
+  /**
+   * Creates the validator under test.
+   *
+   * @return a new validator
+   */
+  protected SnapshotParser<String> newValidator() {
+    return new JsonValidator();
+  }
+
+  /**
+   * Creates the validator under test in multi-document mode.
+   *
+   * @param documents the consumer of the status of each complete object
+   * @return a new validator
+   */
+  protected JsonParser<String> newValidator(Consumer<String> documents) {
+    return new JsonValidator(documents);
+  }
 
   /**
    * Sets up the JsonValidator before each test.
    */
   @Before
   public void setUp() {
-    validator = new JsonValidator();
+    validator = newValidator();
   }
 
   /**
@@ -342,7 +371,7 @@ public class JsonValidatorTest {
    */
   @Test(expected = InvalidJsonException.class)
   public void testCommaErr() throws InvalidJsonException {
-    JsonValidator validator = new JsonValidator();
+    JsonParser<String> validator = newValidator();
     validator.input('{')
             .input('"')
             .input('k')
@@ -396,4 +425,192 @@ public class JsonValidatorTest {
             .input('"')
             .input('}');
   }
+
+  /**
+   * Test that bulk input gives the same status as single characters, wherever the
+   * input is split.
+   *
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test
+  public void testBulkSplits() throws InvalidJsonException {
+    String json = " {\"a\" : \"x y\", \"b\":[\"1\",{\"c\":\"\"}],\"d\":{\"e\":\"2\"}} ";
+    for (int split = 0; split <= json.length(); split++) {
+      JsonParser<String> bulk = newValidator();
+      char[] chars = json.toCharArray();
+      bulk.input(chars, 0, split);
+      JsonParser<String> single = newValidator();
+      for (int i = 0; i < split; i++) {
+        single.input(chars[i]);
+      }
+      assertEquals(single.output(), bulk.output());
+      bulk.input(chars, split, chars.length - split);
+      assertEquals("Status:Valid", bulk.output());
+    }
+  }
+
+  /**
+   * Test that bulk input of only whitespace leaves the status empty, like single
+   * characters do.
+   *
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test
+  public void testBulkWhitespace() throws InvalidJsonException {
+    validator.input(" \n\t ");
+    assertEquals("Status:Empty", validator.output());
+    JsonParser<String> single = newValidator();
+    for (char c : " \n\t ".toCharArray()) {
+      single.input(c);
+    }
+    assertEquals("Status:Empty", single.output());
+  }
+
+  /**
+   * Test that bulk input ending inside a string is incomplete.
+   *
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test
+  public void testBulkIncomplete() throws InvalidJsonException {
+    validator.input("{\"a\":[\"unfinished");
+    assertEquals("Status:Incomplete", validator.output());
+  }
+
+  /**
+   * Test that bulk input reports an invalid character.
+   *
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test
+  public void testBulkInvalid() {
+    try {
+      validator.input("{\"a\":\"b\" \"c\"}");
+      fail("expected InvalidJsonException");
+    } catch (InvalidJsonException e) {
+      assertEquals("missing comma or closing bracket", e.getMessage());
+    }
+    assertEquals("Status:Invalid", validator.output());
+  }
+
+  /**
+   * Test that a comma after the outermost object has been closed is reported as invalid.
+   *
+   * @throws InvalidJsonException if an error occurs before the comma
+   */
+  @Test
+  public void testCommaAfterRoot() throws InvalidJsonException {
+    validator.input("{\"a\":\"b\"}");
+    try {
+      validator.input(',');
+      fail("expected InvalidJsonException");
+    } catch (InvalidJsonException e) {
+      assertEquals(JsonGrammar.NOTHING_TO_SEPARATE, e.getMessage());
+    }
+    assertEquals("Status:Invalid", validator.output());
+  }
+
+  /**
+   * Test that a reader is consumed until it is exhausted.
+   *
+   * @throws IOException if the reader fails
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test
+  public void testConsumeReader() throws IOException, InvalidJsonException {
+    StringBuilder json = new StringBuilder("{\"list\":[");
+    for (int i = 0; i < 5000; i++) {
+      json.append(i == 0 ? "" : ",").append("\"value").append(i).append('"');
+    }
+    json.append("]}");
+    validator.consume(new StringReader(json.toString()));
+    assertEquals("Status:Valid", validator.output());
+  }
+
+  /**
+   * Test that a reset validator checks a new document as if it were new, whether the
+   * previous one was valid, incomplete or invalid.
+   *
+   * @throws InvalidJsonException if an error occurs during the check
+   */
+  @Test
+  public void testReset() throws InvalidJsonException {
+    validator.input("{\"a\":[\"b\"");
+    validator.reset();
+    assertEquals("Status:Empty", validator.output());
+    validator.input("{\"c\":\"d\"}");
+    assertEquals("Status:Valid", validator.output());
+    try {
+      validator.input("}");
+    } catch (InvalidJsonException e) {
+      // the legacy validator reports some errors through its status instead
+    }
+    assertEquals("Status:Invalid", validator.output());
+    validator.reset();
+    validator.input("{\"e\":{\"f\":\"g\"}}");
+    assertEquals("Status:Valid", validator.output());
+  }
+
+  /**
+   * Test that validators forked from a snapshot continue independently of each other and of
+   * the original validator, which is reset and reused in between.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testSnapshot() throws InvalidJsonException {
+    validator.input("{\"a\":[\"b\",{\"c\":");
+    ParserSnapshot<String> snapshot = validator.snapshot();
+    validator.input("\"d\"}]}");
+    assertEquals("Status:Valid", validator.output());
+    validator.reset();
+    validator.input("{\"e\":{\"f\":[[[\"g\"");
+    SnapshotParser<String> fork = snapshot.fork();
+    fork.input("{\"h\":\"i\"}}");
+    assertEquals("Status:Incomplete", fork.output());
+    JsonParser<String> nested = fork.fork();
+    fork.input("]}");
+    assertEquals("Status:Valid", fork.output());
+    try {
+      nested.input("}");
+    } catch (InvalidJsonException e) {
+      // the legacy validator reports some errors through its status instead
+    }
+    assertEquals("Status:Invalid", nested.output());
+    assertEquals("Status:Valid", snapshot.fork().input("[\"j\"]}]}").output());
+    assertEquals("Status:Incomplete", validator.output());
+  }
+
+  /**
+   * Test that a sequence of objects is reported one object at a time, whether it is fed in
+   * one go or one character at a time, and that anything other than an object between them
+   * is invalid.
+   *
+   * @throws InvalidJsonException if an error occurs during the parsing
+   */
+  @Test
+  public void testDocuments() throws InvalidJsonException {
+    String json = "{\"a\":\"b\"}\n{\"c\":[{\"x\":\"y\"}]}{\"d\":{}}\n  {\"e\":";
+    List<String> bulk = new ArrayList<>();
+    JsonParser<String> parser = newValidator(bulk::add);
+    parser.input(json);
+    List<String> single = new ArrayList<>();
+    JsonParser<String> other = newValidator(single::add);
+    for (char c : json.toCharArray()) {
+      other.input(c);
+    }
+    List<String> valid = Arrays.asList("Status:Valid", "Status:Valid", "Status:Valid");
+    assertEquals(valid, bulk);
+    assertEquals(valid, single);
+    assertEquals("Status:Incomplete", parser.output());
+    parser.input("\"f\"}\n");
+    assertEquals(4, bulk.size());
+    assertEquals("Status:Empty", parser.output());
+    try {
+      parser.input("\"g\"");
+    } catch (InvalidJsonException e) {
+      // the legacy validator reports some errors through its status instead
+    }
+    assertEquals("Status:Invalid", parser.output());
+  }
 }
@@ -0,0 +1,113 @@
+package validator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import parser.InvalidJsonException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for MappedFileValidator.
+ */
+public class MappedFileValidatorTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Writes the content to a file and checks it with several window sizes, expecting the
+   * same status as the JsonValidator reports for the decoded content.
+   *
+   * @param content the content of the file
+   * @param expected the expected status
+   * @throws IOException if the file cannot be written or read
+   */
+  private void assertStatus(byte[] content, ValidatorStatus expected) throws IOException {
+    Path file = folder.newFile().toPath();
+    Files.write(file, content);
+    for (long window = 1; window <= 5; window++) {
+      assertEquals("window " + window, expected, new MappedFileValidator(window).check(file));
+    }
+    assertEquals(expected, MappedFileValidator.validate(file));
+    JsonValidator reference = new JsonValidator();
+    try {
+      reference.input(new String(content, StandardCharsets.UTF_8));
+    } catch (InvalidJsonException e) {
+      // The status below is invalid.
+    }
+    assertEquals(reference.output(), expected.text());
+  }
+
+  /**
+   * Writes UTF-8 encoded content to a file and checks it.
+   *
+   * @param content the content of the file
+   * @param expected the expected status
+   * @throws IOException if the file cannot be written or read
+   */
+  private void assertStatus(String content, ValidatorStatus expected) throws IOException {
+    assertStatus(content.getBytes(StandardCharsets.UTF_8), expected);
+  }
+
+  /**
+   * Test an empty file and a file with only whitespace.
+   */
+  @Test
+  public void testEmpty() throws IOException {
+    assertStatus("", ValidatorStatus.EMPTY);
+    assertStatus(" \n ", ValidatorStatus.EMPTY);
+  }
+
+  /**
+   * Test a valid file with nested objects and arrays.
+   */
+  @Test
+  public void testValid() throws IOException {
+    assertStatus("{\"a\":[\"x\",{\"b\":\"y\"}], \"c\" : {}}\n", ValidatorStatus.VALID);
+  }
+
+  /**
+   * Test multi-byte characters in values, in keys and as whitespace, which are split
+   * across windows.
+   */
+  @Test
+  public void testMultiByte() throws IOException {
+    assertStatus("{\"été\":\"€ 😀\"}", ValidatorStatus.VALID);
+    assertStatus("{　\"a\":\"b\"　}", ValidatorStatus.VALID);
+    assertStatus("{\"a😀\":\"b\"}", ValidatorStatus.INVALID);
+  }
+
+  /**
+   * Test a file that ends before the JSON is complete.
+   */
+  @Test
+  public void testIncomplete() throws IOException {
+    assertStatus("{\"a\":[\"x\",", ValidatorStatus.INCOMPLETE);
+    assertStatus("{\"a\":\"é", ValidatorStatus.INCOMPLETE);
+  }
+
+  /**
+   * Test files with invalid JSON and with malformed UTF-8.
+   */
+  @Test
+  public void testInvalid() throws IOException {
+    assertStatus("{\"a\":\"b\"]", ValidatorStatus.INVALID);
+    assertStatus(new byte[] {'{', '"', 'a', (byte) 0xC3}, ValidatorStatus.INVALID);
+    assertStatus(new byte[] {'{', (byte) 0xC0, (byte) 0xA0, '}'}, ValidatorStatus.INVALID);
+    assertStatus(new byte[] {'{', '}', (byte) 0xE3, (byte) 0x80}, ValidatorStatus.INVALID);
+  }
+
+  /**
+   * Test that values may hold any bytes besides the quote.
+   */
+  @Test
+  public void testRawValueBytes() throws IOException {
+    assertStatus(new byte[] {'{', '"', 'a', '"', ':', '"', (byte) 0xFF, (byte) 0x80, '"', '}'},
+            ValidatorStatus.VALID);
+  }
+}
@@ -0,0 +1,232 @@
+package validator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import parser.InvalidJsonException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Test class for ParallelValidator, which is compared with DfaJsonValidator.
+ */
+public class ParallelValidatorTest {
+
+  private static final String[] TOKENS = {
+    "{", "}", "[", "]", "\"", ":", ",", " ", "a", "7", "é", "€", "😀", "!"
+  };
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * Creates a random valid document. Objects are never empty, since the grammar does not
+   * accept a comma after an empty object.
+   *
+   * @param random the source of randomness
+   * @param out the builder receiving the document
+   * @param depth the remaining nesting depth
+   */
+  private static void randomObject(Random random, StringBuilder out, int depth) {
+    out.append('{');
+    int size = 1 + random.nextInt(3);
+    for (int i = 0; i < size; i++) {
+      out.append(i == 0 ? "" : ",").append(" \"k").append(random.nextInt(3)).append("\" : ");
+      randomValue(random, out, depth);
+    }
+    out.append('}');
+  }
+
+  /**
+   * Creates a random value, which is a string, an object or an array that is never empty.
+   *
+   * @param random the source of randomness
+   * @param out the builder receiving the value
+   * @param depth the remaining nesting depth
+   */
+  private static void randomValue(Random random, StringBuilder out, int depth) {
+    int kind = depth == 0 ? 0 : random.nextInt(3);
+    if (kind == 0) {
+      out.append("\"v ").append(TOKENS[random.nextInt(TOKENS.length)].replace("\"", "'"))
+              .append("\"");
+    } else if (kind == 1) {
+      randomObject(random, out, depth - 1);
+    } else {
+      out.append('[');
+      int size = 1 + random.nextInt(3);
+      for (int i = 0; i < size; i++) {
+        out.append(i == 0 ? "" : ", ");
+        randomValue(random, out, depth - 1);
+      }
+      out.append(']');
+    }
+  }
+
+  /**
+   * Creates a random document, which is valid, truncated or changed in a few places.
+   *
+   * @param random the source of randomness
+   * @return the document
+   */
+  private static String randomDocument(Random random) {
+    StringBuilder json = new StringBuilder();
+    randomObject(random, json, 5);
+    int change = random.nextInt(4);
+    if (change == 1) {
+      json.setLength(random.nextInt(json.length() + 1));
+    } else if (change == 2) {
+      for (int i = random.nextInt(3); i >= 0; i--) {
+        json.insert(random.nextInt(json.length() + 1), TOKENS[random.nextInt(TOKENS.length)]);
+      }
+    } else if (change == 3) {
+      json.deleteCharAt(random.nextInt(json.length()));
+    }
+    if (random.nextInt(8) == 0) {
+      json.append(json);
+    }
+    return json.toString();
+  }
+
+  /**
+   * Validates characters with the sequential validator.
+   *
+   * @param json the characters
+   * @return their status
+   */
+  private static ValidatorStatus expected(String json) {
+    DfaJsonValidator validator = new DfaJsonValidator();
+    try {
+      validator.input(json);
+    } catch (InvalidJsonException e) {
+      // The status is invalid.
+    }
+    return validator.status();
+  }
+
+  /**
+   * Validates bytes with the sequential validator.
+   *
+   * @param utf8 the bytes
+   * @return their status
+   */
+  private static ValidatorStatus expected(byte[] utf8) {
+    DfaJsonValidator validator = new DfaJsonValidator();
+    try {
+      validator.input(ByteBuffer.wrap(utf8));
+      validator.finishUtf8();
+    } catch (InvalidJsonException e) {
+      // The status is invalid.
+    }
+    return validator.status();
+  }
+
+  /**
+   * Test case to verify that random documents split into chunks of many sizes get the
+   * status of the sequential validator, as characters and as bytes.
+   *
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testSameAsSequential() throws InterruptedException {
+    Random random = new Random(18);
+    for (int round = 0; round < 600; round++) {
+      String json = randomDocument(random);
+      char[] chars = json.toCharArray();
+      byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+      if (round % 5 == 0 && bytes.length > 0) {
+        bytes[random.nextInt(bytes.length)] = (byte) (0x80 + random.nextInt(0x80));
+      }
+      for (int chunkSize : new int[] {1, 2, 3, 7, 64}) {
+        ParallelValidator validator = new ParallelValidator(3, chunkSize);
+        assertEquals(json, expected(json), validator.validate(chars, 0, chars.length));
+        assertEquals(json, expected(bytes), validator.validate(ByteBuffer.wrap(bytes)));
+      }
+    }
+  }
+
+  /**
+   * Test a chunk that closes more brackets than it can follow, which is read again once
+   * the brackets before it are known.
+   *
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testManyBranches() throws InterruptedException {
+    int levels = 3 * ChunkSummary.MAX_BRANCHES;
+    StringBuilder json = new StringBuilder("{\"a\":");
+    for (int i = 0; i < levels; i++) {
+      json.append("[");
+    }
+    json.append("\"x\"");
+    for (int i = 0; i < levels; i++) {
+      json.append("],\"y\"");
+    }
+    String valid = json.substring(0, json.length() - 4) + "}";
+    int middle = valid.length() * 3 / 4;
+    String mismatched = valid.substring(0, middle)
+            + valid.substring(middle).replaceFirst("]", "}");
+    for (String document : new String[] {valid, json.toString(), mismatched}) {
+      char[] chars = document.toCharArray();
+      assertEquals(expected(document),
+              new ParallelValidator(2, chars.length / 3).validate(chars, 0, chars.length));
+    }
+    assertEquals(ValidatorStatus.VALID, expected(valid));
+  }
+
+  /**
+   * Test a file whose chunks would split multi-byte characters.
+   *
+   * @throws IOException if the file cannot be written or read
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testFile() throws IOException, InterruptedException {
+    Random random = new Random(3);
+    StringBuilder json = new StringBuilder("{\"items\":[");
+    for (int i = 0; i < 2000; i++) {
+      json.append(i == 0 ? "" : ",");
+      randomObject(random, json, 3);
+    }
+    json.append("]}");
+    Path file = folder.newFile().toPath();
+    byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+    Files.write(file, bytes);
+    assertEquals(ValidatorStatus.VALID, new ParallelValidator(4, 1001).validate(file));
+    Files.write(file, json.substring(0, json.length() - 1).getBytes(StandardCharsets.UTF_8));
+    assertEquals(ValidatorStatus.INCOMPLETE, new ParallelValidator(4, 997).validate(file));
+    Files.write(file, new byte[0]);
+    assertEquals(ValidatorStatus.EMPTY, new ParallelValidator().validate(file));
+  }
+
+  /**
+   * Test that a validator given an executor uses it for many documents and leaves it
+   * running.
+   *
+   * @throws InterruptedException if the test is interrupted
+   */
+  @Test
+  public void testSharedExecutor() throws InterruptedException {
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      ParallelValidator validator = new ParallelValidator(executor, 5);
+      Random random = new Random(7);
+      for (int round = 0; round < 50; round++) {
+        String json = randomDocument(random);
+        char[] chars = json.toCharArray();
+        assertEquals(json, expected(json), validator.validate(chars, 0, chars.length));
+      }
+      assertFalse(executor.isShutdown());
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
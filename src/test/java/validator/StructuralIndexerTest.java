@@ -0,0 +1,58 @@
+package validator;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test class for StructuralIndexer.
+ */
+public class StructuralIndexerTest {
+
+  /**
+   * Creates random bytes that are mostly quotes and other structural characters, with some
+   * bytes that only differ from them in the high bit.
+   *
+   * @param random the source of randomness
+   * @param length the number of bytes
+   * @return the bytes
+   */
+  private static byte[] randomBytes(Random random, int length) {
+    byte[] candidates = "\"{}[]:, a1".getBytes(StandardCharsets.US_ASCII);
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++) {
+      int pick = random.nextInt(candidates.length + 2);
+      if (pick < candidates.length) {
+        bytes[i] = candidates[pick];
+      } else if (pick == candidates.length) {
+        bytes[i] = (byte) (candidates[random.nextInt(candidates.length)] | 0x80);
+      } else {
+        bytes[i] = (byte) random.nextInt(256);
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Test that the next quote is found the same way as a byte-by-byte search.
+   */
+  @Test
+  public void testNextQuote() {
+    Random random = new Random(34);
+    for (int round = 0; round < 2000; round++) {
+      ByteBuffer buf = ByteBuffer.wrap(randomBytes(random, 1 + random.nextInt(100)));
+      buf.order(round % 2 == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+      int from = random.nextInt(buf.limit());
+      int to = from + random.nextInt(buf.limit() - from + 1);
+      int expected = from;
+      while (expected < to && buf.get(expected) != '"') {
+        expected++;
+      }
+      assertEquals(expected, StructuralIndexer.nextQuote(buf, from, to));
+    }
+  }
+}